@@ -38,6 +38,7 @@ public class Employee extends Person {
     private static final long serialVersionUID = 3L;
 
     private String department;
+    private transient String departmentKey; // zwischengespeicherter Sortierschlüssel
     private Integer wardId; // Ward-Zuweisung für Mitarbeiter/Ärzte
 
     // Konstruktor ohne Ward-Zuweisung
@@ -60,6 +61,24 @@ public class Employee extends Person {
         this.wardId = wardId;
     }
 
+    // Konstruktor ohne Validierung (Wiederherstellung aus der Persistierung)
+    private Employee(long personId, String name, String firstname, String phonenumber, String email,
+            LocalDate birthdate, String adress, String department, Integer wardId, boolean restored) {
+        super(personId, name, firstname, phonenumber, email, birthdate, adress, restored);
+        this.department = department;
+        this.wardId = wardId;
+    }
+
+    /**
+     * Stellt einen gespeicherten Mitarbeiter ohne erneute Validierung wieder
+     * her. Nur für die Persistierung (EntityCodec) gedacht.
+     */
+    public static Employee restore(long personId, String name, String firstname, String phonenumber,
+            String email, LocalDate birthdate, String adress, String department, Integer wardId) {
+        return new Employee(personId, name, firstname, phonenumber, email, birthdate, adress,
+                department, wardId, true);
+    }
+
     /**
      * TEST-KONSTRUKTOR: Fängt Exceptions ab für normale Tests
      */
@@ -111,7 +130,7 @@ public class Employee extends Person {
 
         Employee otherEmployee = (Employee) other;
 
-        int deptComparison = this.department.compareToIgnoreCase(otherEmployee.department);
+        int deptComparison = this.departmentKey().compareTo(otherEmployee.departmentKey());
         if (deptComparison != 0) {
             return deptComparison;
         }
@@ -130,15 +149,27 @@ public class Employee extends Person {
         return super.compareTo(other);
     }
 
-    // Comparatoren
+    // Comparatoren (auf den zwischengespeicherten Sortierschlüsseln)
     public static final Comparator<Employee> BY_DEPARTMENT_ONLY = Comparator
-            .comparing(Employee::getDepartment, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(Employee::getName, String.CASE_INSENSITIVE_ORDER);
+            .comparing(Employee::departmentKey)
+            .thenComparing(Employee::nameKey);
 
     public static final Comparator<Employee> BY_WARD_THEN_DEPARTMENT = Comparator
             .comparing(Employee::getWardId, Comparator.nullsLast(Comparator.naturalOrder()))
-            .thenComparing(Employee::getDepartment, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(Employee::getName, String.CASE_INSENSITIVE_ORDER);
+            .thenComparing(Employee::departmentKey)
+            .thenComparing(Employee::nameKey);
+
+    /**
+     * @return Abteilung in Faltung (siehe {@link Person#nameKey()})
+     */
+    public String departmentKey() {
+        String key = departmentKey;
+        if (key == null) {
+            key = fold(department);
+            departmentKey = key;
+        }
+        return key;
+    }
 
     @Override
     public String toString() {
@@ -161,6 +192,7 @@ public class Employee extends Person {
     public void setDepartment(String department) throws InvalidPersonDataException {
         validateEmployeeData(department);
         this.department = department;
+        this.departmentKey = null;
     }
 
     public Integer getWardId() {
@@ -48,6 +48,22 @@ public class Patient extends Person {
         this.wardId = wardId;
     }
 
+    // Konstruktor ohne Validierung (Wiederherstellung aus der Persistierung)
+    private Patient(long personId, String name, String firstname, String phonenumber, String email,
+            LocalDate birthdate, String adress, Integer wardId, boolean restored) {
+        super(personId, name, firstname, phonenumber, email, birthdate, adress, restored);
+        this.wardId = wardId;
+    }
+
+    /**
+     * Stellt einen gespeicherten Patienten ohne erneute Validierung wieder her.
+     * Nur für die Persistierung (EntityCodec) gedacht.
+     */
+    public static Patient restore(long personId, String name, String firstname, String phonenumber,
+            String email, LocalDate birthdate, String adress, Integer wardId) {
+        return new Patient(personId, name, firstname, phonenumber, email, birthdate, adress, wardId, true);
+    }
+
     /**
      * TEST-KONSTRUKTOR: Fängt Exceptions ab für normale Tests
      * Nur für Testzwecke - im echten Code Manager-Methoden verwenden!
@@ -103,19 +119,21 @@ public class Patient extends Person {
         return super.compareTo(other);
     }
 
-    // Comparatoren
+    // Comparatoren (auf den zwischengespeicherten Sortierschlüsseln)
     public static final Comparator<Patient> BY_WARD_THEN_NAME = Comparator
             .comparing(Patient::getWardId, Comparator.nullsLast(Comparator.naturalOrder()))
-            .thenComparing(Patient::getName, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(Patient::getFirstname, String.CASE_INSENSITIVE_ORDER);
+            .thenComparing(Patient::nameKey)
+            .thenComparing(Patient::firstnameKey);
 
+    // Älteste zuerst; über das Geburtsdatum statt getAge(), damit die
+    // Reihenfolge nicht vom heutigen Datum abhängt (sortierter Index)
     public static final Comparator<Patient> BY_AGE_DESC = Comparator
-            .comparing(Patient::getAge, Comparator.reverseOrder())
-            .thenComparing(Patient::getName, String.CASE_INSENSITIVE_ORDER);
+            .comparingLong(Patient::birthEpochDay)
+            .thenComparing(Patient::nameKey);
 
     public static final Comparator<Patient> BY_NAME_ONLY = Comparator
-            .comparing(Patient::getName, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(Patient::getFirstname, String.CASE_INSENSITIVE_ORDER);
+            .comparing(Patient::nameKey)
+            .thenComparing(Patient::firstnameKey);
 
     @Override
     public String toString() {
@@ -38,6 +38,11 @@ public class Person implements Serializable, Comparable<Person> {
     protected String adress;
     protected LocalDate birthdate;
 
+    // Zwischengespeicherte Sortierschlüssel; nicht serialisiert, werden bei
+    // Bedarf neu berechnet und von den Settern verworfen
+    private transient String nameKey;
+    private transient String firstnameKey;
+
     // Konstruktor mit Validierung
     public Person(long personId, String name, String firstname, String phonenumber,
             String email, LocalDate birthdate, String address)
@@ -54,6 +59,21 @@ public class Person implements Serializable, Comparable<Person> {
         this.adress = address;
     }
 
+    /**
+     * Konstruktor ohne Validierung - nur für das Wiederherstellen bereits
+     * gespeicherter Objekte (siehe EntityCodec), analog zur Java-Serialisierung.
+     */
+    protected Person(long personId, String name, String firstname, String phonenumber,
+            String email, LocalDate birthdate, String address, boolean restored) {
+        this.personId = personId;
+        this.name = name;
+        this.firstname = firstname;
+        this.phonenumber = phonenumber;
+        this.email = email;
+        this.birthdate = birthdate;
+        this.adress = address;
+    }
+
     /**
      * Validiert Personendaten und wirft entsprechende Exceptions
      */
@@ -105,27 +125,30 @@ public class Person implements Serializable, Comparable<Person> {
         }
     }
 
+    /**
+     * Vergleicht über die zwischengespeicherten Sortierschlüssel, sodass pro
+     * Vergleich weder Groß-/Kleinschreibung umgerechnet noch ein Alter
+     * berechnet werden muss.
+     */
     @Override
     public int compareTo(Person other) {
         if (other == null)
             return 1;
 
         // 1. Primär nach Nachname
-        int nameComparison = this.name.compareToIgnoreCase(other.name);
+        int nameComparison = this.nameKey().compareTo(other.nameKey());
         if (nameComparison != 0) {
             return nameComparison;
         }
 
         // 2. Sekundär nach Vorname
-        int firstnameComparison = this.firstname.compareToIgnoreCase(other.firstname);
+        int firstnameComparison = this.firstnameKey().compareTo(other.firstnameKey());
         if (firstnameComparison != 0) {
             return firstnameComparison;
         }
 
-        // 3. Tertiär nach Alter (jüngste zuerst)
-        int thisAge = Period.between(this.birthdate, LocalDate.now()).getYears();
-        int otherAge = Period.between(other.birthdate, LocalDate.now()).getYears();
-        int ageComparison = Integer.compare(thisAge, otherAge);
+        // 3. Tertiär nach Alter (jüngste zuerst = spätestes Geburtsdatum zuerst)
+        int ageComparison = Long.compare(other.birthEpochDay(), this.birthEpochDay());
         if (ageComparison != 0) {
             return ageComparison;
         }
@@ -134,6 +157,63 @@ public class Person implements Serializable, Comparable<Person> {
         return Long.compare(this.personId, other.personId);
     }
 
+    // ===== SORTIERSCHLÜSSEL =====
+
+    /**
+     * @return Nachname in Faltung für Vergleiche ohne Groß-/Kleinschreibung;
+     *         compareTo darauf ordnet wie compareToIgnoreCase
+     */
+    public String nameKey() {
+        String key = nameKey;
+        if (key == null) {
+            key = fold(name);
+            nameKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * @return Vorname in Faltung (siehe {@link #nameKey()})
+     */
+    public String firstnameKey() {
+        String key = firstnameKey;
+        if (key == null) {
+            key = fold(firstname);
+            firstnameKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * @return Geburtsdatum als Epoch-Tag (fehlendes Datum zuletzt)
+     */
+    public long birthEpochDay() {
+        return birthdate != null ? birthdate.toEpochDay() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Faltet jedes Zeichen wie String.compareToIgnoreCase (erst Groß-, dann
+     * Kleinbuchstabe), damit ein einfacher compareTo dieselbe Reihenfolge
+     * ergibt.
+     */
+    public static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        char[] chars = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return chars != null ? new String(chars) : value;
+    }
+
     /**
      * Hilfsmethode: Berechnet das Alter der Person
      */
@@ -176,10 +256,12 @@ public class Person implements Serializable, Comparable<Person> {
                     "Name darf maximal 50 Zeichen lang sein");
         }
         this.name = name;
+        this.nameKey = null;
     }
 
     public void setFirstname(String firstname) {
         this.firstname = firstname;
+        this.firstnameKey = null;
     }
 
     public void setPhonenumber(String phonenumber) {
@@ -66,14 +66,14 @@ public class Treatment implements Serializable, Comparable<Treatment> {
         if (other == null)
             return 1;
 
-        // 1. Primär nach Datum (neueste zuerst)
-        int dateComparison = other.date.compareTo(this.date);
+        // 1. Primär nach Datum (neueste zuerst, ohne Datum am Ende)
+        int dateComparison = NULLS_LAST_DESC.compare(this.date, other.date);
         if (dateComparison != 0) {
             return dateComparison;
         }
 
-        // 2. Sekundär nach Behandlungsart (alphabetisch)
-        int therapyComparison = this.therapy.compareToIgnoreCase(other.therapy);
+        // 2. Sekundär nach Behandlungsart (alphabetisch, ohne Angabe am Ende)
+        int therapyComparison = NULLS_LAST_IGNORE_CASE.compare(this.therapy, other.therapy);
         if (therapyComparison != 0) {
             return therapyComparison;
         }
@@ -82,22 +82,27 @@ public class Treatment implements Serializable, Comparable<Treatment> {
         return Integer.compare(this.treatmentId, other.treatmentId);
     }
 
+    // Datum und Therapie sind optional: Einträge ohne Wert stehen jeweils am Ende
+    private static final Comparator<LocalDate> NULLS_LAST_DESC = Comparator.nullsLast(Comparator.reverseOrder());
+    private static final Comparator<String> NULLS_LAST_IGNORE_CASE = Comparator
+            .nullsLast(String.CASE_INSENSITIVE_ORDER);
+
     // Zusätzliche Comparatoren für verschiedene Sortierungen
     public static final Comparator<Treatment> BY_DATE_DESC = Comparator
-            .comparing(Treatment::getDate, Comparator.reverseOrder())
+            .comparing(Treatment::getDate, NULLS_LAST_DESC)
             .thenComparing(Treatment::getTreatmentId);
 
     public static final Comparator<Treatment> BY_DATE_ASC = Comparator
-            .comparing(Treatment::getDate)
+            .comparing(Treatment::getDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
             .thenComparing(Treatment::getTreatmentId);
 
     public static final Comparator<Treatment> BY_THERAPY_TYPE = Comparator
-            .comparing(Treatment::getTherapy, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(Treatment::getDate, Comparator.reverseOrder());
+            .comparing(Treatment::getTherapy, NULLS_LAST_IGNORE_CASE)
+            .thenComparing(Treatment::getDate, NULLS_LAST_DESC);
 
     public static final Comparator<Treatment> BY_PATIENT_THEN_DATE = Comparator
             .comparing(Treatment::getPatientPersonId)
-            .thenComparing(Treatment::getDate, Comparator.reverseOrder());
+            .thenComparing(Treatment::getDate, NULLS_LAST_DESC);
 
     @Override
     public String toString() {
@@ -23,7 +23,7 @@ import com.healthsphere.manager.PersonManager;
  * 
  * Erweiterte Kapazitätsfunktionen:
  * 
- * getCurrentOccupancy() - Aktuelle Belegung berechnen
+ * getCurrentOccupancy() - Aktuelle Belegung (Zähler im PatientManager, O(1))
  * getAvailableCapacity() - Verfügbare Plätze ermitteln
  * hasCapacity() - Kapazitätsprüfung für Aufnahmemanagement
  *
@@ -54,6 +54,22 @@ public class Ward implements Serializable, Comparable<Ward> {
         this.capacity = capacity;
     }
 
+    // Konstruktor ohne Validierung (Wiederherstellung aus der Persistierung)
+    private Ward(int WardId, String WardName, String description, int capacity, boolean restored) {
+        this.WardId = WardId;
+        this.WardName = WardName;
+        this.description = description;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Stellt eine gespeicherte Station ohne erneute Validierung wieder her.
+     * Nur für die Persistierung (EntityCodec) gedacht.
+     */
+    public static Ward restore(int wardId, String wardName, String description, int capacity) {
+        return new Ward(wardId, wardName, description, capacity, true);
+    }
+
     /**
      * TEST-KONSTRUKTOR: Fängt Exceptions ab für normale Tests
      */
@@ -145,23 +161,20 @@ public class Ward implements Serializable, Comparable<Ward> {
             return false;
         }
 
-        // Zähle Patienten in dieser Ward
         long currentPatients = getCurrentOccupancy(patientManager);
         return currentPatients < capacity;
     }
 
     /**
-     * Gibt die aktuelle Belegung zurück
+     * Gibt die aktuelle Belegung zurück (Belegungszähler des PatientManagers,
+     * konstante Zeit)
      */
     public long getCurrentOccupancy(PersonManager<Patient> patientManager) {
         if (patientManager == null) {
             return 0;
         }
 
-        return patientManager.getAll().stream()
-                .filter(patient -> patient.getWardId() != null)
-                .filter(patient -> patient.getWardId().equals(this.WardId))
-                .count();
+        return patientManager.getWardOccupancy(this.WardId);
     }
 
     /**
@@ -181,8 +194,8 @@ public class Ward implements Serializable, Comparable<Ward> {
         }
 
         long currentOccupancy = getCurrentOccupancy(patientManager);
-        long availableCapacity = getAvailableCapacity(patientManager);
-        boolean hasCapacity = hasCapacity(patientManager);
+        long availableCapacity = Math.max(0, capacity - currentOccupancy);
+        boolean hasCapacity = currentOccupancy < capacity;
 
         return String.format("Belegung: %d/%d | Frei: %d | Status: %s",
                 currentOccupancy, capacity, availableCapacity,
@@ -237,22 +250,13 @@ public class Ward implements Serializable, Comparable<Ward> {
         return Objects.hash(WardId);
     }
 
+    /**
+     * Belegungsdaten hängen vom PatientManager ab und sind über
+     * getCapacityStatus() abrufbar; toString() liest keine Dateien.
+     */
     @Override
     public String toString() {
-        try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-            long currentOccupancy = getCurrentOccupancy(patientManager);
-            long availableCapacity = getAvailableCapacity(patientManager);
-            boolean hasCapacity = hasCapacity(patientManager);
-
-            return String.format("Ward{wardId=%d, WardName='%s', description='%s', capacity=%d, " +
-                    "currentOccupancy=%d, availableCapacity=%d, hasCapacity=%s}",
-                    WardId, WardName, description, capacity,
-                    currentOccupancy, availableCapacity, hasCapacity);
-        } catch (Exception e) {
-            // Fallback wenn PatientManager nicht verfügbar
-            return String.format("Ward{wardId=%d, WardName='%s', description='%s', capacity=%d}",
-                    WardId, WardName, description, capacity);
-        }
+        return String.format("Ward{wardId=%d, WardName='%s', description='%s', capacity=%d}",
+                WardId, WardName, description, capacity);
     }
 }
\ No newline at end of file
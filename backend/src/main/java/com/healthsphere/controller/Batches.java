@@ -0,0 +1,140 @@
+package com.healthsphere.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.healthsphere.manager.Transaction;
+
+/**
+ * Hilfsklasse für die Stapel-Endpunkte POST /api/{entity}/batch.
+ *
+ * Body: {"add": [...], "update": [...], "delete": [IDs]} mit höchstens
+ * {@link #MAX_ITEMS} Einträgen. Neue Einträge werden zuerst einzeln
+ * aufgebaut und validiert; Änderungen gehen als Patch weiter, der erst unter
+ * der Sperre auf den dann aktuellen Stand angewendet wird. Alle gültigen
+ * Einträge gehen gemeinsam an applyAll() des Managers (eine Sperre, ein
+ * Log-Datensatz). Die Antwort enthält je Eintrag
+ * operation, index, id, success und bei Fehlern message; Status 200, wenn
+ * alle Einträge erfolgreich waren, sonst 207 (Multi-Status).
+ *
+ * @param <T> Typ der Objekte
+ * @param <K> Typ der IDs beim Löschen
+ */
+final class Batches<T, K> {
+    static final int MAX_ITEMS = 1000;
+
+    // Baut das Objekt eines Eintrags; Exceptions gelten als ungültiger Eintrag
+    @FunctionalInterface
+    interface Builder<T> {
+        T build() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ApplyAll<T, K> {
+        List<String> apply(List<T> added, Map<K, Transaction.Patch<T>> updated, List<K> deleted);
+    }
+
+    private final Function<T, Object> idOf;
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private final List<T> added = new ArrayList<>();
+    private final Map<K, Transaction.Patch<T>> updated = new LinkedHashMap<>();
+    private final List<K> deleted = new ArrayList<>();
+    // Ergebnisse der an den Manager übergebenen Einträge, je Operation in Reihenfolge
+    private final List<Map<String, Object>> addedResults = new ArrayList<>();
+    private final List<Map<String, Object>> updatedResults = new ArrayList<>();
+    private final List<Map<String, Object>> deletedResults = new ArrayList<>();
+
+    Batches(Function<T, Object> idOf) {
+        this.idOf = idOf;
+    }
+
+    static boolean tooLarge(List<?>... parts) {
+        int count = 0;
+        for (List<?> part : parts) {
+            count += part != null ? part.size() : 0;
+        }
+        return count > MAX_ITEMS;
+    }
+
+    // Fehlt ein Teil im Body (oder ist null), zählt er als leer
+    static <E> List<E> items(List<E> part) {
+        return part != null ? part : List.of();
+    }
+
+    void add(int index, Builder<T> builder) {
+        Map<String, Object> result = result("add", index, null);
+        try {
+            T item = builder.build();
+            result.put("id", idOf.apply(item));
+            added.add(item);
+            addedResults.add(result);
+        } catch (Exception e) {
+            fail(result, e.getMessage());
+        }
+    }
+
+    /**
+     * @param patch berechnet den geänderten Stand aus dem aktuellen (unter
+     *              der Sperre des Managers)
+     */
+    void update(int index, K id, Transaction.Patch<T> patch) {
+        Map<String, Object> result = result("update", index, id);
+        if (updated.containsKey(id)) {
+            fail(result, "ID " + id + " wird in diesem Stapel mehrfach geändert");
+            return;
+        }
+        updated.put(id, patch);
+        updatedResults.add(result);
+    }
+
+    void delete(int index, K id) {
+        Map<String, Object> result = result("delete", index, id);
+        if (id == null) {
+            fail(result, "ID fehlt");
+            return;
+        }
+        deleted.add(id);
+        deletedResults.add(result);
+    }
+
+    /**
+     * Übergibt alle gültigen Einträge in einem Aufruf an den Manager und baut
+     * die Antwort.
+     */
+    ResponseEntity<List<Map<String, Object>>> apply(ApplyAll<T, K> manager) {
+        List<Map<String, Object>> submitted = new ArrayList<>(addedResults);
+        submitted.addAll(updatedResults);
+        submitted.addAll(deletedResults);
+        if (!submitted.isEmpty()) {
+            List<String> outcomes = manager.apply(added, updated, deleted);
+            for (int i = 0; i < submitted.size(); i++) {
+                if (outcomes.get(i) != null) {
+                    fail(submitted.get(i), outcomes.get(i));
+                }
+            }
+        }
+        boolean allSucceeded = results.stream().allMatch(result -> Boolean.TRUE.equals(result.get("success")));
+        return ResponseEntity.status(allSucceeded ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(results);
+    }
+
+    private Map<String, Object> result(String operation, int index, Object id) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operation", operation);
+        result.put("index", index);
+        result.put("id", id);
+        result.put("success", true);
+        results.add(result);
+        return result;
+    }
+
+    private static void fail(Map<String, Object> result, String message) {
+        result.put("success", false);
+        result.put("message", message);
+    }
+}
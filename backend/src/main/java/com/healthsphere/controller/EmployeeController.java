@@ -1,6 +1,11 @@
 package com.healthsphere.controller;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.http.HttpStatus;
@@ -13,6 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.healthsphere.components.Employee;
@@ -33,25 +39,68 @@ import com.healthsphere.manager.PersonManager;
  * 
  * API-Endpunkte:
  * - GET /api/employees - Alle Mitarbeiter abrufen
+ * - GET /api/employees?limit=&after= - Seitenweise nach ID (Cursor im Header X-Next-Cursor)
+ * - GET /api/employees?sort=... - Sortiert (id, department, ward), kombinierbar mit limit/after
+ * - GET /api/employees/suggest?q= - Namensvorschläge (Präfix von Nach- oder Vorname)
  * - GET /api/employees/{id} - Spezifischen Mitarbeiter abrufen
  * - POST /api/employees - Neuen Mitarbeiter erstellen
  * - PUT /api/employees/{id} - Mitarbeiter aktualisieren (inkl. Ward-ID)
  * - DELETE /api/employees/{id} - Mitarbeiter löschen
+ * - POST /api/employees/batch - Anlegen/Ändern/Löschen mehrerer Mitarbeiter
+ *   (z.B. Import einer Abteilung) mit einem Speichervorgang
  */
 @RestController
 @RequestMapping("/api/employees")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pages.NEXT_CURSOR_HEADER)
 public class EmployeeController {
 
     private final PersonManager<Employee> employeeManager;
 
-    public EmployeeController() {
-        this.employeeManager = new PersonManager<>("employees.ser");
+    public EmployeeController(PersonManager<Employee> employeeManager) {
+        this.employeeManager = employeeManager;
     }
 
+    // Sortierungen für ?sort= (je Name ein sortierter Index im Manager)
+    private static final Map<String, Comparator<Employee>> SORTS = Map.of(
+            "department", Employee.BY_DEPARTMENT_ONLY,
+            "ward", Employee.BY_WARD_THEN_DEPARTMENT);
+
     @GetMapping
-    public ResponseEntity<Set<Employee>> getAllEmployees() {
-        return ResponseEntity.ok(employeeManager.getAll());
+    public ResponseEntity<? extends Collection<Employee>> getAllEmployees(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String sort) {
+        boolean paged = Pages.requested(limit, after);
+        int pageSize = Pages.limit(limit);
+        if (sort == null || "id".equalsIgnoreCase(sort)) {
+            if (!paged) {
+                return ResponseEntity.ok(employeeManager.getAll());
+            }
+            return Pages.of(employeeManager.getPage(after, pageSize + 1), pageSize, Employee::getPersonId);
+        }
+
+        String sortKey = sort.toLowerCase();
+        Comparator<Employee> order = SORTS.get(sortKey);
+        if (order == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (!paged) {
+                return ResponseEntity.ok(employeeManager.getSortedPage(sortKey, order, null, Integer.MAX_VALUE));
+            }
+            return Pages.of(employeeManager.getSortedPage(sortKey, order, after, pageSize + 1), pageSize,
+                    Employee::getPersonId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Autovervollständigung über Nach- und Vorname, z.B. ?q=mül oder ?q=anna sch
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Employee>> suggestEmployees(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(employeeManager.suggest(q, Pages.suggestLimit(limit)));
     }
 
     @GetMapping("/{id}")
@@ -128,6 +177,33 @@ public class EmployeeController {
         return ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchEmployees(@RequestBody EmployeeBatchRequest request) {
+        if (Batches.tooLarge(request.getAdd(), request.getUpdate(), request.getDelete())) {
+            return ResponseEntity.badRequest().body("Höchstens " + Batches.MAX_ITEMS + " Einträge je Stapel");
+        }
+        Batches<Employee, Long> batch = new Batches<>(Employee::getPersonId);
+        List<EmployeeRequest> added = Batches.items(request.getAdd());
+        for (int i = 0; i < added.size(); i++) {
+            EmployeeRequest item = added.get(i);
+            batch.add(i, () -> new Employee(employeeManager.generateUniquePersonId(), item.getName(),
+                    item.getFirstname(), item.getPhonenumber(), item.getEmail(), item.getBirthdate(),
+                    item.getAdress(), item.getDepartment(), item.getWardId()));
+        }
+        List<EmployeeBatchUpdateRequest> updated = Batches.items(request.getUpdate());
+        for (int i = 0; i < updated.size(); i++) {
+            EmployeeBatchUpdateRequest item = updated.get(i);
+            batch.update(i, item.getPersonId(), current -> PersonManager.patchEmployee(current, item.getName(),
+                    item.getFirstname(), item.getPhonenumber(), item.getEmail(), item.getAdress(),
+                    item.getDepartment(), item.getWardId()));
+        }
+        List<Long> deleted = Batches.items(request.getDelete());
+        for (int i = 0; i < deleted.size(); i++) {
+            batch.delete(i, deleted.get(i));
+        }
+        return batch.apply(employeeManager::applyAll);
+    }
+
     // DTO Classes - erweitert um Ward-Unterstützung
     public static class EmployeeRequest {
         private long personId;
@@ -280,4 +356,48 @@ public class EmployeeController {
             this.wardId = wardId;
         }
     }
-}
\ No newline at end of file
+
+    public static class EmployeeBatchRequest {
+        private List<EmployeeRequest> add = new ArrayList<>();
+        private List<EmployeeBatchUpdateRequest> update = new ArrayList<>();
+        private List<Long> delete = new ArrayList<>();
+
+        // Getters and Setters
+        public List<EmployeeRequest> getAdd() {
+            return add;
+        }
+
+        public void setAdd(List<EmployeeRequest> add) {
+            this.add = add;
+        }
+
+        public List<EmployeeBatchUpdateRequest> getUpdate() {
+            return update;
+        }
+
+        public void setUpdate(List<EmployeeBatchUpdateRequest> update) {
+            this.update = update;
+        }
+
+        public List<Long> getDelete() {
+            return delete;
+        }
+
+        public void setDelete(List<Long> delete) {
+            this.delete = delete;
+        }
+    }
+
+    public static class EmployeeBatchUpdateRequest extends EmployeeUpdateRequest {
+        private long personId;
+
+        // Getters and Setters
+        public long getPersonId() {
+            return personId;
+        }
+
+        public void setPersonId(long personId) {
+            this.personId = personId;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 
 package com.healthsphere.controller;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,8 +14,11 @@ import org.springframework.web.bind.annotation.RestController;
 import com.healthsphere.components.Employee;
 import com.healthsphere.components.Patient;
 import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.StartupLoader;
 import com.healthsphere.manager.TreatmentManager;
+import com.healthsphere.manager.VersionClock;
 import com.healthsphere.manager.WardManager;
+import com.healthsphere.serialization.SnapshotCompactor;
 
 /**
  * System-Health und Statistik-Controller für das HealthSphere-System.
@@ -35,6 +37,8 @@ import com.healthsphere.manager.WardManager;
  * - GET /api/health/status - Systemstatus und Versionsinformationen
  * - GET /api/health/statistics - Anzahl aller Entitäten im System
  * - GET /api/health/ping - Einfacher Verfügbarkeits-Check
+ * - GET /api/health/persistence - Kennzahlen der Snapshot-Kompaktierung
+ * - GET /api/health/startup - Ladezeiten der Stores beim Start
  * 
  */
 
@@ -43,6 +47,24 @@ import com.healthsphere.manager.WardManager;
 @CrossOrigin(origins = "*")
 public class HealthController {
 
+    private final SnapshotCompactor compactor;
+    private final StartupLoader loader;
+    private final PersonManager<Patient> patientManager;
+    private final PersonManager<Employee> employeeManager;
+    private final WardManager wardManager;
+    private final TreatmentManager treatmentManager;
+
+    public HealthController(SnapshotCompactor compactor, StartupLoader loader,
+            PersonManager<Patient> patientManager, PersonManager<Employee> employeeManager,
+            WardManager wardManager, TreatmentManager treatmentManager) {
+        this.compactor = compactor;
+        this.loader = loader;
+        this.patientManager = patientManager;
+        this.employeeManager = employeeManager;
+        this.wardManager = wardManager;
+        this.treatmentManager = treatmentManager;
+    }
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getSystemStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -57,24 +79,13 @@ public class HealthController {
     public ResponseEntity<Map<String, Object>> getSystemStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        try {
-            // Initialize managers to get counts
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-            PersonManager<Employee> employeeManager = new PersonManager<>("employees.ser");
-            TreatmentManager treatmentManager = new TreatmentManager("treatments.ser");
-            WardManager wardManager = new WardManager();
-
-            Patient p1 = new Patient(5, "Multi", "Miriam", "12121212121", "m.multi@web.de",
-                    LocalDate.of(2002, 12, 2), "Annanas 5");
-            patientManager.addPatientWithAutoId("Multi", "Miriam", "12121212121",
-                    "m.multi@web.de", LocalDate.of(2002, 12, 2), "Annanas 5", null);
-            patientManager.save();
-            patientManager.load();
-
-            stats.put("totalPatients", patientManager.getAll().size());
-            stats.put("totalEmployees", employeeManager.getAll().size());
-            stats.put("totalTreatments", treatmentManager.getAll().size());
-            stats.put("totalWards", wardManager.getAll().size());
+        // Alle Zählungen zur selben Version der gemeinsamen Manager-Instanzen
+        try (VersionClock.Snapshot snapshot = VersionClock.global().pin()) {
+            stats.put("totalPatients", patientManager.getAll(snapshot).size());
+            stats.put("totalEmployees", employeeManager.getAll(snapshot).size());
+            stats.put("totalTreatments", treatmentManager.getAll(snapshot).size());
+            stats.put("totalWards", wardManager.getAll(snapshot).size());
+            stats.put("dataVersion", snapshot.version());
             stats.put("lastUpdated", LocalDateTime.now());
 
         } catch (Exception e) {
@@ -84,6 +95,16 @@ public class HealthController {
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/persistence")
+    public ResponseEntity<Map<String, Object>> getPersistenceMetrics() {
+        return ResponseEntity.ok(compactor.getMetrics());
+    }
+
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Long>> getStartupLoadTimes() {
+        return ResponseEntity.ok(loader.getLoadTimes());
+    }
+
     @GetMapping("/ping")
     public ResponseEntity<String> ping() {
         return ResponseEntity.ok("pong");
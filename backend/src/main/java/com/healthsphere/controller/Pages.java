@@ -0,0 +1,68 @@
+package com.healthsphere.controller;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Hilfsfunktionen für die Cursor-Pagination der Listen-Endpunkte.
+ *
+ * Parameter: limit (Anzahl Einträge, 1 bis {@link #MAX_LIMIT}) und after
+ * (Cursor = ID des letzten Eintrags der vorherigen Seite). Der Body bleibt
+ * ein JSON-Array; gibt es weitere Einträge, steht der Cursor für die nächste
+ * Seite im Header {@link #NEXT_CURSOR_HEADER}. Ohne limit und after liefern
+ * die Endpunkte wie bisher die vollständige Liste.
+ */
+final class Pages {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    static final int DEFAULT_SUGGEST_LIMIT = 10;
+    static final int MAX_SUGGEST_LIMIT = 50;
+
+    private Pages() {
+    }
+
+    static boolean requested(Integer limit, Object after) {
+        return limit != null || after != null;
+    }
+
+    /**
+     * @return Gültige Seitengröße (Standard bei null, sonst auf 1..MAX_LIMIT begrenzt)
+     */
+    static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    /**
+     * @return Gültige Anzahl Vorschläge für /suggest (Standard bei null, sonst 1..MAX_SUGGEST_LIMIT)
+     */
+    static int suggestLimit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_SUGGEST_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_SUGGEST_LIMIT));
+    }
+
+    /**
+     * Baut die Antwort aus bis zu limit + 1 geladenen Einträgen: der
+     * überzählige Eintrag zeigt nur an, dass es eine weitere Seite gibt.
+     *
+     * @param fetched  Vom Manager geladene Einträge (höchstens limit + 1)
+     * @param limit    Seitengröße
+     * @param cursorOf Cursor eines Eintrags (seine ID)
+     */
+    static <T> ResponseEntity<List<T>> of(List<T> fetched, int limit, Function<T, Object> cursorOf) {
+        if (fetched.size() <= limit) {
+            return ResponseEntity.ok(fetched);
+        }
+        List<T> page = fetched.subList(0, limit);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(cursorOf.apply(page.get(limit - 1))))
+                .body(page);
+    }
+}
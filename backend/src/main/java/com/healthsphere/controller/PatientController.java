@@ -1,7 +1,13 @@
 package com.healthsphere.controller;
 
 import java.time.LocalDate;
-import java.util.Set;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.healthsphere.components.Patient;
@@ -34,25 +41,89 @@ import com.healthsphere.manager.PersonManager;
  * 
  * API-Endpunkte:
  * - GET /api/patients - Alle Patienten abrufen
+ * - GET /api/patients?limit=&after= - Seitenweise nach ID (Cursor im Header X-Next-Cursor)
+ * - GET /api/patients?sort=... - Sortiert (id, name, ward, age), kombinierbar mit limit/after
+ * - GET /api/patients/suggest?q= - Namensvorschläge (Präfix von Nach- oder Vorname)
+ * - GET /api/patients/search?name=&firstname=&birthdate= - Phonetische Suche (Kölner Phonetik)
  * - GET /api/patients/{id} - Spezifischen Patient abrufen
- * - POST /api/patients - Neuen Patient erstellen
+ * - POST /api/patients - Neuen Patient erstellen (Warnung bei möglichen Duplikaten im Header X-Duplicate-Warning)
  * - PUT /api/patients/{id} - Patient aktualisieren
  * - DELETE /api/patients/{id} - Patient löschen
+ * - POST /api/patients/batch - Anlegen/Ändern/Löschen mehrerer Patienten mit
+ *   einem Speichervorgang, Ergebnis je Eintrag (siehe Batches)
  */
 @RestController
 @RequestMapping("/api/patients")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = { Pages.NEXT_CURSOR_HEADER, PatientController.DUPLICATE_WARNING_HEADER })
 public class PatientController {
+    static final String DUPLICATE_WARNING_HEADER = "X-Duplicate-Warning";
 
     private final PersonManager<Patient> patientManager;
 
-    public PatientController() {
-        this.patientManager = new PersonManager<>("patients.ser");
+    public PatientController(PersonManager<Patient> patientManager) {
+        this.patientManager = patientManager;
     }
 
+    // Sortierungen für ?sort= (je Name ein sortierter Index im Manager)
+    private static final Map<String, Comparator<Patient>> SORTS = Map.of(
+            "name", Patient.BY_NAME_ONLY,
+            "ward", Patient.BY_WARD_THEN_NAME,
+            "age", Patient.BY_AGE_DESC);
+
     @GetMapping
-    public ResponseEntity<Set<Patient>> getAllPatients() {
-        return ResponseEntity.ok(patientManager.getAll());
+    public ResponseEntity<? extends Collection<Patient>> getAllPatients(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String sort) {
+        boolean paged = Pages.requested(limit, after);
+        int pageSize = Pages.limit(limit);
+        if (sort == null || "id".equalsIgnoreCase(sort)) {
+            if (!paged) {
+                return ResponseEntity.ok(patientManager.getAll());
+            }
+            return Pages.of(patientManager.getPage(after, pageSize + 1), pageSize, Patient::getPersonId);
+        }
+
+        String sortKey = sort.toLowerCase();
+        Comparator<Patient> order = SORTS.get(sortKey);
+        if (order == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (!paged) {
+                return ResponseEntity.ok(patientManager.getSortedPage(sortKey, order, null, Integer.MAX_VALUE));
+            }
+            return Pages.of(patientManager.getSortedPage(sortKey, order, after, pageSize + 1), pageSize,
+                    Patient::getPersonId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Autovervollständigung über Nach- und Vorname, z.B. ?q=mül oder ?q=anna sch
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Patient>> suggestPatients(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(patientManager.suggest(q, Pages.suggestLimit(limit)));
+    }
+
+    // Ähnlichkeitssuche: gleich klingende Namen (Meier/Meyer/Maier), optional mit Geburtsdatum
+    @GetMapping("/search")
+    public ResponseEntity<List<Patient>> searchPatients(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String firstname,
+            @RequestParam(required = false) String birthdate,
+            @RequestParam(required = false) Integer limit) {
+        if ((name == null || name.isBlank()) && (firstname == null || firstname.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            LocalDate birthDate = birthdate != null ? LocalDate.parse(birthdate) : null;
+            return ResponseEntity.ok(patientManager.findSimilar(name, firstname, birthDate, Pages.limit(limit)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -67,6 +138,9 @@ public class PatientController {
     @PostMapping
     public ResponseEntity<String> createPatient(@RequestBody PatientRequest request) {
         try {
+            // Vor dem Anlegen prüfen, damit der neue Patient nicht sich selbst findet
+            List<Patient> duplicates = patientManager.findPossibleDuplicates(
+                    request.getName(), request.getFirstname(), request.getBirthdate());
             boolean added = patientManager.addPatientWithAutoId(
                     request.getName(),
                     request.getFirstname(),
@@ -76,7 +150,14 @@ public class PatientController {
                     request.getAdress(),
                     request.getWardId());
 
-            if (added) {
+            if (added && !duplicates.isEmpty()) {
+                String ids = duplicates.stream()
+                        .map(p -> String.valueOf(p.getPersonId()))
+                        .collect(Collectors.joining(", "));
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .header(DUPLICATE_WARNING_HEADER, ids)
+                        .body("Patient erfolgreich erstellt (Warnung: mögliche Duplikate mit ID " + ids + ")");
+            } else if (added) {
                 return ResponseEntity.status(HttpStatus.CREATED)
                         .body("Patient erfolgreich erstellt");
             } else {
@@ -120,6 +201,33 @@ public class PatientController {
         return ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchPatients(@RequestBody PatientBatchRequest request) {
+        if (Batches.tooLarge(request.getAdd(), request.getUpdate(), request.getDelete())) {
+            return ResponseEntity.badRequest().body("Höchstens " + Batches.MAX_ITEMS + " Einträge je Stapel");
+        }
+        Batches<Patient, Long> batch = new Batches<>(Patient::getPersonId);
+        List<PatientRequest> added = Batches.items(request.getAdd());
+        for (int i = 0; i < added.size(); i++) {
+            PatientRequest item = added.get(i);
+            batch.add(i, () -> new Patient(patientManager.generateUniquePersonId(), item.getName(),
+                    item.getFirstname(), item.getPhonenumber(), item.getEmail(), item.getBirthdate(),
+                    item.getAdress(), item.getWardId()));
+        }
+        List<PatientBatchUpdateRequest> updated = Batches.items(request.getUpdate());
+        for (int i = 0; i < updated.size(); i++) {
+            PatientBatchUpdateRequest item = updated.get(i);
+            batch.update(i, item.getPersonId(), current -> PersonManager.patchPatient(current, item.getName(),
+                    item.getFirstname(), item.getPhonenumber(), item.getEmail(), item.getAdress(),
+                    item.getWardId()));
+        }
+        List<Long> deleted = Batches.items(request.getDelete());
+        for (int i = 0; i < deleted.size(); i++) {
+            batch.delete(i, deleted.get(i));
+        }
+        return batch.apply(patientManager::applyAll);
+    }
+
     // DTO Classes - erweitert um Ward-Unterstützung
     public static class PatientRequest {
         private String name;
@@ -244,4 +352,48 @@ public class PatientController {
             this.wardId = wardId;
         }
     }
-}
\ No newline at end of file
+
+    public static class PatientBatchRequest {
+        private List<PatientRequest> add = new ArrayList<>();
+        private List<PatientBatchUpdateRequest> update = new ArrayList<>();
+        private List<Long> delete = new ArrayList<>();
+
+        // Getters and Setters
+        public List<PatientRequest> getAdd() {
+            return add;
+        }
+
+        public void setAdd(List<PatientRequest> add) {
+            this.add = add;
+        }
+
+        public List<PatientBatchUpdateRequest> getUpdate() {
+            return update;
+        }
+
+        public void setUpdate(List<PatientBatchUpdateRequest> update) {
+            this.update = update;
+        }
+
+        public List<Long> getDelete() {
+            return delete;
+        }
+
+        public void setDelete(List<Long> delete) {
+            this.delete = delete;
+        }
+    }
+
+    public static class PatientBatchUpdateRequest extends PatientUpdateRequest {
+        private long personId;
+
+        // Getters and Setters
+        public long getPersonId() {
+            return personId;
+        }
+
+        public void setPersonId(long personId) {
+            this.personId = personId;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.healthsphere.controller;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.http.HttpStatus;
@@ -13,6 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.healthsphere.components.Treatment;
@@ -33,26 +39,102 @@ import com.healthsphere.manager.TreatmentManager;
  * 
  * API-Endpunkte:
  * - GET /api/treatments - Alle Behandlungen abrufen
+ * - GET /api/treatments?from=&to=&patientId=&doctorId=&order=desc|asc -
+ *   Behandlungen im Datumsbereich, nach Datum sortiert
+ * - limit=&after= zusätzlich bei beiden Varianten: seitenweise Abfrage
+ *   (Cursor im Header X-Next-Cursor; ohne Filter nach ID sortiert)
+ * - sort=id|date_desc|date_asc|therapy|patient: sortierte Liste; mit Filtern
+ *   nur date_desc/date_asc (entspricht order)
  * - GET /api/treatments/{id} - Spezifische Behandlung abrufen
  * - POST /api/treatments - Neue Behandlung erstellen
+ * - POST /api/treatments/with-patient - Neuen Patienten samt erster Behandlung
+ *   in einer Transaktion anlegen
  * - PUT /api/treatments/{id} - Behandlung aktualisieren
  * - DELETE /api/treatments/{id} - Behandlung löschen
+ * - POST /api/treatments/batch - Anlegen/Ändern/Löschen mehrerer Behandlungen
+ *   (z.B. Nachtragen) mit einem Speichervorgang
  * 
  */
 @RestController
 @RequestMapping("/api/treatments")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pages.NEXT_CURSOR_HEADER)
 public class TreatmentController1 {
 
     private final TreatmentManager treatmentManager;
 
-    public TreatmentController1() {
-        this.treatmentManager = new TreatmentManager("treatments.ser");
+    public TreatmentController1(TreatmentManager treatmentManager) {
+        this.treatmentManager = treatmentManager;
     }
 
+    // Sortierungen für ?sort= (je Name ein sortierter Index im Manager)
+    private static final Map<String, Comparator<Treatment>> SORTS = Map.of(
+            "date_desc", Treatment.BY_DATE_DESC,
+            "date_asc", Treatment.BY_DATE_ASC,
+            "therapy", Treatment.BY_THERAPY_TYPE,
+            "patient", Treatment.BY_PATIENT_THEN_DATE);
+
+    /**
+     * Ohne Parameter alle Behandlungen; mit from, to, patientId oder doctorId
+     * die passenden Behandlungen aus dem Datums-Index, sortiert nach
+     * Datum (order=desc: neueste zuerst, Standard; order=asc: älteste zuerst).
+     * Mit limit/after wird seitenweise geliefert.
+     */
     @GetMapping
-    public ResponseEntity<Set<Treatment>> getAllTreatments() {
-        return ResponseEntity.ok(treatmentManager.getAll());
+    public ResponseEntity<? extends Collection<Treatment>> getAllTreatments(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) String sort) {
+        boolean paged = Pages.requested(limit, after);
+        int pageSize = Pages.limit(limit);
+        String sortKey = sort != null ? sort.toLowerCase() : "id";
+        if (!"id".equals(sortKey) && !SORTS.containsKey(sortKey)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (from == null && to == null && patientId == null && doctorId == null) {
+            try {
+                if ("id".equals(sortKey)) {
+                    if (!paged) {
+                        return ResponseEntity.ok(treatmentManager.getAll());
+                    }
+                    return Pages.of(treatmentManager.getPage(after, pageSize + 1), pageSize,
+                            Treatment::getTreatmentId);
+                }
+                Comparator<Treatment> sortOrder = SORTS.get(sortKey);
+                if (!paged) {
+                    return ResponseEntity.ok(treatmentManager.getSortedPage(sortKey, sortOrder, null,
+                            Integer.MAX_VALUE));
+                }
+                return Pages.of(treatmentManager.getSortedPage(sortKey, sortOrder, after, pageSize + 1),
+                        pageSize, Treatment::getTreatmentId);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        // Mit Filtern sortiert der Datums-Index selbst
+        if (!"id".equals(sortKey) && !sortKey.startsWith("date_")) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+            LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+            boolean ascending = "id".equals(sortKey) ? "asc".equalsIgnoreCase(order) : "date_asc".equals(sortKey);
+            Long cursor = after != null ? Long.valueOf(after) : null;
+            if (!paged) {
+                return ResponseEntity.ok(treatmentManager.findInRange(fromDate, toDate, patientId, doctorId,
+                        ascending, cursor, Integer.MAX_VALUE));
+            }
+            return Pages.of(treatmentManager.findInRange(fromDate, toDate, patientId, doctorId, ascending, cursor,
+                    pageSize + 1), pageSize, Treatment::getTreatmentId);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -66,13 +148,13 @@ public class TreatmentController1 {
 
     @GetMapping("/patient/{patientId}")
     public ResponseEntity<Set<Treatment>> getTreatmentsByPatientId(@PathVariable long patientId) {
-        Set<Treatment> treatments = treatmentManager.filter(t -> t.getPatientPersonId() == patientId);
+        Set<Treatment> treatments = treatmentManager.findByPatient(patientId);
         return ResponseEntity.ok(treatments);
     }
 
     @GetMapping("/doctor/{doctorId}")
     public ResponseEntity<Set<Treatment>> getTreatmentsByDoctorId(@PathVariable long doctorId) {
-        Set<Treatment> treatments = treatmentManager.filter(t -> t.getDoctorPersonId() == doctorId);
+        Set<Treatment> treatments = treatmentManager.findByDoctor(doctorId);
         return ResponseEntity.ok(treatments);
     }
 
@@ -80,7 +162,7 @@ public class TreatmentController1 {
     public ResponseEntity<Set<Treatment>> getTreatmentsByDate(@PathVariable String date) {
         try {
             LocalDate searchDate = LocalDate.parse(date);
-            Set<Treatment> treatments = treatmentManager.filter(t -> t.getDate().equals(searchDate));
+            Set<Treatment> treatments = treatmentManager.findByDate(searchDate);
             return ResponseEntity.ok(treatments);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -109,6 +191,27 @@ public class TreatmentController1 {
         }
     }
 
+    @PostMapping("/with-patient")
+    public ResponseEntity<?> createPatientWithTreatment(@RequestBody PatientTreatmentRequest request) {
+        Treatment treatment = treatmentManager.addPatientWithTreatment(
+                request.getName(),
+                request.getFirstname(),
+                request.getPhonenumber(),
+                request.getEmail(),
+                request.getBirthdate(),
+                request.getAdress(),
+                request.getWardId(),
+                request.getDate(),
+                request.getTherapy(),
+                request.getDoctorPersonId());
+
+        if (treatment != null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(treatment);
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Patient und Behandlung konnten nicht erstellt werden");
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<String> updateTreatment(
             @PathVariable int id,
@@ -147,6 +250,35 @@ public class TreatmentController1 {
         return ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchTreatments(@RequestBody TreatmentBatchRequest request) {
+        if (Batches.tooLarge(request.getAdd(), request.getUpdate(), request.getDelete())) {
+            return ResponseEntity.badRequest().body("Höchstens " + Batches.MAX_ITEMS + " Einträge je Stapel");
+        }
+        Batches<Treatment, Long> batch = new Batches<>(Treatment::getTreatmentId);
+        List<TreatmentRequest> added = Batches.items(request.getAdd());
+        for (int i = 0; i < added.size(); i++) {
+            TreatmentRequest item = added.get(i);
+            batch.add(i, () -> new Treatment(treatmentManager.generateUniqueTreatmentId(), item.getDate(),
+                    item.getTherapy(), item.getPatientPersonId(), item.getDoctorPersonId()));
+        }
+        List<TreatmentBatchUpdateRequest> updated = Batches.items(request.getUpdate());
+        for (int i = 0; i < updated.size(); i++) {
+            TreatmentBatchUpdateRequest item = updated.get(i);
+            // wie PUT /{id}: nur gesetzte Felder (IDs > 0) ändern
+            batch.update(i, item.getTreatmentId(), treatment -> new Treatment(treatment.getTreatmentId(),
+                    treatment.getDate(),
+                    item.getTherapy() != null ? item.getTherapy() : treatment.getTherapy(),
+                    item.getPatientPersonId() > 0 ? item.getPatientPersonId() : treatment.getPatientPersonId(),
+                    item.getDoctorPersonId() > 0 ? item.getDoctorPersonId() : treatment.getDoctorPersonId()));
+        }
+        List<Long> deleted = Batches.items(request.getDelete());
+        for (int i = 0; i < deleted.size(); i++) {
+            batch.delete(i, deleted.get(i));
+        }
+        return batch.apply(treatmentManager::applyAll);
+    }
+
     // DTO Classes
     public static class TreatmentRequest {
         private int treatmentId;
@@ -197,6 +329,100 @@ public class TreatmentController1 {
         }
     }
 
+    public static class PatientTreatmentRequest {
+        private String name;
+        private String firstname;
+        private String phonenumber;
+        private String email;
+        private LocalDate birthdate;
+        private String adress;
+        private Integer wardId;
+        private LocalDate date;
+        private String therapy;
+        private long doctorPersonId;
+
+        // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getFirstname() {
+            return firstname;
+        }
+
+        public void setFirstname(String firstname) {
+            this.firstname = firstname;
+        }
+
+        public String getPhonenumber() {
+            return phonenumber;
+        }
+
+        public void setPhonenumber(String phonenumber) {
+            this.phonenumber = phonenumber;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public LocalDate getBirthdate() {
+            return birthdate;
+        }
+
+        public void setBirthdate(LocalDate birthdate) {
+            this.birthdate = birthdate;
+        }
+
+        public String getAdress() {
+            return adress;
+        }
+
+        public void setAdress(String adress) {
+            this.adress = adress;
+        }
+
+        public Integer getWardId() {
+            return wardId;
+        }
+
+        public void setWardId(Integer wardId) {
+            this.wardId = wardId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public String getTherapy() {
+            return therapy;
+        }
+
+        public void setTherapy(String therapy) {
+            this.therapy = therapy;
+        }
+
+        public long getDoctorPersonId() {
+            return doctorPersonId;
+        }
+
+        public void setDoctorPersonId(long doctorPersonId) {
+            this.doctorPersonId = doctorPersonId;
+        }
+    }
+
     public static class TreatmentUpdateRequest {
         private String therapy;
         private long patientPersonId;
@@ -227,4 +453,48 @@ public class TreatmentController1 {
             this.doctorPersonId = doctorPersonId;
         }
     }
+
+    public static class TreatmentBatchRequest {
+        private List<TreatmentRequest> add = new ArrayList<>();
+        private List<TreatmentBatchUpdateRequest> update = new ArrayList<>();
+        private List<Long> delete = new ArrayList<>();
+
+        // Getters and Setters
+        public List<TreatmentRequest> getAdd() {
+            return add;
+        }
+
+        public void setAdd(List<TreatmentRequest> add) {
+            this.add = add;
+        }
+
+        public List<TreatmentBatchUpdateRequest> getUpdate() {
+            return update;
+        }
+
+        public void setUpdate(List<TreatmentBatchUpdateRequest> update) {
+            this.update = update;
+        }
+
+        public List<Long> getDelete() {
+            return delete;
+        }
+
+        public void setDelete(List<Long> delete) {
+            this.delete = delete;
+        }
+    }
+
+    public static class TreatmentBatchUpdateRequest extends TreatmentUpdateRequest {
+        private long treatmentId;
+
+        // Getters and Setters
+        public long getTreatmentId() {
+            return treatmentId;
+        }
+
+        public void setTreatmentId(long treatmentId) {
+            this.treatmentId = treatmentId;
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package com.healthsphere.controller;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.healthsphere.components.Ward;
@@ -34,29 +38,64 @@ import com.healthsphere.manager.WardManager;
  * 
  * API-Endpunkte:
  * - GET /api/wards - Alle Stationen abrufen
+ * - GET /api/wards?limit=&after= - Seitenweise nach ID (Cursor im Header X-Next-Cursor)
+ * - GET /api/wards?sort=... - Sortiert (id, name, capacity), kombinierbar mit limit/after
  * - GET /api/wards/{id} - Spezifische Station abrufen
  * - GET /api/wards/capacity/{minCapacity} - Stationen nach Mindestkapazität
  * - GET /api/wards/{id}/capacity - Detaillierte Kapazitätsdaten
  * - POST /api/wards - Neue Station erstellen
  * - PUT /api/wards/{id} - Station aktualisieren
- * - DELETE /api/wards/{id} - Station löschen
+ * - DELETE /api/wards/{id}?reassignTo= - Station löschen; ihre Patienten werden
+ *   in derselben Transaktion verlegt (ohne reassignTo: Zuweisung aufgehoben)
+ * - PUT /api/wards/{id}/patients/{patientId} - Patienten auf die Station verlegen
+ * - POST /api/wards/batch - Anlegen/Ändern/Löschen mehrerer Stationen mit
+ *   einem Speichervorgang (Löschen ohne Verlegen der Patienten)
  * 
  */
 @RestController
 @RequestMapping("/api/wards")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pages.NEXT_CURSOR_HEADER)
 public class WardController {
 
     private final WardManager wardManager;
 
-    public WardController() {
-        // WardManager mit Auto-Save initialisieren (.ser Datei wie andere Entitäten)
-        this.wardManager = new WardManager("wards.ser");
+    public WardController(WardManager wardManager) {
+        this.wardManager = wardManager;
     }
 
+    // Sortierungen für ?sort= (je Name ein sortierter Index im Manager)
+    private static final Map<String, Comparator<Ward>> SORTS = Map.of(
+            "name", Ward.BY_NAME_ONLY,
+            "capacity", Ward.BY_CAPACITY_DESC);
+
     @GetMapping
-    public ResponseEntity<Set<Ward>> getAllWards() {
-        return ResponseEntity.ok(wardManager.getAll());
+    public ResponseEntity<? extends Collection<Ward>> getAllWards(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) String sort) {
+        boolean paged = Pages.requested(limit, after);
+        int pageSize = Pages.limit(limit);
+        if (sort == null || "id".equalsIgnoreCase(sort)) {
+            if (!paged) {
+                return ResponseEntity.ok(wardManager.getAll());
+            }
+            return Pages.of(wardManager.getPage(after, pageSize + 1), pageSize, Ward::getWardId);
+        }
+
+        String sortKey = sort.toLowerCase();
+        Comparator<Ward> order = SORTS.get(sortKey);
+        if (order == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (!paged) {
+                return ResponseEntity.ok(wardManager.getSortedPage(sortKey, order, null, Integer.MAX_VALUE));
+            }
+            return Pages.of(wardManager.getSortedPage(sortKey, order, after, pageSize + 1), pageSize,
+                    Ward::getWardId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -113,12 +152,28 @@ public class WardController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteWard(@PathVariable int id) {
-        boolean deleted = wardManager.deleteWard(id);
-        if (deleted) {
+    public ResponseEntity<String> deleteWard(
+            @PathVariable int id,
+            @RequestParam(required = false) Integer reassignTo) {
+        if (wardManager.findById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String error = wardManager.deleteWard(id, reassignTo);
+        if (error == null) {
             return ResponseEntity.ok("Station erfolgreich gelöscht");
         }
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Station konnte nicht gelöscht werden: " + error);
+    }
+
+    @PutMapping("/{id}/patients/{patientId}")
+    public ResponseEntity<String> transferPatient(@PathVariable int id, @PathVariable long patientId) {
+        String error = wardManager.transferPatient(patientId, id);
+        if (error == null) {
+            return ResponseEntity.ok("Patient erfolgreich verlegt");
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Patient konnte nicht verlegt werden: " + error);
     }
 
     @GetMapping("/{id}/capacity")
@@ -136,6 +191,33 @@ public class WardController {
         return ResponseEntity.ok(allCapacities);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchWards(@RequestBody WardBatchRequest request) {
+        if (Batches.tooLarge(request.getAdd(), request.getUpdate(), request.getDelete())) {
+            return ResponseEntity.badRequest().body("Höchstens " + Batches.MAX_ITEMS + " Einträge je Stapel");
+        }
+        Batches<Ward, Integer> batch = new Batches<>(Ward::getWardId);
+        List<WardRequest> added = Batches.items(request.getAdd());
+        for (int i = 0; i < added.size(); i++) {
+            WardRequest item = added.get(i);
+            batch.add(i, () -> new Ward(wardManager.generateUniqueWardId(), item.getWardName(),
+                    item.getDescription(), item.getCapacity()));
+        }
+        List<WardBatchUpdateRequest> updated = Batches.items(request.getUpdate());
+        for (int i = 0; i < updated.size(); i++) {
+            WardBatchUpdateRequest item = updated.get(i);
+            batch.update(i, item.getWardId(), ward -> new Ward(ward.getWardId(),
+                    item.getWardName() != null ? item.getWardName() : ward.getWardName(),
+                    item.getDescription() != null ? item.getDescription() : ward.getDescription(),
+                    item.getCapacity() != null ? item.getCapacity() : ward.getCapacity()));
+        }
+        List<Integer> deleted = Batches.items(request.getDelete());
+        for (int i = 0; i < deleted.size(); i++) {
+            batch.delete(i, deleted.get(i));
+        }
+        return batch.apply(wardManager::applyAll);
+    }
+
     // DTO Classes
     public static class WardRequest {
         private int wardId;
@@ -207,4 +289,48 @@ public class WardController {
             this.capacity = capacity;
         }
     }
-}
\ No newline at end of file
+
+    public static class WardBatchRequest {
+        private List<WardRequest> add = new ArrayList<>();
+        private List<WardBatchUpdateRequest> update = new ArrayList<>();
+        private List<Integer> delete = new ArrayList<>();
+
+        // Getters and Setters
+        public List<WardRequest> getAdd() {
+            return add;
+        }
+
+        public void setAdd(List<WardRequest> add) {
+            this.add = add;
+        }
+
+        public List<WardBatchUpdateRequest> getUpdate() {
+            return update;
+        }
+
+        public void setUpdate(List<WardBatchUpdateRequest> update) {
+            this.update = update;
+        }
+
+        public List<Integer> getDelete() {
+            return delete;
+        }
+
+        public void setDelete(List<Integer> delete) {
+            this.delete = delete;
+        }
+    }
+
+    public static class WardBatchUpdateRequest extends WardUpdateRequest {
+        private int wardId;
+
+        // Getters and Setters
+        public int getWardId() {
+            return wardId;
+        }
+
+        public void setWardId(int wardId) {
+            this.wardId = wardId;
+        }
+    }
+}
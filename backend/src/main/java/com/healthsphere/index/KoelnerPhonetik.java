@@ -0,0 +1,99 @@
+package com.healthsphere.index;
+
+import java.util.Arrays;
+
+/**
+ * Kölner Phonetik: bildet deutsche Namen auf einen Zifferncode ab, sodass
+ * gleich klingende Schreibweisen denselben Code erhalten (Meier, Meyer,
+ * Maier -> "67").
+ *
+ * Jeder Buchstabe erhält abhängig von seinen Nachbarn eine Ziffer, danach
+ * werden aufeinanderfolgende gleiche Ziffern zusammengefasst und alle "0"
+ * außer am Anfang entfernt. Umlaute werden wie ihr Grundvokal, ß wie S
+ * behandelt; andere Zeichen werden ignoriert.
+ */
+public final class KoelnerPhonetik {
+
+    private KoelnerPhonetik() {
+    }
+
+    /**
+     * @param value Name (null erlaubt)
+     * @return Phonetischer Code, leer wenn der Name keine Buchstaben enthält
+     */
+    public static String encode(String value) {
+        if (value == null) {
+            return "";
+        }
+        char[] letters = normalize(value);
+        StringBuilder raw = new StringBuilder(letters.length + 2);
+        for (int i = 0; i < letters.length; i++) {
+            char prev = i > 0 ? letters[i - 1] : 0;
+            char next = i + 1 < letters.length ? letters[i + 1] : 0;
+            appendCode(raw, letters[i], prev, next, i == 0);
+        }
+
+        // Gleiche Ziffern zusammenfassen, dann "0" (außer am Anfang) und "-" entfernen
+        StringBuilder code = new StringBuilder(raw.length());
+        char last = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != last && c != '-' && (c != '0' || i == 0)) {
+                code.append(c);
+            }
+            last = c;
+        }
+        return code.toString();
+    }
+
+    private static void appendCode(StringBuilder raw, char c, char prev, char next, boolean initial) {
+        switch (c) {
+            case 'A', 'E', 'I', 'J', 'O', 'U', 'Y' -> raw.append('0');
+            case 'H' -> raw.append('-');
+            case 'B' -> raw.append('1');
+            case 'P' -> raw.append(next == 'H' ? '3' : '1');
+            case 'D', 'T' -> raw.append(next == 'C' || next == 'S' || next == 'Z' ? '8' : '2');
+            case 'F', 'V', 'W' -> raw.append('3');
+            case 'G', 'K', 'Q' -> raw.append('4');
+            case 'C' -> raw.append(cCode(prev, next, initial));
+            case 'X' -> raw.append(prev == 'C' || prev == 'K' || prev == 'Q' ? "8" : "48");
+            case 'L' -> raw.append('5');
+            case 'M', 'N' -> raw.append('6');
+            case 'R' -> raw.append('7');
+            case 'S', 'Z' -> raw.append('8');
+            default -> {
+            }
+        }
+    }
+
+    private static char cCode(char prev, char next, boolean initial) {
+        if (initial) {
+            return "AHKLOQRUX".indexOf(next) >= 0 ? '4' : '8';
+        }
+        if (prev == 'S' || prev == 'Z') {
+            return '8';
+        }
+        return "AHKOQUX".indexOf(next) >= 0 ? '4' : '8';
+    }
+
+    // Großbuchstaben A-Z; Umlaute auf den Grundvokal, ß auf S
+    private static char[] normalize(String value) {
+        char[] letters = new char[value.length()];
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = Character.toUpperCase(value.charAt(i));
+            switch (c) {
+                case 'Ä' -> c = 'A';
+                case 'Ö' -> c = 'O';
+                case 'Ü' -> c = 'U';
+                case 'ß' -> c = 'S';
+                default -> {
+                }
+            }
+            if (c >= 'A' && c <= 'Z') {
+                letters[length++] = c;
+            }
+        }
+        return Arrays.copyOf(letters, length);
+    }
+}
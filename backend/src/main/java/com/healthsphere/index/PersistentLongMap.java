@@ -0,0 +1,396 @@
+package com.healthsphere.index;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Unveränderliche Map mit long-Schlüsseln als Hash Array Mapped Trie (HAMT).
+ *
+ * put und remove verändern die Map nicht, sondern liefern eine neue Version;
+ * kopiert wird dabei nur der Pfad von der Wurzel zum geänderten Eintrag
+ * (höchstens 13 Knoten mit je bis zu 32 Einträgen, bei 1 Mio. Einträgen
+ * typischerweise 4), alle übrigen Knoten teilen sich die Versionen. Eine
+ * einmal gelesene Version bleibt daher stabil, während weitere Versionen
+ * entstehen.
+ *
+ * Der Schlüssel wird mit einer ungeraden Konstante multipliziert - das ist
+ * eine Bijektion auf long, zwei Schlüssel haben also nie denselben Hash und
+ * es sind keine Kollisionslisten nötig. Je Ebene werden 5 Bit des Hashes
+ * verwendet. Werte dürfen nicht null sein.
+ *
+ * Für das Laden ganzer Bestände gibt es einen {@link Builder}, der seine
+ * eigenen Knoten an Ort und Stelle ändert, statt je Eintrag Pfade zu kopieren.
+ *
+ * @param <V> Typ der Werte
+ */
+public final class PersistentLongMap<V> implements Iterable<V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(null, 0);
+
+    private final Node root; // null = leer
+    private final int size;
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) find(root, key);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return Neue Version mit key -> value (ersetzt einen vorhandenen Wert)
+     */
+    public PersistentLongMap<V> put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Wert darf nicht null sein");
+        }
+        Leaf leaf = new Leaf(key, hash(key), value);
+        if (root == null) {
+            return new PersistentLongMap<>(Node.of(leaf, 0, null), 1);
+        }
+        int newSize = containsKey(key) ? size : size + 1;
+        return new PersistentLongMap<>(put(root, leaf, 0, null), newSize);
+    }
+
+    /**
+     * @return Neue Version ohne key (dieselbe Version, wenn key fehlt)
+     */
+    public PersistentLongMap<V> remove(long key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Object newRoot = remove(root, key, hash(key), 0);
+        if (newRoot == null) {
+            return empty();
+        }
+        Node node = newRoot instanceof Leaf leaf ? Node.of(leaf, 0, null) : (Node) newRoot;
+        return new PersistentLongMap<>(node, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        if (root != null) {
+            root.forEach(leaf -> action.accept((V) leaf.value));
+        }
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new ValueIterator<>(root);
+    }
+
+    /**
+     * Unveränderliche Set-Sicht auf die Werte dieser Version (ohne Kopie).
+     *
+     * @param keyOf Schlüssel eines Werts, für contains in O(Tiefe)
+     */
+    public Set<V> asSet(ToLongFunction<? super V> keyOf) {
+        return new ValueSet<>(this, keyOf);
+    }
+
+    // ===== TRIE =====
+
+    private static Object find(Node root, long key) {
+        long hash = hash(key);
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof Leaf leaf) {
+                return leaf.key == key ? leaf.value : null;
+            }
+            node = (Node) slot;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    /**
+     * @param edit Kennung des Builders, dessen Knoten an Ort und Stelle
+     *             geändert werden dürfen (null = immer Pfad kopieren)
+     */
+    private static Node put(Node node, Leaf leaf, int shift, Object edit) {
+        boolean inPlace = edit != null && node.edit == edit;
+        int bit = bit(leaf.hash, shift);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = leaf;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            if (inPlace) {
+                node.bitmap |= bit;
+                node.slots = slots;
+                return node;
+            }
+            return new Node(node.bitmap | bit, slots, edit);
+        }
+        Object existing = node.slots[index];
+        Object replacement;
+        if (existing instanceof Leaf other) {
+            replacement = other.key == leaf.key ? leaf : merge(other, leaf, shift + BITS, edit);
+        } else {
+            replacement = put((Node) existing, leaf, shift + BITS, edit);
+        }
+        if (inPlace) {
+            node.slots[index] = replacement;
+            return node;
+        }
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots, edit);
+    }
+
+    // Zwei Blätter, deren Hashes bis shift übereinstimmen, in einen Unterbaum legen
+    private static Node merge(Leaf a, Leaf b, int shift, Object edit) {
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new Node(bitA, new Object[] { merge(a, b, shift + BITS, edit) }, edit);
+        }
+        Object[] slots = Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[] { a, b } : new Object[] { b, a };
+        return new Node(bitA | bitB, slots, edit);
+    }
+
+    /**
+     * @return Neuer Knoten, ein einzelnes Blatt (wird im Elternknoten
+     *         eingesetzt) oder null, wenn der Knoten leer ist
+     */
+    private static Object remove(Node node, long key, long hash, int shift) {
+        int bit = bit(hash, shift);
+        int index = node.index(bit);
+        Object existing = node.slots[index];
+        Object replacement = existing instanceof Leaf ? null : remove((Node) existing, key, hash, shift + BITS);
+
+        if (replacement == null) {
+            if (node.slots.length == 1) {
+                return null;
+            }
+            if (node.slots.length == 2 && node.slots[1 - index] instanceof Leaf remaining) {
+                return remaining; // Knoten mit nur einem Blatt entfällt
+            }
+            Object[] slots = new Object[node.slots.length - 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+            return new Node(node.bitmap & ~bit, slots, null);
+        }
+        if (replacement instanceof Leaf && node.slots.length == 1) {
+            return replacement; // Blatt weiter nach oben ziehen
+        }
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots, null);
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L; // ungerade Konstante: bijektiv
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << ((int) (hash >>> shift) & MASK);
+    }
+
+    private static final class Leaf {
+        final long key;
+        final long hash;
+        final Object value;
+
+        Leaf(long key, long hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    private static final class Node {
+        int bitmap; // belegte Positionen
+        Object[] slots; // Leaf oder Node, dicht nach Position
+        final Object edit; // Builder, der den Knoten noch ändern darf (null = unveränderlich)
+
+        Node(int bitmap, Object[] slots, Object edit) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+            this.edit = edit;
+        }
+
+        static Node of(Leaf leaf, int shift, Object edit) {
+            return new Node(bit(leaf.hash, shift), new Object[] { leaf }, edit);
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        void forEach(Consumer<Leaf> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf leaf) {
+                    action.accept(leaf);
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+    }
+
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Leaf next;
+
+        ValueIterator(Node root) {
+            if (root != null) {
+                nodes.push(root);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int position = positions.pop();
+                if (position >= node.slots.length) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object slot = node.slots[position];
+                if (slot instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                nodes.push((Node) slot);
+                positions.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) next.value;
+            advance();
+            return value;
+        }
+    }
+
+    /**
+     * Baut eine Map durch wiederholtes put auf, ohne Zwischenversionen zu
+     * erzeugen. Nicht thread-sicher; nach {@link #build()} ändert der Builder
+     * die gelieferte Map nicht mehr.
+     */
+    public static final class Builder<V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder<V> put(long key, V value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Wert darf nicht null sein");
+            }
+            Leaf leaf = new Leaf(key, hash(key), value);
+            if (root == null) {
+                root = Node.of(leaf, 0, edit);
+                size = 1;
+                return this;
+            }
+            if (find(root, key) == null) {
+                size++;
+            }
+            root = PersistentLongMap.put(root, leaf, 0, edit);
+            return this;
+        }
+
+        public PersistentLongMap<V> build() {
+            edit = new Object(); // bisherige Knoten gehören ab jetzt der Map
+            return root == null ? empty() : new PersistentLongMap<>(root, size);
+        }
+    }
+
+    /**
+     * Unveränderliche Set-Sicht auf eine Version; Änderungsversuche werfen
+     * UnsupportedOperationException.
+     */
+    private static final class ValueSet<V> extends AbstractSet<V> {
+        private final PersistentLongMap<V> map;
+        private final ToLongFunction<? super V> keyOf;
+
+        ValueSet(PersistentLongMap<V> map, ToLongFunction<? super V> keyOf) {
+            this.map = map;
+            this.keyOf = keyOf;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return map.iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o) {
+            try {
+                V value = map.get(keyOf.applyAsLong((V) o));
+                return value != null && value.equals(o);
+            } catch (ClassCastException | NullPointerException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void forEach(Consumer<? super V> action) {
+            map.forEach(action);
+        }
+    }
+}
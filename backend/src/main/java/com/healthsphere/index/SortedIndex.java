@@ -0,0 +1,77 @@
+package com.healthsphere.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sortierter Index für eine feste Reihenfolge (Skip-List).
+ *
+ * Der Manager trägt jedes Objekt beim Hinzufügen ein und vor jeder Änderung
+ * bzw. beim Löschen wieder aus; eine sortierte Seite kostet dadurch nur
+ * O(log n + Seitengröße) statt einer Sortierung aller Objekte pro Anfrage.
+ * Gleichrangige Objekte werden über ihre ID eindeutig geordnet, damit die
+ * Reihenfolge total ist und ein Cursor (ID des letzten Eintrags) eindeutig
+ * weitersetzen kann.
+ *
+ * Die sortierrelevanten Felder eines eingetragenen Objekts dürfen sich nicht
+ * ändern, solange es im Index steht.
+ *
+ * @param <T> Typ der indizierten Objekte
+ */
+public class SortedIndex<T> {
+    private final NavigableSet<T> entries;
+
+    /**
+     * @param order Gewünschte Reihenfolge
+     * @param idOf  Eindeutige ID eines Objekts (Tiebreak)
+     */
+    public SortedIndex(Comparator<? super T> order, ToLongFunction<? super T> idOf) {
+        Comparator<T> total = (a, b) -> {
+            int result = order.compare(a, b);
+            return result != 0 ? result : Long.compare(idOf.applyAsLong(a), idOf.applyAsLong(b));
+        };
+        this.entries = new ConcurrentSkipListSet<>(total);
+    }
+
+    public void add(T value) {
+        entries.add(value);
+    }
+
+    public void remove(T value) {
+        entries.remove(value);
+    }
+
+    public void addAll(Collection<? extends T> values) {
+        entries.addAll(values);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param after Letztes Objekt der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Einträge
+     * @return Bis zu limit Objekte hinter after in Index-Reihenfolge
+     */
+    public List<T> page(T after, int limit) {
+        NavigableSet<T> view = after != null ? entries.tailSet(after, false) : entries;
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        for (T value : view) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(value);
+        }
+        return page;
+    }
+}
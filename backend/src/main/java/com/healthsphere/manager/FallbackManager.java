@@ -0,0 +1,53 @@
+package com.healthsphere.manager;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Ersatz für einen nicht verdrahteten Manager (siehe setWardManager,
+ * setPatientManager, setPersonManagers).
+ *
+ * Der Manager wird beim ersten Bedarf genau einmal geladen und danach
+ * wiederverwendet, statt für jeden Aufruf, jeden Eintrag eines Stapels oder
+ * jeden Schritt einer Transaktion die ganze Datei neu zu lesen. Seine Datei
+ * liegt im selben Verzeichnis wie die des besitzenden Managers
+ * ({@link #siblingFile}).
+ *
+ * @param <M> Typ des Managers
+ */
+final class FallbackManager<M> {
+    private final Supplier<M> loader;
+    private volatile M manager;
+
+    FallbackManager(Supplier<M> loader) {
+        this.loader = loader;
+    }
+
+    M get() {
+        M loaded = manager;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = manager;
+                if (loaded == null) {
+                    loaded = loader.get();
+                    manager = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @param ownerFile Datei des besitzenden Managers (null = ohne Datei)
+     * @param name      Dateiname des Ersatz-Managers, z.B. "wards.ser"
+     * @return name im Verzeichnis von ownerFile; ohne ownerFile unverändert
+     */
+    static String siblingFile(String ownerFile, String name) {
+        if (ownerFile == null) {
+            return name;
+        }
+        Path sibling = Paths.get(ownerFile).resolveSibling(name);
+        return sibling.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.healthsphere.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Lese-/Schreibsperre der Manager auf Basis von {@link StampedLock}.
+ *
+ * Die Controller sind Singletons und rufen die Manager aus vielen
+ * Tomcat-Threads gleichzeitig auf. Jede Änderung an Bestand, Indizes und
+ * Mutation-Log läuft unter der Schreibsperre, sodass ein Ersetzen (entfernen
+ * und neu einfügen) atomar ist und das Log in derselben Reihenfolge wie die
+ * Änderungen geschrieben wird. Abfragen über die veränderlichen Indizes
+ * teilen sich die Lesesperre; findById und getAll lesen die zuletzt
+ * veröffentlichte unveränderliche Version (PersistentLongMap) ganz ohne
+ * Sperre.
+ *
+ * Ergebnisse, die den Manager verlassen, sind unveränderliche Versionen oder
+ * Listen, die unter der Sperre gefüllt wurden - Jackson serialisiert also nie
+ * ein Set, das gerade verändert wird.
+ *
+ * Die Sperre ist nicht reentrant: innerhalb einer Aktion dürfen keine
+ * öffentlichen Methoden desselben Managers aufgerufen werden. Aufrufe in
+ * andere Manager erfolgen außerhalb der eigenen Sperre. Nur
+ * {@link Transaction} hält mehrere Sperren zugleich; sie werden mit
+ * {@link #writeAll} immer in derselben Reihenfolge (Erzeugung der Sperren)
+ * genommen, sodass sich zwei Transaktionen nicht gegenseitig blockieren.
+ */
+final class ManagerLock {
+
+    /**
+     * Aktion unter einer Sperre; darf eine geprüfte Exception werfen.
+     */
+    @FunctionalInterface
+    interface Action<R, E extends Exception> {
+        R run() throws E;
+    }
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final StampedLock lock = new StampedLock();
+    private final long order = SEQUENCE.incrementAndGet(); // Reihenfolge für writeAll
+
+    <R, E extends Exception> R read(Action<R, E> action) throws E {
+        long stamp = lock.readLock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    <R, E extends Exception> R write(Action<R, E> action) throws E {
+        long stamp = lock.writeLock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Führt action unter den Schreibsperren aller übergebenen Sperren aus.
+     */
+    static <R, E extends Exception> R writeAll(Collection<ManagerLock> locks, Action<R, E> action) throws E {
+        List<ManagerLock> ordered = new ArrayList<>(locks);
+        ordered.sort(Comparator.comparingLong(managerLock -> managerLock.order));
+        long[] stamps = new long[ordered.size()];
+        int locked = 0;
+        try {
+            for (; locked < ordered.size(); locked++) {
+                stamps[locked] = ordered.get(locked).lock.writeLock();
+            }
+            return action.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered.get(i).lock.unlockWrite(stamps[i]);
+            }
+        }
+    }
+}
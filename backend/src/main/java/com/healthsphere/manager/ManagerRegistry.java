@@ -0,0 +1,40 @@
+package com.healthsphere.manager;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.healthsphere.components.Employee;
+import com.healthsphere.components.Patient;
+
+/**
+ * Registry der Manager-Instanzen als Spring-Beans.
+ *
+ * Pro Entitätstyp existiert genau eine Manager-Instanz (vom
+ * {@link StartupLoader} geladen und untereinander verdrahtet). Controller
+ * und Manager greifen ausschließlich auf diese Instanzen zu, statt für
+ * Kapazitätsprüfungen oder Statistiken eigene Manager aus den .ser-Dateien
+ * zu laden.
+ */
+@Configuration
+public class ManagerRegistry {
+
+    @Bean
+    public PersonManager<Patient> patientManager(StartupLoader loader) {
+        return loader.getPatientManager();
+    }
+
+    @Bean
+    public PersonManager<Employee> employeeManager(StartupLoader loader) {
+        return loader.getEmployeeManager();
+    }
+
+    @Bean
+    public WardManager wardManager(StartupLoader loader) {
+        return loader.getWardManager();
+    }
+
+    @Bean
+    public TreatmentManager treatmentManager(StartupLoader loader) {
+        return loader.getTreatmentManager();
+    }
+}
@@ -1,17 +1,34 @@
 package com.healthsphere.manager;
 
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import com.healthsphere.Exceptions.DateExceptions.InvalidDateTimeException;
 import com.healthsphere.Exceptions.PersonExceptions.DuplicatePersonException;
+import com.healthsphere.Exceptions.PersonExceptions.InvalidPersonDataException;
 import com.healthsphere.components.Employee;
 import com.healthsphere.components.Patient;
 import com.healthsphere.components.Person;
-import com.healthsphere.serialization.SerializationManager;
-import com.healthsphere.manager.WardManager;
+import com.healthsphere.index.KoelnerPhonetik;
+import com.healthsphere.index.PersistentLongMap;
+import com.healthsphere.index.LongHashSet;
+import com.healthsphere.index.SortedIndex;
+import com.healthsphere.serialization.IdSequence;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.MappedPersonStore;
+import com.healthsphere.serialization.MutationLog;
 import com.healthsphere.components.Ward;
 
 /**
@@ -27,7 +44,19 @@ import com.healthsphere.components.Ward;
  * Generische Verwaltung von Patient- und Employee-Objekten
  * Automatische ID-Generierung für neue Personen
  * Erweiterte Such- und Filterfunktionen
- * Automatische Serialisierung für Datenpersistenz
+ * Unveränderliche, strukturell geteilte Snapshots (PersistentLongMap): jede
+ * Änderung veröffentlicht eine neue Version, findById und getAll lesen sie
+ * ohne Sperre und ohne Kopie
+ * Versionen je globaler Versionsnummer (VersionClock) für Snapshots, die
+ * mehrere Manager zum selben Stand lesen
+ * Belegungszähler je Station, die bei jeder Änderung mitgeführt werden
+ * Index Station -> Patienten-IDs für findByWard()
+ * Sortierter ID-Index für seitenweise Abfragen (getPage)
+ * Sortierte Indizes je angefragter Reihenfolge (getSortedPage)
+ * Präfix-Index über Nach- und Vorname für die Autovervollständigung (suggest)
+ * Phonetische Indizes (Kölner Phonetik) für Ähnlichkeitssuche und Duplikatswarnung
+ * Automatische Persistierung über Snapshot und Mutation-Log (LogStore) oder
+ * über einen memory-mapped Slot-Speicher (MappedPersonStore)
  * Type-Safe Operations mit Generics
  * 
  * 
@@ -36,45 +65,262 @@ import com.healthsphere.components.Ward;
  */
 
 public class PersonManager<T extends Person> {
-    private Set<T> personenSet = new HashSet<>();
+
+    /**
+     * Speicherart eines Managers
+     *
+     * LOG: Set im Speicher, Persistierung über Snapshot + Mutation-Log
+     * MAPPED: Memory-mapped Datei mit festen Slots; findById liest direkt aus
+     * der Datei, Änderungen werden an Ort und Stelle geschrieben. Aufnahmen,
+     * Belegung, findByWard und getPage kommen mit den Indizes des Slot-Speichers
+     * aus; das Set wird erst bei der ersten Abfrage über alle Personen (getAll,
+     * Suche, Sortierung, Snapshots, Transaktionen) aufgebaut.
+     */
+    public enum StorageMode {
+        LOG, MAPPED
+    }
+
+    private static final Map<String, StorageMode> STORAGE_MODES = new ConcurrentHashMap<>();
+
+    // Primärschlüssel-Index und veröffentlichter Datenbestand; jede Änderung
+    // ersetzt ihn (unter der Schreibsperre) durch eine neue unveränderliche Version
+    private volatile PersistentLongMap<T> byId = PersistentLongMap.empty();
+    private final VersionHistory<T> history = new VersionHistory<>(VersionClock.global()); // für Snapshots
+    private NavigableMap<Long, T> byIdOrdered = new TreeMap<>(); // sortierter ID-Index für getPage()
+    private NavigableMap<String, LongHashSet> byNameKey = new TreeMap<>(); // gefalteter Name/Vorname -> IDs
+    private Map<String, LongHashSet> byNamePhonetic = new HashMap<>(); // Kölner Phonetik Nachname -> IDs
+    private Map<String, LongHashSet> byFirstnamePhonetic = new HashMap<>(); // Kölner Phonetik Vorname -> IDs
+    private final Map<String, SortedIndex<T>> sortedIndexes = new ConcurrentHashMap<>(); // ?sort=
+    // wardId -> Patienten; unveränderlich wie byId und mit derselben Version veröffentlicht
+    private volatile PersistentLongMap<PersistentLongMap<T>> byWard = PersistentLongMap.empty();
+    private final VersionHistory<PersistentLongMap<T>> wardHistory = new VersionHistory<>(VersionClock.global());
+    private final Map<Integer, AtomicInteger> wardOccupancy = new ConcurrentHashMap<>(); // wardId -> Patienten
     private String filename;
+    private LogStore<T> store;
+    private IdSequence idSequence = IdSequence.forFile(null);
+    private MappedPersonStore<T> mappedStore;
+    private volatile boolean materialized = true; // false = byId noch nicht aus mappedStore aufgebaut
+    private final ManagerLock lock = new ManagerLock(); // Änderungen, Indizes und Log (siehe ManagerLock)
     private boolean autoSaveEnabled = true;
+    private WardManager wardManager; // gemeinsame Instanz für Kapazitätsprüfungen
+    private final FallbackManager<WardManager> fallbackWards = new FallbackManager<>(
+            () -> new WardManager(FallbackManager.siblingFile(filename, "wards.ser")));
+    private final Transaction.Participant<T> participant = new Staging(); // für Transaction
 
     // ===== KONSTRUKTOREN =====
     public PersonManager() {
     }
 
     public PersonManager(String filename) {
+        this(filename, getStorageMode(filename));
+    }
+
+    public PersonManager(String filename, StorageMode storageMode) {
         this.filename = filename;
+        if (storageMode == StorageMode.MAPPED) {
+            this.mappedStore = MappedPersonStore.open(filename);
+        }
+        if (mappedStore == null) {
+            this.store = new LogStore<>(filename);
+        }
+        this.idSequence = IdSequence.forFile(filename);
         this.autoSaveEnabled = true;
         load();
     }
 
+    // ===== SPEICHERART =====
+
+    /**
+     * Legt fest, mit welcher Speicherart alle Manager zu dieser Datei
+     * geöffnet werden (z.B. aus der Konfiguration beim Start).
+     */
+    public static void setStorageMode(String filename, StorageMode storageMode) {
+        STORAGE_MODES.put(filename, storageMode);
+    }
+
+    public static StorageMode getStorageMode(String filename) {
+        return STORAGE_MODES.getOrDefault(filename, StorageMode.LOG);
+    }
+
+    /**
+     * Baut Datenbestand und Indizes im MAPPED-Modus bei der ersten Abfrage
+     * über alle Personen auf; danach werden sie bei jeder Änderung
+     * mitgeführt. Nur unter der Schreibsperre oder nach
+     * {@link #materialize()} aufrufen.
+     */
+    private PersistentLongMap<T> persons() {
+        if (!materialized) {
+            byId = rebuildIndexes(mappedStore.loadAll(), false); // Zähler werden bereits geführt
+            history.reset(byId); // kein neuer Stand: bestehende Snapshots sehen ihn ebenfalls
+            wardHistory.reset(byWard);
+            materialized = true;
+        }
+        return byId;
+    }
+
+    // MAPPED: Datenbestand und Indizes vor dem ersten Lesezugriff einmalig unter der Schreibsperre aufbauen
+    private void materialize() {
+        if (!materialized) {
+            lock.write(this::persons);
+        }
+    }
+
+    // Einzelabfrage ohne Sperre; nur innerhalb einer Aktion von lock verwenden
+    private T lookup(long personId) {
+        return mappedStore != null ? mappedStore.get(personId) : byId.get(personId);
+    }
+
+    // ===== INDIZES =====
+
+    /**
+     * Trägt eine Person in alle Indizes außer byId ein; wird bei jeder
+     * Aufnahme in byId aufgerufen.
+     */
+    private void indexInsert(T person) {
+        indexInsert(person, true);
+    }
+
+    /**
+     * @param countWard false, wenn der Platz auf der Station bereits über
+     *                  {@link #reserveWardCapacity} gezählt wurde
+     */
+    private void indexInsert(T person, boolean countWard) {
+        byIdOrdered.put(person.getPersonId(), person);
+        byNameKey.computeIfAbsent(person.nameKey(), k -> new LongHashSet()).add(person.getPersonId());
+        byNameKey.computeIfAbsent(person.firstnameKey(), k -> new LongHashSet()).add(person.getPersonId());
+        byNamePhonetic.computeIfAbsent(KoelnerPhonetik.encode(person.getName()), k -> new LongHashSet())
+                .add(person.getPersonId());
+        byFirstnamePhonetic.computeIfAbsent(KoelnerPhonetik.encode(person.getFirstname()), k -> new LongHashSet())
+                .add(person.getPersonId());
+        for (SortedIndex<T> index : sortedIndexes.values()) {
+            index.add(person);
+        }
+        Integer wardId = patientWardId(person);
+        if (wardId != null) {
+            PersistentLongMap<T> members = byWard.get(wardId);
+            members = members != null ? members : PersistentLongMap.empty();
+            byWard = byWard.put(wardId, members.put(person.getPersonId(), person));
+        }
+        if (wardId != null && countWard) {
+            wardOccupancy.computeIfAbsent(wardId, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Entfernt eine Person aus allen Indizes außer byId; wird bei jeder
+     * Entnahme aus byId aufgerufen.
+     */
+    private void indexRemove(T person) {
+        byIdOrdered.remove(person.getPersonId());
+        removeId(byNameKey, person.nameKey(), person.getPersonId());
+        removeId(byNameKey, person.firstnameKey(), person.getPersonId());
+        removeId(byNamePhonetic, KoelnerPhonetik.encode(person.getName()), person.getPersonId());
+        removeId(byFirstnamePhonetic, KoelnerPhonetik.encode(person.getFirstname()), person.getPersonId());
+        for (SortedIndex<T> index : sortedIndexes.values()) {
+            index.remove(person);
+        }
+        Integer wardId = patientWardId(person);
+        if (wardId != null) {
+            PersistentLongMap<T> members = byWard.get(wardId);
+            if (members != null) {
+                members = members.remove(person.getPersonId());
+                byWard = members.isEmpty() ? byWard.remove(wardId) : byWard.put(wardId, members);
+            }
+            AtomicInteger count = wardOccupancy.get(wardId);
+            if (count != null) {
+                count.decrementAndGet();
+            }
+        }
+    }
+
+    private static void removeId(Map<String, LongHashSet> index, String key, long personId) {
+        LongHashSet ids = index.get(key);
+        if (ids != null && ids.remove(personId) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // Station eines Patienten; Mitarbeiter belegen keine Plätze
+    private Integer patientWardId(T person) {
+        return person instanceof Patient ? ((Patient) person).getWardId() : null;
+    }
+
+    /**
+     * Baut alle Indizes neu auf und liefert den zugehörigen Bestand (noch
+     * nicht veröffentlicht).
+     *
+     * @param countWards false, wenn die Belegungszähler schon stimmen (MAPPED)
+     */
+    private PersistentLongMap<T> rebuildIndexes(Set<T> persons, boolean countWards) {
+        byIdOrdered = new TreeMap<>();
+        byNameKey = new TreeMap<>();
+        byNamePhonetic = new HashMap<>();
+        byFirstnamePhonetic = new HashMap<>();
+        byWard = PersistentLongMap.empty();
+        sortedIndexes.values().forEach(SortedIndex::clear);
+        if (countWards) {
+            wardOccupancy.values().forEach(count -> count.set(0)); // Zähler bleiben für laufende Reservierungen gültig
+        }
+        PersistentLongMap.Builder<T> loaded = PersistentLongMap.builder();
+        for (T person : persons) {
+            loaded.put(person.getPersonId(), person);
+            indexInsert(person, countWards);
+            idSequence.observe(person.getPersonId());
+        }
+        return loaded.build();
+    }
+
+    // Set-Sicht auf eine Version, ohne Kopie
+    private static <P extends Person> Set<P> asSet(PersistentLongMap<P> persons) {
+        return persons.asSet(Person::getPersonId);
+    }
+
     // ===== AUTO-SAVE KONFIGURATION =====
     public void enableAutoSave(String filename) {
-        this.filename = filename;
-        this.autoSaveEnabled = true;
+        lock.write(() -> {
+            this.filename = filename;
+            this.store = new LogStore<>(filename);
+            this.idSequence = IdSequence.forFile(filename);
+            byId.forEach(person -> idSequence.observe(person.getPersonId()));
+            this.autoSaveEnabled = true;
+            return null;
+        });
     }
 
     public void disableAutoSave() {
         this.autoSaveEnabled = false;
     }
 
-    private void autoSave() {
-        if (autoSaveEnabled && filename != null) {
-            SerializationManager.saveToFile(personenSet, filename);
+    /**
+     * Verdrahtet den gemeinsamen WardManager für die Kapazitätsprüfung. Wird
+     * nur beim PatientManager gesetzt; dieser prüft die Belegung dann an
+     * seinem eigenen Speicherstand.
+     */
+    public void setWardManager(WardManager wardManager) {
+        this.wardManager = wardManager;
+    }
+
+    /**
+     * Protokolliert eine einzelne Änderung im Mutation-Log, statt das
+     * komplette Set neu zu speichern.
+     */
+    private void autoSave(MutationLog.Operation operation, T person) {
+        if (autoSaveEnabled && store != null) {
+            switch (operation) {
+                case ADD -> store.recordAdd(person);
+                case UPDATE -> store.recordUpdate(person);
+                case DELETE -> store.recordDelete(person);
+            }
         }
     }
 
     // ===== ID-GENERIERUNG =====
-    private long generateUniquePersonId() {
-        if (personenSet.isEmpty()) {
-            return 1;
-        }
-        return personenSet.stream()
-                .mapToLong(Person::getPersonId)
-                .max()
-                .orElse(0) + 1;
+    /**
+     * Vergibt die nächste ID aus der persistenten ID-Folge (konstante Zeit,
+     * thread-sicher, blockweise auf der Platte reserviert).
+     */
+    public long generateUniquePersonId() {
+        return idSequence.next();
     }
 
     /**
@@ -108,7 +354,7 @@ public class PersonManager<T extends Person> {
                     this.filename != null && this.filename.contains("patient")) {
                 @SuppressWarnings("unchecked")
                 T person = (T) patient;
-                return addPerson(person);
+                return addPerson(person); // Duplikat-Warnung: findPossibleDuplicates() im Aufrufer
             } else {
                 System.err.println("FEHLER: Versuche Patient zu EmployeeManager hinzuzufügen!");
                 return false;
@@ -183,39 +429,74 @@ public class PersonManager<T extends Person> {
      * @throws DuplicatePersonException wenn Person bereits existiert
      */
     public boolean addPerson(T person) throws DuplicatePersonException {
-        // Duplikatsprüfung
-        if (personenSet.stream().anyMatch(p -> p.getPersonId() == person.getPersonId())) {
+        idSequence.observe(person.getPersonId()); // vorgegebene IDs nicht erneut vergeben
+
+        // Duplikatsprüfung (unter der Sperre wiederholt)
+        if (findById(person.getPersonId()) != null) {
             throw new DuplicatePersonException(person.getPersonId());
         }
 
-        // Kapazitätsprüfung NUR für Patienten
-        if (person instanceof Patient) {
-            Patient patient = (Patient) person;
-            if (patient.getWardId() != null && !checkWardCapacityForPatient(patient.getWardId())) {
-                System.err.println("FEHLER: Ward " + patient.getWardId() + " hat keine freien Plätze!");
-                return false;
-            }
+        // Kapazitätsprüfung NUR für Patienten: Platz vor dem Einfügen reservieren
+        // (außerhalb der Sperre, da der WardManager nachgeschlagen wird)
+        Integer reservedWard = patientWardId(person);
+        if (reservedWard != null && !reserveWardCapacity(reservedWard)) {
+            System.err.println("FEHLER: Ward " + reservedWard + " hat keine freien Plätze!");
+            return false;
         }
 
-        boolean added = personenSet.add(person);
-        if (added) {
-            autoSave(); // deine eigene Speichermethode, vermutlich Serialisierung
-        }
-        return added;
+        return lock.write(() -> {
+            boolean counted = false; // Reservierung wurde vom Index übernommen
+            try {
+                if (lookup(person.getPersonId()) != null) {
+                    throw new DuplicatePersonException(person.getPersonId());
+                }
+                if (mappedStore != null) {
+                    if (!mappedStore.put(person)) {
+                        return false;
+                    }
+                    // Ohne Set bleibt die Reservierung als Belegung stehen
+                    counted = !materialized || insert(person, reservedWard == null);
+                    return true;
+                }
+
+                boolean added = insert(person, reservedWard == null);
+                if (added) {
+                    counted = true;
+                    autoSave(MutationLog.Operation.ADD, person);
+                }
+                return added;
+            } finally {
+                if (reservedWard != null && !counted) {
+                    releaseWardCapacity(reservedWard); // Einfügen fehlgeschlagen: Rollback
+                }
+            }
+        });
     }
 
     public boolean deletePerson(long personId) {
         try {
-            T person = findById(personId);
-            if (person == null) {
-                return false; // Person nicht gefunden
-            }
+            return lock.write(() -> {
+                T person = lookup(personId);
+                if (person == null) {
+                    return false; // Person nicht gefunden
+                }
 
-            boolean result = personenSet.remove(person);
-            if (result) {
-                autoSave();
-            }
-            return result;
+                if (mappedStore != null) {
+                    boolean removed = mappedStore.remove(personId);
+                    if (removed && materialized) {
+                        remove(person);
+                    } else if (removed && patientWardId(person) != null) {
+                        releaseWardCapacity(patientWardId(person)); // ohne Set nur den Zähler führen
+                    }
+                    return removed;
+                }
+
+                boolean result = remove(person);
+                if (result) {
+                    autoSave(MutationLog.Operation.DELETE, person);
+                }
+                return result;
+            });
 
         } catch (Exception e) {
             System.err.println("Fehler beim Löschen der Person: " + e.getMessage());
@@ -224,44 +505,32 @@ public class PersonManager<T extends Person> {
     }
 
     // ===== separate Kapazitätsprüfung für Patienten =====
-    /***
+    /**
+     * Reserviert einen Platz auf einer Ward für eine Patientenzuweisung.
+     * 
+     * Der Belegungszähler der Station wird per compareAndSet nur erhöht,
+     * solange er unter der Kapazität liegt. Zwei gleichzeitige Aufnahmen für
+     * das letzte freie Bett können so nicht beide erfolgreich sein, ohne dass
+     * eine globale Sperre nötig ist. Schlägt das anschließende Einfügen fehl,
+     * wird die Reservierung mit {@link #releaseWardCapacity} zurückgenommen.
      * 
-     * Überprüft die
-     * Kapazität einer
-     * Ward für Patientenzuweisungen.**
-     * Diese interne
-     * Methode erstellt
-     * einen separaten
-     * PatientManager für*
-     * die Kapazitätsprüfung
-     * und verhindert Cast-Probleme.**
+     * Die Station wird im verdrahteten WardManager (siehe
+     * {@link #setWardManager}) nachgeschlagen, ohne Verdrahtung in einem
+     * einmalig geladenen Ersatz aus wards.ser neben der eigenen Datei.
      * 
-     * @param
-     * wardId        ID
-     *               der zu
-     *               prüfenden Station*@return true
-     *               wenn Ward
-     *               verfügbare Kapazität hat
+     * @param wardId ID der Station
+     * @return true wenn ein Platz reserviert wurde
      */
-
-    private boolean checkWardCapacityForPatient(Integer wardId) {
-        if (wardId == null) {
-            return true; // Keine Ward-Zuweisung = immer ok
-        }
-
+    private boolean reserveWardCapacity(int wardId) {
         try {
-            WardManager wardManager = new WardManager("wards.ser");
-            Ward ward = wardManager.findById(wardId);
+            Ward ward = wards().findById(wardId);
 
             if (ward == null) {
                 System.err.println("Ward mit ID " + wardId + " nicht gefunden!");
                 return false;
             }
 
-            // Erstelle IMMER einen separaten PatientManager für die Kapazitätsprüfung
-            // Das verhindert alle Cast-Probleme!
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-            return ward.hasCapacity(patientManager);
+            return reserveSlot(wardId, ward.getCapacity());
 
         } catch (Exception e) {
             System.err.println("Fehler bei Kapazitätsprüfung: " + e.getMessage());
@@ -270,56 +539,438 @@ public class PersonManager<T extends Person> {
         }
     }
 
+    // Verdrahteter WardManager oder - ohne Verdrahtung - einmalig aus wards.ser neben der eigenen Datei
+    private WardManager wards() {
+        WardManager wards = wardManager;
+        return wards != null ? wards : fallbackWards.get();
+    }
+
+    // Erhöht den Belegungszähler, solange er unter capacity liegt
+    private boolean reserveSlot(int wardId, int capacity) {
+        AtomicInteger count = wardOccupancy.computeIfAbsent(wardId, k -> new AtomicInteger());
+        int current;
+        do {
+            current = count.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void releaseWardCapacity(int wardId) {
+        AtomicInteger count = wardOccupancy.get(wardId);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
     // ===== READ METHODEN =====
+
+    /**
+     * Gibt die Anzahl der Patienten auf einer Station in konstanter Zeit
+     * zurück. Der Zähler wird bei jedem Hinzufügen, Ändern und Löschen
+     * mitgeführt statt alle Patienten zu durchsuchen.
+     *
+     * @param wardId ID der Station
+     * @return Anzahl zugewiesener Patienten
+     */
+    public int getWardOccupancy(int wardId) {
+        AtomicInteger count = wardOccupancy.get(wardId);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Gibt alle Patienten einer Station zurück. Sie stammen aus dem
+     * Stations-Index, die Kosten hängen daher nur von der Anzahl Patienten
+     * auf dieser Station ab.
+     *
+     * @param wardId ID der Station
+     * @return Patienten der Station (leer, wenn keine zugewiesen)
+     */
+    public List<T> findByWard(int wardId) {
+        if (mappedStore != null) {
+            return lock.read(() -> mappedStore.findByWard(wardId)); // Stations-Index des Slot-Speichers
+        }
+        return lock.read(() -> members(byWard.get(wardId)));
+    }
+
+    /**
+     * Gibt die Patienten einer Station zur festgehaltenen Version zurück,
+     * passend zu {@link #getAll(VersionClock.Snapshot)}; die Kosten hängen
+     * nur von der Anzahl Patienten auf dieser Station ab.
+     */
+    public List<T> findByWard(int wardId, VersionClock.Snapshot snapshot) {
+        materialize();
+        return members(wardHistory.at(snapshot).get(wardId));
+    }
+
+    private static <T> List<T> members(PersistentLongMap<T> members) {
+        List<T> result = new ArrayList<>(members != null ? members.size() : 0);
+        if (members != null) {
+            members.forEach(result::add);
+        }
+        return result;
+    }
+
     public T findById(long personId) {
-        return personenSet.stream()
-                .filter(p -> p.getPersonId() == personId)
-                .findFirst()
-                .orElse(null);
+        if (mappedStore != null) {
+            return mappedStore.get(personId); // eigene Synchronisierung
+        }
+        return byId.get(personId); // aktuelle Version, ohne Sperre
     }
 
+    /**
+     * Gibt den aktuellen Datenbestand als unveränderliche Sicht zurück.
+     *
+     * Es wird nichts kopiert: die Sicht gehört zu der beim Aufruf
+     * veröffentlichten Version und bleibt stabil, auch wenn währenddessen
+     * weitere Änderungen erfolgen (z.B. bei langen Exporten).
+     */
     public Set<T> getAll() {
-        return new HashSet<>(personenSet); // Defensive Kopie
+        materialize();
+        return asSet(byId);
+    }
+
+    /**
+     * Gibt den Datenbestand zur festgehaltenen Version zurück, passend zu
+     * den Beständen der anderen Manager in derselben Version (siehe
+     * {@link VersionClock}).
+     */
+    public Set<T> getAll(VersionClock.Snapshot snapshot) {
+        materialize();
+        return asSet(history.at(snapshot));
+    }
+
+    public T findById(long personId, VersionClock.Snapshot snapshot) {
+        materialize();
+        return history.at(snapshot).get(personId);
+    }
+
+    /**
+     * Gibt eine Seite in ID-Reihenfolge zurück (Keyset-Pagination über den
+     * sortierten ID-Index). Die Kosten hängen nur von der Seitengröße ab.
+     *
+     * @param after ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Einträge
+     * @return Einträge mit ID größer after, aufsteigend nach ID
+     */
+    public List<T> getPage(Long after, int limit) {
+        if (mappedStore != null) {
+            return lock.read(() -> mappedStore.page(after, limit)); // sortierter ID-Index des Slot-Speichers
+        }
+        return lock.read(() -> {
+            NavigableMap<Long, T> view = after != null ? byIdOrdered.tailMap(after, false) : byIdOrdered;
+            List<T> page = new ArrayList<>(Math.min(limit, 1024));
+            for (T person : view.values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(person);
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Gibt eine Seite in der Reihenfolge order zurück. Der zugehörige
+     * sortierte Index wird beim ersten Aufruf für sortKey einmal aufgebaut
+     * und danach bei jeder Änderung mitgeführt; weitere Anfragen sortieren
+     * nichts mehr.
+     *
+     * @param sortKey Name der Sortierung (ein Index je Name)
+     * @param order   Reihenfolge; muss für denselben sortKey immer gleich sein
+     * @param after   ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit   Maximale Anzahl Einträge
+     * @throws IllegalArgumentException wenn after nicht (mehr) existiert
+     */
+    public List<T> getSortedPage(String sortKey, Comparator<? super T> order, Long after, int limit) {
+        materialize();
+        return lock.read(() -> {
+            SortedIndex<T> index = sortedIndexes.computeIfAbsent(sortKey, key -> {
+                SortedIndex<T> created = new SortedIndex<>(order, Person::getPersonId);
+                created.addAll(asSet(byId));
+                return created;
+            });
+            T anchor = null;
+            if (after != null) {
+                anchor = lookup(after);
+                if (anchor == null) {
+                    throw new IllegalArgumentException("Cursor " + after + " existiert nicht");
+                }
+            }
+            return index.page(anchor, limit);
+        });
+    }
+
+    /**
+     * Vorschläge für die Namenssuche (Autovervollständigung).
+     *
+     * Das erste Wort der Eingabe wird als Präfix im sortierten Namens-Index
+     * (Nach- und Vornamen, ohne Groß-/Kleinschreibung) gesucht; es werden nur
+     * so viele Einträge gelesen, bis limit Treffer gefunden sind. Weitere
+     * Wörter müssen Präfix von Nach- oder Vorname sein ("anna sch").
+     *
+     * @param query Eingabe, z.B. "mül" oder "anna sch"
+     * @param limit Maximale Anzahl Vorschläge
+     * @return Treffer in alphabetischer Reihenfolge des passenden Namens
+     */
+    public List<T> suggest(String query, int limit) {
+        List<T> result = new ArrayList<>();
+        String[] words = Person.fold(query).trim().split("\\s+");
+        if (words[0].isEmpty() || limit <= 0) {
+            return result;
+        }
+        materialize(); // MAPPED: Index entsteht mit dem Set
+        return lock.read(() -> {
+            String prefix = words[0];
+            LongHashSet seen = new LongHashSet();
+            for (LongHashSet ids : byNameKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                // Große Gruppen (häufige Vornamen) nur so weit lesen wie nötig
+                boolean more = ids.forEachWhile(personId -> {
+                    T person = byId.get(personId);
+                    if (person != null && matchesAll(person, words) && seen.add(personId)) {
+                        result.add(person);
+                    }
+                    return result.size() < limit;
+                });
+                if (!more) {
+                    break;
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Ähnlichkeitssuche über die phonetischen Indizes (Kölner Phonetik).
+     *
+     * Gleich klingende Schreibweisen werden gefunden (Meier/Meyer/Maier).
+     * Angegebene Kriterien müssen alle passen: Nachname und Vorname
+     * phonetisch, Geburtsdatum exakt. Gelesen wird nur die kleinere der
+     * beiden Index-Gruppen, kein Durchlauf über alle Personen.
+     *
+     * @param name      Nachname (null = beliebig)
+     * @param firstname Vorname (null = beliebig)
+     * @param birthdate Geburtsdatum (null = beliebig)
+     * @param limit     Maximale Anzahl Treffer
+     * @return Treffer in natürlicher Sortierung, leer ohne Name und Vorname
+     */
+    public List<T> findSimilar(String name, String firstname, LocalDate birthdate, int limit) {
+        materialize(); // MAPPED: Index entsteht mit dem Set
+        return lock.read(() -> {
+            LongHashSet byName = phoneticGroup(byNamePhonetic, name);
+            LongHashSet byFirstname = phoneticGroup(byFirstnamePhonetic, firstname);
+            if (byName == null && byFirstname == null) {
+                return new ArrayList<>();
+            }
+
+            LongHashSet candidates;
+            LongHashSet other;
+            if (byName == null || (byFirstname != null && byFirstname.size() < byName.size())) {
+                candidates = byFirstname;
+                other = byName;
+            } else {
+                candidates = byName;
+                other = byFirstname;
+            }
+
+            List<T> result = new ArrayList<>();
+            candidates.forEach(personId -> {
+                if (other == null || other.contains(personId)) {
+                    T person = byId.get(personId);
+                    if (person != null && (birthdate == null || birthdate.equals(person.getBirthdate()))) {
+                        result.add(person);
+                    }
+                }
+            });
+            result.sort(null);
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        });
+    }
+
+    /**
+     * Duplikatsprüfung vor der Neuaufnahme: gleich klingender Nach- und
+     * Vorname bei gleichem Geburtsdatum.
+     *
+     * Im MAPPED-Modus erst, wenn die phonetischen Indizes aufgebaut sind (z.B.
+     * durch eine Suche): die Warnung ist nur ein Hinweis und soll beim
+     * Anlegen nicht den ganzen Slot-Speicher dekodieren.
+     *
+     * @return Bestehende Personen, die dieselbe Person sein könnten (höchstens 10)
+     */
+    public List<T> findPossibleDuplicates(String name, String firstname, LocalDate birthdate) {
+        if (name == null || name.isBlank() || firstname == null || firstname.isBlank()) {
+            return new ArrayList<>();
+        }
+        if (!materialized) {
+            return new ArrayList<>();
+        }
+        return findSimilar(name, firstname, birthdate, 10);
+    }
+
+    /**
+     * @return IDs mit gleichem phonetischen Code, null wenn value nicht
+     *         angegeben ist, leere Menge wenn es keinen Treffer gibt
+     */
+    private static LongHashSet phoneticGroup(Map<String, LongHashSet> index, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String code = KoelnerPhonetik.encode(value);
+        LongHashSet ids = code.isEmpty() ? null : index.get(code);
+        return ids != null ? ids : new LongHashSet();
+    }
+
+    private static boolean matchesAll(Person person, String[] words) {
+        for (int i = 1; i < words.length; i++) {
+            if (!person.nameKey().startsWith(words[i]) && !person.firstnameKey().startsWith(words[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Set<T> filter(Predicate<T> predicate) {
-        return personenSet.stream()
+        materialize();
+        return getAll().stream() // stabile Version, keine Sperre nötig
                 .filter(predicate)
                 .collect(Collectors.toSet());
     }
 
     // ===== UPDATE METHODEN =====
     public boolean updatePerson(long personId, T updatedPerson) {
-        T existingPerson = findById(personId);
-        if (existingPerson == null) {
-            return false;
-        }
+        return update(personId, current -> updatedPerson);
+    }
 
-        // Kapazitätsprüfung NUR für Patienten!
-        if (updatedPerson instanceof Patient) {
-            Patient updatedPatient = (Patient) updatedPerson;
-            if (updatedPatient.getWardId() != null) {
-                // Prüfe nur bei Ward-Wechsel oder bei neuer Ward-Zuweisung
-                Patient existingPatient = (Patient) existingPerson;
-                Integer oldWardId = existingPatient.getWardId();
-                Integer newWardId = updatedPatient.getWardId();
+    // Berechnet den neuen Stand aus dem unter der Schreibsperre gelesenen
+    @FunctionalInterface
+    private interface Patch<T, E extends Exception> {
+        /**
+         * @return Neuer Stand oder null, wenn nicht geändert werden soll
+         */
+        T apply(T current) throws E;
+    }
 
-                boolean wardChanged = (oldWardId == null && newWardId != null) ||
-                        (oldWardId != null && !oldWardId.equals(newWardId));
+    /**
+     * Ändert eine Person auf Grundlage ihres aktuellen Stands: Lesen,
+     * Stationsvergleich, Reservierung und Ersetzen geschehen unter einer
+     * Schreibsperre, gleichzeitige Änderungen gehen daher nicht verloren.
+     */
+    private <E extends Exception> boolean update(long personId, Patch<T, E> patch) throws E {
+        return lock.write(() -> {
+            T current = lookup(personId);
+            if (current == null) {
+                return false;
+            }
+            T updatedPerson = patch.apply(current);
+            if (updatedPerson == null) {
+                return false;
+            }
+            // Die ID ist der Schlüssel in Log und Slot-Speicher; geändert wird nur unter derselben ID
+            if (updatedPerson.getPersonId() != personId) {
+                System.err.println("FEHLER: ID " + personId + " kann nicht in " + updatedPerson.getPersonId()
+                        + " geändert werden!");
+                return false;
+            }
 
-                // HIER WAR DER FEHLER: checkWardCapacity() -> checkWardCapacityForPatient()
-                if (wardChanged && !checkWardCapacityForPatient(newWardId)) {
+            // Kapazitätsprüfung NUR für Patienten und nur bei Ward-Wechsel oder
+            // neuer Ward-Zuweisung: Platz auf der neuen Ward reservieren
+            Integer reserved = null;
+            Integer newWardId = patientWardId(updatedPerson);
+            if (newWardId != null && !newWardId.equals(patientWardId(current))) {
+                if (!reserveWardCapacity(newWardId)) {
                     System.err.println("FEHLER: Ward " + newWardId + " hat keine freien Plätze!");
                     return false;
                 }
+                reserved = newWardId;
+            }
+            // Für Employee-Updates wird KEINE Kapazitätsprüfung durchgeführt!
+
+            boolean counted = false; // Reservierung wurde vom Index übernommen
+            try {
+                // Person ersetzen; kein Leser sieht sie doppelt oder gar nicht
+                if (mappedStore != null) {
+                    if (!mappedStore.put(updatedPerson)) {
+                        return false;
+                    }
+                    if (materialized) {
+                        counted = replace(current, updatedPerson, reserved == null);
+                        return true;
+                    }
+                    // Ohne Set: Reservierung bleibt als Belegung, die bisherige Station wird frei
+                    counted = true;
+                    Integer previousWard = patientWardId(current);
+                    if (previousWard != null && !previousWard.equals(newWardId)) {
+                        releaseWardCapacity(previousWard);
+                    }
+                    return true;
+                }
+                counted = replace(current, updatedPerson, reserved == null);
+                if (!counted) {
+                    return false;
+                }
+                autoSave(MutationLog.Operation.UPDATE, updatedPerson);
+                return true;
+            } finally {
+                if (reserved != null && !counted) {
+                    releaseWardCapacity(reserved); // Ersetzen fehlgeschlagen: Rollback
+                }
             }
+        });
+    }
+
+    // ===== VERSIONEN (nur unter der Schreibsperre) =====
+
+    // Neuen Bestand für findById/getAll und unter der nächsten globalen Version veröffentlichen
+    private void publish(PersistentLongMap<T> next) {
+        byId = next;
+        PersistentLongMap<PersistentLongMap<T>> wards = byWard;
+        VersionClock.global().publish(version -> {
+            history.install(version, next);
+            wardHistory.install(version, wards);
+        });
+    }
+
+    /**
+     * @return true, wenn die Person neu in byId und den Indizes steht
+     */
+    private boolean insert(T person, boolean countWard) {
+        if (byId.containsKey(person.getPersonId())) {
+            return false;
         }
-        // Für Employee-Updates wird KEINE Kapazitätsprüfung durchgeführt!
+        indexInsert(person, countWard);
+        publish(byId.put(person.getPersonId(), person));
+        return true;
+    }
 
-        // Person ersetzen
-        personenSet.remove(existingPerson);
-        personenSet.add(updatedPerson);
-        autoSave();
+    private boolean remove(T person) {
+        if (!byId.containsKey(person.getPersonId())) {
+            return false;
+        }
+        indexRemove(person);
+        publish(byId.remove(person.getPersonId()));
+        return true;
+    }
+
+    /**
+     * Ersetzt eine Person mit einer einzigen neuen Version: kein Leser sieht
+     * die Person doppelt oder gar nicht.
+     *
+     * @return true, wenn die neue Person in byId und den Indizes steht
+     */
+    private boolean replace(T existingPerson, T updatedPerson, boolean countWard) {
+        PersistentLongMap<T> next = byId;
+        if (next.containsKey(existingPerson.getPersonId())) {
+            indexRemove(existingPerson);
+            next = next.remove(existingPerson.getPersonId());
+        }
+        if (next.containsKey(updatedPerson.getPersonId())) {
+            publish(next);
+            return false;
+        }
+        indexInsert(updatedPerson, countWard);
+        publish(next.put(updatedPerson.getPersonId(), updatedPerson));
         return true;
     }
 
@@ -341,31 +992,18 @@ public class PersonManager<T extends Person> {
      */
     public boolean updatePatient(long personId, String newName, String newFirstname,
             String newPhonenumber, String newEmail, String newAdress, Integer newWardId) {
-        if (!(this instanceof PersonManager))
-            return false;
-
-        @SuppressWarnings("unchecked")
-        PersonManager<Patient> patientManager = (PersonManager<Patient>) this;
-        Patient existingPatient = patientManager.findById(personId);
-        if (existingPatient == null) {
-            return false;
-        }
-
         try {
             // Exception-handling hier im Backend!
-            Patient updatedPatient = new Patient(
-                    personId,
-                    newName != null ? newName : existingPatient.getName(),
-                    newFirstname != null ? newFirstname : existingPatient.getFirstname(),
-                    newPhonenumber != null ? newPhonenumber : existingPatient.getPhonenumber(),
-                    newEmail != null ? newEmail : existingPatient.getEmail(),
-                    existingPatient.getBirthdate(),
-                    newAdress != null ? newAdress : existingPatient.getAdress(),
-                    newWardId != null ? newWardId : existingPatient.getWardId());
-
-            @SuppressWarnings("unchecked")
-            T typedPatient = (T) updatedPatient;
-            return updatePerson(personId, typedPatient);
+            // Felder auf den unter der Sperre gelesenen Stand anwenden
+            return update(personId, current -> {
+                if (!(current instanceof Patient existingPatient)) {
+                    return null;
+                }
+                @SuppressWarnings("unchecked")
+                T typedPatient = (T) patchPatient(existingPatient, newName, newFirstname, newPhonenumber,
+                        newEmail, newAdress, newWardId);
+                return typedPatient;
+            });
 
         } catch (Exception e) {
             // Alle Exceptions im Backend abfangen - keine Weiterleitung!
@@ -394,32 +1032,18 @@ public class PersonManager<T extends Person> {
     public boolean updateEmployee(long personId, String newName, String newFirstname,
             String newPhonenumber, String newEmail, String newAdress,
             String newDepartment, Integer newWardId) {
-        if (!(this instanceof PersonManager))
-            return false;
-
-        @SuppressWarnings("unchecked")
-        PersonManager<Employee> employeeManager = (PersonManager<Employee>) this;
-        Employee existingEmployee = employeeManager.findById(personId);
-        if (existingEmployee == null) {
-            return false;
-        }
-
         try {
             // Exception-handling hier im Backend!
-            Employee updatedEmployee = new Employee(
-                    personId,
-                    newName != null ? newName : existingEmployee.getName(),
-                    newFirstname != null ? newFirstname : existingEmployee.getFirstname(),
-                    newPhonenumber != null ? newPhonenumber : existingEmployee.getPhonenumber(),
-                    newEmail != null ? newEmail : existingEmployee.getEmail(),
-                    existingEmployee.getBirthdate(),
-                    newAdress != null ? newAdress : existingEmployee.getAdress(),
-                    newDepartment != null ? newDepartment : existingEmployee.getDepartment(),
-                    newWardId != null ? newWardId : existingEmployee.getWardId());
-
-            @SuppressWarnings("unchecked")
-            T typedEmployee = (T) updatedEmployee;
-            return updatePerson(personId, typedEmployee);
+            // Felder auf den unter der Sperre gelesenen Stand anwenden
+            return update(personId, current -> {
+                if (!(current instanceof Employee existingEmployee)) {
+                    return null;
+                }
+                @SuppressWarnings("unchecked")
+                T typedEmployee = (T) patchEmployee(existingEmployee, newName, newFirstname, newPhonenumber,
+                        newEmail, newAdress, newDepartment, newWardId);
+                return typedEmployee;
+            });
 
         } catch (Exception e) {
             // Alle Exceptions im Backend abfangen - keine Weiterleitung!
@@ -428,39 +1052,337 @@ public class PersonManager<T extends Person> {
         }
     }
 
+    /**
+     * Baut den geänderten Stand eines Patienten wie {@link #updatePatient},
+     * ohne ihn zu speichern - z.B. als {@link Transaction.Patch} für
+     * {@link #applyAll(Collection, Map, Collection)}, damit der Stand unter
+     * der Sperre zugrunde liegt.
+     *
+     * @param existingPatient Aktueller Stand; null-Werte bleiben unverändert
+     * @throws InvalidPersonDataException bei ungültigen neuen Daten
+     */
+    public static Patient patchPatient(Patient existingPatient, String newName, String newFirstname,
+            String newPhonenumber, String newEmail, String newAdress, Integer newWardId)
+            throws InvalidPersonDataException, InvalidDateTimeException {
+        return new Patient(
+                existingPatient.getPersonId(),
+                newName != null ? newName : existingPatient.getName(),
+                newFirstname != null ? newFirstname : existingPatient.getFirstname(),
+                newPhonenumber != null ? newPhonenumber : existingPatient.getPhonenumber(),
+                newEmail != null ? newEmail : existingPatient.getEmail(),
+                existingPatient.getBirthdate(),
+                newAdress != null ? newAdress : existingPatient.getAdress(),
+                newWardId != null ? newWardId : existingPatient.getWardId());
+    }
+
+    /**
+     * Baut den geänderten Stand eines Mitarbeiters wie {@link #updateEmployee},
+     * ohne ihn zu speichern (siehe {@link #patchPatient}).
+     *
+     * @param existingEmployee Aktueller Stand; null-Werte bleiben unverändert
+     * @throws InvalidPersonDataException bei ungültigen neuen Daten
+     */
+    public static Employee patchEmployee(Employee existingEmployee, String newName, String newFirstname,
+            String newPhonenumber, String newEmail, String newAdress, String newDepartment, Integer newWardId)
+            throws InvalidPersonDataException, InvalidDateTimeException {
+        return new Employee(
+                existingEmployee.getPersonId(),
+                newName != null ? newName : existingEmployee.getName(),
+                newFirstname != null ? newFirstname : existingEmployee.getFirstname(),
+                newPhonenumber != null ? newPhonenumber : existingEmployee.getPhonenumber(),
+                newEmail != null ? newEmail : existingEmployee.getEmail(),
+                existingEmployee.getBirthdate(),
+                newAdress != null ? newAdress : existingEmployee.getAdress(),
+                newDepartment != null ? newDepartment : existingEmployee.getDepartment(),
+                newWardId != null ? newWardId : existingEmployee.getWardId());
+    }
+
+    // ===== STAPELVERARBEITUNG =====
+
+    /**
+     * Fügt mehrere Personen in einem Stapel hinzu (siehe {@link #applyAll}).
+     *
+     * @return Ergebnis je Person in Eingabereihenfolge: null bei Erfolg, sonst der Grund
+     */
+    public List<String> addAll(Collection<T> persons) {
+        return applyAll(persons, List.of(), List.of());
+    }
+
+    /**
+     * Ersetzt mehrere Personen (gleiche ID) in einem Stapel.
+     *
+     * @return Ergebnis je Person in Eingabereihenfolge: null bei Erfolg, sonst der Grund
+     */
+    public List<String> updateAll(Collection<T> persons) {
+        return applyAll(List.of(), persons, List.of());
+    }
+
+    /**
+     * Löscht mehrere Personen in einem Stapel.
+     *
+     * @return Ergebnis je ID in Eingabereihenfolge: null bei Erfolg, sonst der Grund
+     */
+    public List<String> deleteAll(Collection<Long> personIds) {
+        return applyAll(List.of(), List.of(), personIds);
+    }
+
+    /**
+     * Hinzufügen, Ändern und Löschen als ein Stapel (siehe
+     * {@link Transaction#batch()}): Jeder Eintrag wird einzeln geprüft
+     * (Duplikate, Existenz, Stationskapazität); alle zulässigen werden unter
+     * einer Sperre angewendet und mit einem einzigen Log-Datensatz
+     * gespeichert statt mit einem je Eintrag. Im MAPPED-Modus werden die
+     * Einträge einzeln ausgeführt.
+     *
+     * @return Ergebnisse in der Reihenfolge added, updated, deleted: null bei
+     *         Erfolg, sonst der Grund
+     */
+    public List<String> applyAll(Collection<T> added, Collection<T> updated, Collection<Long> deleted) {
+        if (mappedStore != null) {
+            return applySingly(added, updated, deleted);
+        }
+        Transaction batch = Transaction.batch();
+        added.forEach(person -> batch.add(this, person));
+        updated.forEach(person -> batch.update(this, person));
+        deleted.forEach(personId -> batch.delete(this, personId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    /**
+     * Wie {@link #applyAll(Collection, Collection, Collection)}, Änderungen
+     * aber als Patch je ID: der neue Stand wird erst unter der Sperre aus dem
+     * dann aktuellen berechnet (z.B. für einzelne Felder aus einem Request).
+     */
+    public List<String> applyAll(Collection<T> added, Map<Long, Transaction.Patch<T>> patched,
+            Collection<Long> deleted) {
+        if (mappedStore != null) {
+            List<String> results = new ArrayList<>(applySingly(added, List.of(), List.of()));
+            patched.forEach((personId, patch) -> results.add(patchSingly(personId, patch)));
+            results.addAll(applySingly(List.of(), List.of(), deleted));
+            return results;
+        }
+        Transaction batch = Transaction.batch();
+        added.forEach(person -> batch.add(this, person));
+        patched.forEach((personId, patch) -> batch.update(this, personId, patch));
+        deleted.forEach(personId -> batch.delete(this, personId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    // MAPPED-Modus: Patch mit eigener Sperre; null bei Erfolg, sonst der Grund
+    private String patchSingly(long personId, Transaction.Patch<T> patch) {
+        try {
+            return update(personId, patch::apply) ? null
+                    : "Person " + personId + " konnte nicht aktualisiert werden";
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    // MAPPED-Modus: ohne Transaktionen, jeder Eintrag mit eigener Sperre
+    private List<String> applySingly(Collection<T> added, Collection<T> updated, Collection<Long> deleted) {
+        List<String> results = new ArrayList<>();
+        for (T person : added) {
+            try {
+                results.add(addPerson(person) ? null
+                        : "Person " + person.getPersonId() + " konnte nicht hinzugefügt werden");
+            } catch (DuplicatePersonException e) {
+                results.add(e.getMessage());
+            }
+        }
+        for (T person : updated) {
+            results.add(updatePerson(person.getPersonId(), person) ? null
+                    : "Person " + person.getPersonId() + " konnte nicht aktualisiert werden");
+        }
+        for (long personId : deleted) {
+            results.add(deletePerson(personId) ? null : "Person " + personId + " nicht gefunden");
+        }
+        return results;
+    }
+
+    // ===== TRANSAKTIONEN =====
+
+    Transaction.Participant<T> participant() {
+        return participant;
+    }
+
+    // Patienten einer Station laut Index; nur unter der Schreibsperre (Transaction)
+    List<T> wardMembers(int wardId) {
+        return members(byWard.get(wardId));
+    }
+
+    /**
+     * Teilnahme an {@link Transaction}: Patienten reservieren beim Prüfen wie
+     * in {@link #addPerson} einen Platz auf ihrer neuen Station; gelesen wird
+     * die Station aus dem vorläufigen Stand der Transaktion.
+     */
+    private final class Staging implements Transaction.Participant<T> {
+        @Override
+        public ManagerLock lock() {
+            return lock;
+        }
+
+        @Override
+        public List<Transaction.Participant<?>> dependencies() {
+            return wardManager != null ? List.of(wardManager.participant()) : List.of();
+        }
+
+        @Override
+        public PersistentLongMap<T> current() {
+            return persons(); // MAPPED: Set einmalig aufbauen (unter der Schreibsperre)
+        }
+
+        @Override
+        public String prepare(Transaction.Change<T> change, Transaction transaction) {
+            if (change.before() == null) {
+                idSequence.observe(change.key()); // vorgegebene IDs nicht erneut vergeben
+            }
+            Integer wardId = change.after() != null ? patientWardId(change.after()) : null;
+            if (wardId == null || (change.before() != null && wardId.equals(patientWardId(change.before())))) {
+                return null; // kein Stationswechsel
+            }
+            Ward ward = transaction.view(wards().participant()).get(wardId);
+            if (ward == null) {
+                return "Station " + wardId + " nicht gefunden";
+            }
+            if (!reserveSlot(wardId, ward.getCapacity())) {
+                return "Station " + wardId + " hat keine freien Plätze";
+            }
+            change.reserve();
+            return null;
+        }
+
+        @Override
+        public void release(Transaction.Change<T> change) {
+            if (change.isReserved()) {
+                releaseWardCapacity(patientWardId(change.after()));
+            }
+        }
+
+        @Override
+        public void apply(Collection<Transaction.Change<T>> changes, PersistentLongMap<T> next) {
+            if (mappedStore != null) {
+                writeSlots(changes);
+            }
+            for (Transaction.Change<T> change : changes) {
+                if (change.before() != null) {
+                    indexRemove(change.before());
+                }
+                if (change.after() != null) {
+                    indexInsert(change.after(), !change.isReserved());
+                }
+            }
+            byId = next;
+        }
+
+        // MAPPED: Slots direkt schreiben; es gibt kein Log und damit keinen Journal-Eintrag
+        private void writeSlots(Collection<Transaction.Change<T>> changes) {
+            for (Transaction.Change<T> change : changes) {
+                boolean written = change.after() == null ? mappedStore.remove(change.key())
+                        : mappedStore.put(change.after());
+                if (!written) {
+                    System.err.println("FEHLER: Person " + change.key() + " konnte nicht in den Mapped-Store "
+                            + "geschrieben werden");
+                }
+            }
+        }
+
+        @Override
+        public void install(long version, PersistentLongMap<T> next) {
+            history.install(version, next);
+            wardHistory.install(version, byWard);
+        }
+
+        @Override
+        public LogStore<T> store() {
+            return autoSaveEnabled ? store : null;
+        }
+    }
+
     // ===== PERSISTIERUNG =====
+
+    /**
+     * Schreibt einen vollständigen Snapshot und leert das Mutation-Log bzw.
+     * schreibt im MAPPED-Modus alle geänderten Seiten auf die Platte.
+     */
     public void save() {
-        if (filename != null) {
-            SerializationManager.saveToFile(personenSet, filename);
+        if (mappedStore != null) {
+            mappedStore.force();
+        } else if (store != null) {
+            // Ohne Sperre: geschrieben wird eine unveränderliche Version
+            store.saveSnapshot(() -> asSet(byId));
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Lädt den letzten Snapshot und spielt das Mutation-Log darauf ab.
+     *
+     * Im MAPPED-Modus wird nichts geladen; ist der Slot-Speicher neu, wird
+     * ein vorhandener Snapshot einmalig übernommen.
+     */
     public void load() {
-        if (filename != null) {
-            Set<T> loadedSet = SerializationManager.loadFromFile(filename);
+        lock.write(() -> {
+            loadUnlocked();
+            return null;
+        });
+    }
+
+    private void loadUnlocked() {
+        if (mappedStore != null) {
+            synchronized (mappedStore) {
+                if (mappedStore.wasCreated() && mappedStore.isEmpty()) {
+                    Set<T> existing = new LogStore<T>(filename).load();
+                    if (existing != null) {
+                        existing.forEach(mappedStore::put);
+                        System.out.println(existing.size() + " Personen aus " + filename
+                                + " in den Mapped-Store übernommen.");
+                    }
+                }
+            }
+            byId = PersistentLongMap.empty();
+            byWard = PersistentLongMap.empty();
+            history.reset(byId);
+            wardHistory.reset(byWard);
+            idSequence.observe(mappedStore.maxId());
+            // Belegung aus dem Stations-Index des Slot-Speichers, ohne Personen zu dekodieren
+            wardOccupancy.values().forEach(count -> count.set(0));
+            mappedStore.wardOccupancy().forEach((wardId, patients) -> wardOccupancy
+                    .computeIfAbsent(wardId, k -> new AtomicInteger()).set(patients));
+            materialized = false;
+        } else if (store != null) {
+            Set<T> loadedSet = store.load();
             if (loadedSet != null) {
-                this.personenSet = loadedSet;
+                publish(rebuildIndexes(loadedSet, true));
             }
         }
     }
 
+    public LogStore<T> getStore() {
+        return store;
+    }
+
+    public StorageMode getStorageMode() {
+        return mappedStore != null ? StorageMode.MAPPED : StorageMode.LOG;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("PersonManager{\n");
         sb.append("  filename='").append(filename != null ? filename : "none").append("'\n");
         sb.append("  autoSaveEnabled=").append(autoSaveEnabled).append("\n");
-        sb.append("  totalPersons=").append(personenSet.size()).append("\n");
+        Set<T> all = getAll();
+        sb.append("  totalPersons=").append(all.size()).append("\n");
 
-        if (!personenSet.isEmpty()) {
+        if (!all.isEmpty()) {
             // Bestimme den Typ der ersten Person für die Anzeige
-            T firstPerson = personenSet.iterator().next();
+            T firstPerson = all.iterator().next();
             String personType = firstPerson.getClass().getSimpleName();
             sb.append("  personType='").append(personType).append("'\n");
 
             sb.append("  persons=[\n");
-            for (T person : personenSet) {
+            for (T person : all) {
                 sb.append("    ").append(person.toString()).append("\n");
             }
             sb.append("  ]\n");
@@ -0,0 +1,122 @@
+package com.healthsphere.manager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthsphere.components.Employee;
+import com.healthsphere.components.Patient;
+import com.healthsphere.serialization.SnapshotCompactor;
+import com.healthsphere.serialization.WriteBehindFlusher;
+
+/**
+ * Lädt beim Start alle vier Stores parallel.
+ *
+ * Statt dass jeder Controller seinen Manager im Konstruktor nacheinander
+ * lädt, werden patients.ser, employees.ser, wards.ser und treatments.ser
+ * (Snapshot + Mutation-Log, inkl. Aufbau der Indizes) gleichzeitig in je
+ * einem eigenen Thread gelesen. Der Kaltstart dauert damit so lange wie der
+ * größte Store statt wie die Summe aller Stores.
+ *
+ * Die Ladezeit je Store wird protokolliert und ist über
+ * GET /api/health/startup abrufbar. Die geladenen Manager werden über die
+ * {@link ManagerRegistry} als Spring-Beans bereitgestellt.
+ */
+@Component
+public class StartupLoader {
+    private final PersonManager<Patient> patientManager;
+    private final PersonManager<Employee> employeeManager;
+    private final WardManager wardManager;
+    private final TreatmentManager treatmentManager;
+
+    private final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+    private final long totalLoadMillis;
+
+    public StartupLoader(SnapshotCompactor compactor, WriteBehindFlusher flusher,
+            @Value("${healthsphere.patients.storage:log}") String patientStorage) {
+        // Speicherart gilt für alle Manager auf patients.ser (log oder mapped)
+        PersonManager.setStorageMode("patients.ser",
+                PersonManager.StorageMode.valueOf(patientStorage.toUpperCase()));
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(4, r -> new Thread(r, "startup-loader"));
+        try {
+            CompletableFuture<PersonManager<Patient>> patients = load(executor, "patients",
+                    () -> new PersonManager<>("patients.ser"));
+            CompletableFuture<PersonManager<Employee>> employees = load(executor, "employees",
+                    () -> new PersonManager<>("employees.ser"));
+            CompletableFuture<WardManager> wards = load(executor, "wards",
+                    () -> new WardManager("wards.ser"));
+            CompletableFuture<TreatmentManager> treatments = load(executor, "treatments",
+                    () -> new TreatmentManager("treatments.ser"));
+
+            this.patientManager = patients.join();
+            this.employeeManager = employees.join();
+            this.wardManager = wards.join();
+            this.treatmentManager = treatments.join();
+        } finally {
+            executor.shutdown();
+        }
+        this.totalLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Alle Stores in " + totalLoadMillis + " ms geladen " + loadTimes);
+
+        // Gegenseitige Verdrahtung: Kapazitätsprüfungen und Namensauflösung
+        // arbeiten auf denselben Instanzen statt Dateien neu zu lesen
+        patientManager.setWardManager(wardManager);
+        wardManager.setPatientManager(patientManager);
+        treatmentManager.setPersonManagers(patientManager, employeeManager);
+
+        compactor.register("patients", patientManager.getStore());
+        compactor.register("employees", employeeManager.getStore());
+        compactor.register("wards", wardManager.getStore());
+        compactor.register("treatments", treatmentManager.getStore());
+        flusher.register("patients", patientManager.getStore());
+        flusher.register("employees", employeeManager.getStore());
+        flusher.register("wards", wardManager.getStore());
+        flusher.register("treatments", treatmentManager.getStore());
+    }
+
+    private <M> CompletableFuture<M> load(ExecutorService executor, String name, Supplier<M> loader) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            M manager = loader.get();
+            loadTimes.put(name, (System.nanoTime() - start) / 1_000_000);
+            return manager;
+        }, executor);
+    }
+
+    /**
+     * @return Ladezeit je Store und gesamt in Millisekunden
+     */
+    public Map<String, Long> getLoadTimes() {
+        Map<String, Long> times = new LinkedHashMap<>();
+        for (String name : new String[] { "patients", "employees", "wards", "treatments" }) {
+            times.put(name, loadTimes.get(name));
+        }
+        times.put("total", totalLoadMillis);
+        return times;
+    }
+
+    public PersonManager<Patient> getPatientManager() {
+        return patientManager;
+    }
+
+    public PersonManager<Employee> getEmployeeManager() {
+        return employeeManager;
+    }
+
+    public WardManager getWardManager() {
+        return wardManager;
+    }
+
+    public TreatmentManager getTreatmentManager() {
+        return treatmentManager;
+    }
+}
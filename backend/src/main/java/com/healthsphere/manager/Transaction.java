@@ -0,0 +1,510 @@
+package com.healthsphere.manager;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.index.PersistentLongMap;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.MutationLog;
+import com.healthsphere.serialization.MutationLog.Operation;
+import com.healthsphere.serialization.TransactionJournal;
+
+/**
+ * Transaktion über mehrere Manager.
+ *
+ * Änderungen werden zunächst nur gesammelt und erst mit {@link #commit()}
+ * ausgeführt:
+ *
+ * <pre>
+ * boolean ok = Transaction.begin()
+ *         .add(patientManager, patient)
+ *         .add(treatmentManager, firstTreatment)
+ *         .commit();
+ * </pre>
+ *
+ * commit() nimmt die Schreibsperren aller beteiligten Manager (in fester
+ * Reihenfolge, siehe {@link ManagerLock#writeAll}) und prüft jeden Schritt
+ * gegen den vorläufigen Stand der Transaktion - z.B. ob die Station eines
+ * verlegten Patienten existiert und noch Platz hat. Schlägt ein Schritt fehl,
+ * wird nichts geändert und {@link #getError()} nennt den Grund. Sonst werden
+ * alle Änderungen angewendet und gemeinsam unter einer Version der
+ * {@link VersionClock} veröffentlicht; ein Snapshot sieht sie also ganz oder
+ * gar nicht.
+ *
+ * Persistiert wird je Manager ein einziger Batch-Datensatz im Mutation-Log.
+ * Sind mehrere Logs beteiligt, stehen die Batches vorher in einem Eintrag des
+ * {@link TransactionJournal}, der als einziger synchronisiert wird; nach
+ * einem Absturz ergänzt das Laden die Logs daraus.
+ *
+ * Mit {@link #batch()} entsteht stattdessen ein Stapel: Jeder Schritt wird
+ * einzeln geprüft, unzulässige Schritte werden übersprungen und in
+ * {@link #getResults()} vermerkt; die übrigen werden wie oben unter einer
+ * Sperre je Manager angewendet und mit einem Datensatz je Log gespeichert.
+ *
+ * Jedes Objekt darf je Transaktion nur einmal geändert werden. Manager im
+ * MAPPED-Modus bauen dafür einmalig ihr Set auf und schreiben geänderte
+ * Slots direkt; sie haben kein Log und stehen daher nicht im Journal.
+ */
+public final class Transaction {
+
+    /**
+     * Ein Manager als Teilnehmer einer Transaktion. Außer lock() und
+     * dependencies() nur unter der Schreibsperre des Managers aufrufen.
+     *
+     * @param <V> Typ der verwalteten Objekte
+     */
+    interface Participant<V extends Serializable> {
+        ManagerLock lock();
+
+        /**
+         * @return Weitere Manager, deren Bestand prepare() liest; sie werden
+         *         mitgesperrt
+         */
+        default List<Participant<?>> dependencies() {
+            return List.of();
+        }
+
+        /**
+         * @return Aktuell veröffentlichter Bestand
+         */
+        PersistentLongMap<V> current();
+
+        /**
+         * Prüft eine Änderung; darf dabei Plätze reservieren (siehe
+         * {@link Change#reserve()}), die {@link #release} zurücknimmt.
+         *
+         * @return null wenn die Änderung zulässig ist, sonst der Grund
+         */
+        default String prepare(Change<V> change, Transaction transaction) {
+            return null;
+        }
+
+        default void release(Change<V> change) {
+        }
+
+        /**
+         * Führt die Indizes nach und setzt next als aktuellen Bestand (noch
+         * ohne Version).
+         */
+        void apply(Collection<Change<V>> changes, PersistentLongMap<V> next);
+
+        // Bestand unter version in die Versionshistorie eintragen; nur innerhalb von VersionClock.publish
+        void install(long version, PersistentLongMap<V> next);
+
+        /**
+         * @return Persistierung des Managers (null = Änderungen werden nicht gespeichert)
+         */
+        LogStore<V> store();
+    }
+
+    /**
+     * Änderung eines Objekts: before == null beim Hinzufügen, after == null
+     * beim Löschen.
+     */
+    static final class Change<V> {
+        private final long key;
+        private final V before;
+        private final V after;
+        private boolean reserved;
+
+        private Change(long key, V before, V after) {
+            this.key = key;
+            this.before = before;
+            this.after = after;
+        }
+
+        long key() {
+            return key;
+        }
+
+        V before() {
+            return before;
+        }
+
+        V after() {
+            return after;
+        }
+
+        // Für after wurde bereits ein Platz reserviert (Stationsbelegung)
+        void reserve() {
+            reserved = true;
+        }
+
+        boolean isReserved() {
+            return reserved;
+        }
+
+        MutationLog.Mutation<V> toMutation() {
+            if (before == null) {
+                return new MutationLog.Mutation<>(Operation.ADD, after);
+            }
+            return after == null ? new MutationLog.Mutation<>(Operation.DELETE, before)
+                    : new MutationLog.Mutation<>(Operation.UPDATE, after);
+        }
+    }
+
+    /**
+     * Berechnet den neuen Stand eines Objekts aus seinem Stand beim commit()
+     * (unter der Sperre), z.B. für Änderungen einzelner Felder.
+     *
+     * @param <V> Typ der Objekte
+     */
+    @FunctionalInterface
+    public interface Patch<V> {
+        /**
+         * @return Neuer Stand mit derselben ID
+         * @throws Exception bei ungültigen neuen Daten; die Meldung wird zum
+         *                   Grund des Schritts
+         */
+        V apply(V current) throws Exception;
+    }
+
+    // Ein Schritt wird erst unter den Sperren ausgeführt; null = erfolgreich, sonst der Grund
+    @FunctionalInterface
+    private interface Step {
+        String stage(Transaction transaction);
+    }
+
+    // Vorläufiger Stand eines Teilnehmers während commit()
+    private static final class Staged<V extends Serializable> {
+        private final Participant<V> participant;
+        private PersistentLongMap<V> next;
+        private final Map<Long, Change<V>> changes = new LinkedHashMap<>();
+
+        Staged(Participant<V> participant) {
+            this.participant = participant;
+            this.next = participant.current();
+        }
+
+        String change(Operation operation, long key, V value, Transaction transaction) {
+            if (changes.containsKey(key)) {
+                return "ID " + key + " wird in dieser Transaktion mehrfach geändert";
+            }
+            V before = next.get(key);
+            if (operation == Operation.ADD && before != null) {
+                return "ID " + key + " existiert bereits";
+            }
+            if (operation != Operation.ADD && before == null) {
+                return "ID " + key + " nicht gefunden";
+            }
+            Change<V> change = new Change<>(key, before, operation == Operation.DELETE ? null : value);
+            String failure = participant.prepare(change, transaction);
+            if (failure != null) {
+                return failure;
+            }
+            changes.put(key, change);
+            next = change.after() == null ? next.remove(key) : next.put(key, change.after());
+            return null;
+        }
+
+        void release() {
+            changes.values().forEach(participant::release);
+        }
+
+        void apply() {
+            participant.apply(changes.values(), next);
+        }
+
+        void install(long version) {
+            participant.install(version, next);
+        }
+
+        LogStore<V> store() {
+            return participant.store();
+        }
+
+        byte[] encode(long transactionId) throws IOException {
+            List<MutationLog.Mutation<V>> mutations = new ArrayList<>(changes.size());
+            changes.values().forEach(change -> mutations.add(change.toMutation()));
+            return MutationLog.encodeBatch(transactionId, mutations);
+        }
+    }
+
+    private final Set<Participant<?>> participants = new LinkedHashSet<>();
+    private final List<Step> steps = new ArrayList<>();
+    private final Map<Participant<?>, Staged<?>> staged = new LinkedHashMap<>();
+    private final boolean partial; // Stapel: Schritte einzeln zulassen
+    private final List<String> results = new ArrayList<>();
+    private boolean executed;
+    private String error;
+
+    private Transaction(boolean partial) {
+        this.partial = partial;
+    }
+
+    public static Transaction begin() {
+        return new Transaction(false);
+    }
+
+    /**
+     * Beginnt einen Stapel: commit() führt alle zulässigen Schritte aus und
+     * überspringt die übrigen (siehe {@link #getResults()}).
+     */
+    public static Transaction batch() {
+        return new Transaction(true);
+    }
+
+    // ===== SCHRITTE =====
+
+    public <T extends Person> Transaction add(PersonManager<T> manager, T person) {
+        return change(manager.participant(), Operation.ADD, person.getPersonId(), person);
+    }
+
+    public <T extends Person> Transaction update(PersonManager<T> manager, T person) {
+        return change(manager.participant(), Operation.UPDATE, person.getPersonId(), person);
+    }
+
+    /**
+     * Ändert eine Person auf Grundlage ihres Stands beim commit(); zwischen
+     * Aufruf und commit() erfolgte Änderungen bleiben erhalten.
+     */
+    public <T extends Person> Transaction update(PersonManager<T> manager, long personId, Patch<T> patch) {
+        return patch(manager.participant(), personId, patch);
+    }
+
+    public <T extends Person> Transaction delete(PersonManager<T> manager, long personId) {
+        return change(manager.participant(), Operation.DELETE, personId, null);
+    }
+
+    public Transaction add(WardManager manager, Ward ward) {
+        return change(manager.participant(), Operation.ADD, ward.getWardId(), ward);
+    }
+
+    public Transaction update(WardManager manager, Ward ward) {
+        return change(manager.participant(), Operation.UPDATE, ward.getWardId(), ward);
+    }
+
+    public Transaction update(WardManager manager, int wardId, Patch<Ward> patch) {
+        return patch(manager.participant(), wardId, patch);
+    }
+
+    public Transaction delete(WardManager manager, int wardId) {
+        return change(manager.participant(), Operation.DELETE, wardId, null);
+    }
+
+    public Transaction add(TreatmentManager manager, Treatment treatment) {
+        return change(manager.participant(), Operation.ADD, treatment.getTreatmentId(), treatment);
+    }
+
+    public Transaction update(TreatmentManager manager, Treatment treatment) {
+        return change(manager.participant(), Operation.UPDATE, treatment.getTreatmentId(), treatment);
+    }
+
+    public Transaction update(TreatmentManager manager, long treatmentId, Patch<Treatment> patch) {
+        return patch(manager.participant(), treatmentId, patch);
+    }
+
+    public Transaction delete(TreatmentManager manager, long treatmentId) {
+        return change(manager.participant(), Operation.DELETE, treatmentId, null);
+    }
+
+    /**
+     * Verlegt alle Patienten einer Station. Welche Patienten das sind, wird
+     * erst beim commit() unter der Sperre bestimmt; zwischenzeitlich
+     * zugewiesene Patienten werden also mitverlegt.
+     *
+     * @param targetWardId Neue Station (null = Zuweisung aufheben)
+     */
+    public Transaction reassignWard(PersonManager<Patient> patients, int wardId, Integer targetWardId) {
+        Participant<Patient> participant = patients.participant();
+        participants.add(participant);
+        steps.add(transaction -> {
+            for (Patient patient : patients.wardMembers(wardId)) {
+                String failure = transaction.staged(participant).change(Operation.UPDATE, patient.getPersonId(),
+                        withWard(patient, targetWardId), transaction);
+                if (failure != null) {
+                    return failure;
+                }
+            }
+            return null;
+        });
+        return this;
+    }
+
+    /**
+     * Verlegt einen Patienten. Gelesen wird der Patient erst beim commit()
+     * unter der Sperre; gleichzeitige Änderungen anderer Felder bleiben
+     * also erhalten.
+     *
+     * @param targetWardId Neue Station (null = Zuweisung aufheben)
+     */
+    public Transaction moveToWard(PersonManager<Patient> patients, long patientId, Integer targetWardId) {
+        Participant<Patient> participant = patients.participant();
+        participants.add(participant);
+        steps.add(transaction -> {
+            Patient patient = transaction.view(participant).get(patientId);
+            if (patient == null) {
+                return "Patient " + patientId + " nicht gefunden";
+            }
+            return transaction.staged(participant).change(Operation.UPDATE, patientId,
+                    withWard(patient, targetWardId), transaction);
+        });
+        return this;
+    }
+
+    // Kopie des Patienten mit neuer Station (Copy-on-Write)
+    private static Patient withWard(Patient patient, Integer wardId) {
+        return Patient.restore(patient.getPersonId(), patient.getName(), patient.getFirstname(),
+                patient.getPhonenumber(), patient.getEmail(), patient.getBirthdate(), patient.getAdress(), wardId);
+    }
+
+    private <V extends Serializable> Transaction patch(Participant<V> participant, long key, Patch<V> patch) {
+        participants.add(participant);
+        steps.add(transaction -> {
+            V current = transaction.view(participant).get(key);
+            if (current == null) {
+                return "ID " + key + " nicht gefunden";
+            }
+            V updated;
+            try {
+                updated = patch.apply(current);
+            } catch (Exception e) {
+                return e.getMessage();
+            }
+            if (updated == null) {
+                return "ID " + key + " konnte nicht geändert werden";
+            }
+            return transaction.staged(participant).change(Operation.UPDATE, key, updated, transaction);
+        });
+        return this;
+    }
+
+    private <V extends Serializable> Transaction change(Participant<V> participant, Operation operation, long key,
+            V value) {
+        participants.add(participant);
+        steps.add(transaction -> transaction.staged(participant).change(operation, key, value, transaction));
+        return this;
+    }
+
+    // ===== AUSFÜHRUNG =====
+
+    /**
+     * Führt alle Schritte atomar aus.
+     *
+     * @return true wenn alle Schritte ausgeführt wurden; false wenn einer
+     *         unzulässig war - dann wurde nichts geändert (beim Stapel: nur
+     *         dieser Schritt nicht)
+     * @throws IllegalStateException wenn die Transaktion bereits ausgeführt wurde
+     */
+    public boolean commit() {
+        if (executed) {
+            throw new IllegalStateException("Transaktion wurde bereits ausgeführt");
+        }
+        executed = true;
+        Set<Participant<?>> locked = new LinkedHashSet<>(participants);
+        participants.forEach(participant -> locked.addAll(participant.dependencies()));
+        List<ManagerLock> locks = new ArrayList<>();
+        locked.forEach(participant -> locks.add(participant.lock()));
+        return ManagerLock.writeAll(locks, () -> execute(locked));
+    }
+
+    /**
+     * @return Grund des Abbruchs (null, wenn nicht abgebrochen)
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return Ergebnis je Schritt in Reihenfolge der Schritte: null wenn
+     *         ausgeführt, sonst der Grund
+     */
+    public List<String> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Vorläufiger Bestand eines Teilnehmers; für nur gelesene (nicht
+     * gesperrte) Manager der aktuelle Bestand.
+     */
+    <V extends Serializable> PersistentLongMap<V> view(Participant<V> participant) {
+        Staged<?> staging = staged.get(participant);
+        @SuppressWarnings("unchecked")
+        PersistentLongMap<V> map = staging != null ? ((Staged<V>) staging).next : participant.current();
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V extends Serializable> Staged<V> staged(Participant<V> participant) {
+        return (Staged<V>) staged.get(participant);
+    }
+
+    private boolean execute(Set<Participant<?>> locked) {
+        for (Participant<?> participant : locked) {
+            staged.put(participant, new Staged<>(participant));
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            String failure = steps.get(i).stage(this);
+            if (failure != null && !partial) {
+                return abort("Schritt " + (i + 1) + ": " + failure);
+            }
+            results.add(failure);
+        }
+
+        List<Staged<?>> changed = new ArrayList<>();
+        staged.values().stream().filter(staging -> !staging.changes.isEmpty()).forEach(changed::add);
+        if (changed.isEmpty()) {
+            return results.stream().allMatch(result -> result == null); // nichts zu veröffentlichen
+        }
+        changed.forEach(Staged::apply);
+        VersionClock.global().publish(version -> changed.forEach(staging -> staging.install(version)));
+        persist(changed); // wie bei Einzeländerungen erst nach dem Ändern protokollieren (siehe LogStore)
+        return results.stream().allMatch(result -> result == null);
+    }
+
+    private boolean abort(String reason) {
+        staged.values().forEach(Staged::release);
+        results.clear();
+        steps.forEach(step -> results.add(reason));
+        error = reason;
+        System.err.println("FEHLER: Transaktion abgebrochen - " + reason);
+        return false;
+    }
+
+    /**
+     * Ein Batch je Log; bei mehreren Logs zuerst ein gemeinsamer, als
+     * einziger synchronisierter Eintrag im Transaktions-Journal.
+     */
+    private void persist(List<Staged<?>> changed) {
+        List<Staged<?>> persistent = new ArrayList<>();
+        changed.stream().filter(staging -> staging.store() != null).forEach(persistent::add);
+        if (persistent.isEmpty()) {
+            return;
+        }
+        long transactionId = persistent.size() > 1 ? TransactionJournal.newTransactionId() : 0;
+        Map<LogStore<?>, byte[]> batches = new LinkedHashMap<>();
+        Map<String, byte[]> byFile = new LinkedHashMap<>();
+        try {
+            for (Staged<?> staging : persistent) {
+                byte[] batch = staging.encode(transactionId);
+                batches.put(staging.store(), batch);
+                byFile.put(staging.store().getFilename(), batch);
+            }
+        } catch (IOException e) {
+            System.err.println("Fehler beim Kodieren der Transaktion: " + e.getMessage());
+            return;
+        }
+
+        if (persistent.size() == 1) {
+            batches.forEach((store, batch) -> store.recordBatch(batch, false));
+            return;
+        }
+        TransactionJournal journal = TransactionJournal.forFile(persistent.get(0).store().getFilename());
+        if (!journal.commit(byFile, () -> batches.forEach((store, batch) -> store.recordBatch(batch, true)))) {
+            // Ohne Journal wenigstens die einzelnen Logs schreiben (je Log weiterhin vollständig)
+            batches.forEach((store, batch) -> store.recordBatch(batch, false));
+        }
+    }
+}
@@ -2,18 +2,59 @@ package com.healthsphere.manager;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.healthsphere.components.Employee;
 import com.healthsphere.components.Patient;
 import com.healthsphere.components.Treatment;
-import com.healthsphere.serialization.SerializationManager;
+import com.healthsphere.index.LongHashIndex;
+import com.healthsphere.index.LongHashSet;
+import com.healthsphere.index.PersistentLongMap;
+import com.healthsphere.index.SortedIndex;
+import com.healthsphere.serialization.IdSequence;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.MutationLog;
 
+/**
+ * Verwaltung aller Behandlungen.
+ *
+ * Neben dem Bestand werden Indizes nach ID (sortiert), Patient, Arzt
+ * und Datum (sortiert nach Epoch-Tag) mitgeführt, sodass Abfragen nach
+ * Patient, Arzt oder Tag sowie einzelne Seiten nur Zeit proportional zur
+ * Ergebnisgröße brauchen. Für jede angefragte Sortierung entsteht zusätzlich
+ * ein sortierter Index (getSortedPage).
+ *
+ * Änderungen sind über {@link ManagerLock} synchronisiert und
+ * veröffentlichen jeweils eine neue unveränderliche Version des Bestands
+ * (PersistentLongMap); findById und getAll lesen sie ohne Sperre und ohne
+ * Kopie. Behandlungen werden dabei nicht verändert, sondern durch eine
+ * geänderte Kopie ersetzt. Über {@link VersionClock} lassen sich Behandlungen
+ * zum selben Stand wie Patienten und Stationen lesen. Index-Abfragen liefern
+ * unter der Lesesperre gefüllte Listen.
+ */
 public class TreatmentManager {
-    private Set<Treatment> treatmentSet = new HashSet<>();
+    private volatile PersistentLongMap<Treatment> byId = PersistentLongMap.empty(); // veröffentlichte Version
+    private final VersionHistory<Treatment> history = new VersionHistory<>(VersionClock.global()); // für Snapshots
+    private NavigableMap<Integer, Treatment> byIdOrdered = new TreeMap<>(); // sortierter ID-Index für getPage()
+    private LongHashIndex<LongHashSet> byPatient = new LongHashIndex<>(); // patientPersonId -> Behandlungs-IDs
+    private LongHashIndex<LongHashSet> byDoctor = new LongHashIndex<>(); // doctorPersonId -> Behandlungs-IDs
+    private NavigableMap<Long, LongHashSet> byDate = new TreeMap<>(); // Epoch-Tag -> Behandlungs-IDs
+    private final Map<String, SortedIndex<Treatment>> sortedIndexes = new ConcurrentHashMap<>(); // ?sort=
+    private final ManagerLock lock = new ManagerLock(); // Änderungen, Indizes und Log
     private String filename; // Dateiname für automatisches Speichern
+    private LogStore<Treatment> store; // Snapshot + Mutation-Log
+    private IdSequence idSequence = IdSequence.forFile(null); // persistente ID-Folge
     private boolean autoSaveEnabled = true;
+    private PersonManager<Patient> patientManager; // gemeinsame Instanzen für Namen in toString()
+    private PersonManager<Employee> employeeManager;
+    private final FallbackManager<PersonManager<Patient>> fallbackPatients = new FallbackManager<>(
+            () -> new PersonManager<>(FallbackManager.siblingFile(filename, "patients.ser")));
+    private final FallbackManager<PersonManager<Employee>> fallbackEmployees = new FallbackManager<>(
+            () -> new PersonManager<>(FallbackManager.siblingFile(filename, "employees.ser")));
+    private final Transaction.Participant<Treatment> participant = new Staging(); // für Transaction
 
     // Konstruktor ohne Auto-Save
     public TreatmentManager() {
@@ -22,84 +63,389 @@ public class TreatmentManager {
     // Konstruktor mit Auto-Save
     public TreatmentManager(String filename) {
         this.filename = filename;
+        this.store = new LogStore<>(filename);
+        this.idSequence = IdSequence.forFile(filename);
         this.autoSaveEnabled = true;
         load(); // Automatisch laden beim Start
     }
 
     // Auto-Save nachträglich aktivieren
     public void enableAutoSave(String filename) {
-        this.filename = filename;
-        this.autoSaveEnabled = true;
+        lock.write(() -> {
+            this.filename = filename;
+            this.store = new LogStore<>(filename);
+            this.idSequence = IdSequence.forFile(filename);
+            byId.forEach(treatment -> idSequence.observe(treatment.getTreatmentId()));
+            this.autoSaveEnabled = true;
+            return null;
+        });
     }
 
     public void disableAutoSave() {
         this.autoSaveEnabled = false;
     }
 
-    private void autoSave() {
-        if (autoSaveEnabled && filename != null) {
-            SerializationManager.saveToFile(treatmentSet, filename);
+    /**
+     * Verdrahtet die gemeinsamen Personen-Manager, über die Patienten- und
+     * Arztnamen aufgelöst werden.
+     */
+    public void setPersonManagers(PersonManager<Patient> patientManager, PersonManager<Employee> employeeManager) {
+        this.patientManager = patientManager;
+        this.employeeManager = employeeManager;
+    }
+
+    // Verdrahtete Manager oder - ohne Verdrahtung - einmalig aus den Dateien neben der eigenen Datei
+    private PersonManager<Patient> patients() {
+        PersonManager<Patient> patients = patientManager;
+        return patients != null ? patients : fallbackPatients.get();
+    }
+
+    private PersonManager<Employee> employees() {
+        PersonManager<Employee> employees = employeeManager;
+        return employees != null ? employees : fallbackEmployees.get();
+    }
+
+    // Einzelne Änderung ins Mutation-Log schreiben
+    private void autoSave(MutationLog.Operation operation, Treatment treatment) {
+        if (autoSaveEnabled && store != null) {
+            switch (operation) {
+                case ADD -> store.recordAdd(treatment);
+                case UPDATE -> store.recordUpdate(treatment);
+                case DELETE -> store.recordDelete(treatment);
+            }
         }
     }
 
-    public boolean addTreatment(Treatment treatment) {
-        boolean result = treatmentSet.add(treatment);
-        if (result) {
-            autoSave(); // Speichern nur bei erfolgreicher Änderung
+    // ===== INDIZES =====
+
+    // Alle Indizes außer byId; nur unter der Schreibsperre
+    private void indexInsert(Treatment treatment) {
+        long id = treatment.getTreatmentId();
+        // Comparatoren zuerst: schlägt einer fehl, ist byIdOrdered noch unverändert
+        for (SortedIndex<Treatment> index : sortedIndexes.values()) {
+            index.add(treatment);
+        }
+        byIdOrdered.put(treatment.getTreatmentId(), treatment);
+        idsFor(byPatient, treatment.getPatientPersonId()).add(id);
+        idsFor(byDoctor, treatment.getDoctorPersonId()).add(id);
+        if (treatment.getDate() != null) {
+            byDate.computeIfAbsent(treatment.getDate().toEpochDay(), k -> new LongHashSet()).add(id);
         }
-        return result;
     }
 
-    public boolean deleteTreatment(long treatmentId) {
-        boolean result = treatmentSet.removeIf(t -> t.getTreatmentId() == treatmentId);
-        if (result) {
-            autoSave(); // Speichern nur bei erfolgreicher Änderung
+    private void indexRemove(Treatment treatment) {
+        long id = treatment.getTreatmentId();
+        byIdOrdered.remove(treatment.getTreatmentId());
+        for (SortedIndex<Treatment> index : sortedIndexes.values()) {
+            index.remove(treatment);
         }
+        removeId(byPatient, treatment.getPatientPersonId(), id);
+        removeId(byDoctor, treatment.getDoctorPersonId(), id);
+        if (treatment.getDate() != null) {
+            long day = treatment.getDate().toEpochDay();
+            LongHashSet ids = byDate.get(day);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                byDate.remove(day);
+            }
+        }
+    }
+
+    private static LongHashSet idsFor(LongHashIndex<LongHashSet> index, long key) {
+        LongHashSet ids = index.get(key);
+        if (ids == null) {
+            ids = new LongHashSet();
+            index.put(key, ids);
+        }
+        return ids;
+    }
+
+    private static void removeId(LongHashIndex<LongHashSet> index, long key, long id) {
+        LongHashSet ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void rebuildIndexes(Set<Treatment> treatments) {
+        byIdOrdered = new TreeMap<>();
+        sortedIndexes.values().forEach(SortedIndex::clear);
+        byPatient = new LongHashIndex<>();
+        byDoctor = new LongHashIndex<>();
+        byDate = new TreeMap<>();
+        PersistentLongMap.Builder<Treatment> loaded = PersistentLongMap.builder();
+        for (Treatment treatment : treatments) {
+            loaded.put(treatment.getTreatmentId(), treatment);
+            indexInsert(treatment);
+            idSequence.observe(treatment.getTreatmentId());
+        }
+        publish(loaded.build());
+    }
+
+    // Neuen Bestand für findById/getAll und unter der nächsten globalen Version veröffentlichen
+    private void publish(PersistentLongMap<Treatment> next) {
+        byId = next;
+        history.publish(next);
+    }
+
+    // Ersetzt eine Behandlung mit einer einzigen neuen Version (nur unter der Schreibsperre)
+    private void replace(Treatment existing, Treatment updated) {
+        indexRemove(existing);
+        indexInsert(updated);
+        publish(byId.put(updated.getTreatmentId(), updated));
+    }
+
+    // Löst Behandlungs-IDs eines Index-Eintrags über den ID-Index auf
+    private Set<Treatment> resolve(LongHashSet ids) {
+        if (ids == null) {
+            return new HashSet<>();
+        }
+        Set<Treatment> result = new HashSet<>(ids.size() * 2);
+        PersistentLongMap<Treatment> treatments = byId;
+        ids.forEach(id -> result.add(treatments.get(id)));
         return result;
     }
 
+    public boolean addTreatment(Treatment treatment) {
+        idSequence.observe(treatment.getTreatmentId()); // vorgegebene IDs nicht erneut vergeben
+        return lock.write(() -> {
+            if (byId.containsKey(treatment.getTreatmentId())) {
+                return false;
+            }
+            indexInsert(treatment);
+            publish(byId.put(treatment.getTreatmentId(), treatment));
+            autoSave(MutationLog.Operation.ADD, treatment); // Speichern nur bei erfolgreicher Änderung
+            return true;
+        });
+    }
+
+    public boolean deleteTreatment(long treatmentId) {
+        return lock.write(() -> {
+            Treatment treatment = byId.get(treatmentId);
+            if (treatment == null) {
+                return false;
+            }
+            indexRemove(treatment);
+            publish(byId.remove(treatmentId));
+            autoSave(MutationLog.Operation.DELETE, treatment); // Speichern nur bei erfolgreicher Änderung
+            return true;
+        });
+    }
+
     public Treatment findById(long treatmentId) {
-        for (Treatment t : treatmentSet) {
-            if (t.getTreatmentId() == treatmentId)
-                return t;
+        return byId.get(treatmentId); // aktuelle Version, ohne Sperre
+    }
+
+    /**
+     * @return Alle Behandlungen eines Patienten (über den Patienten-Index)
+     */
+    public Set<Treatment> findByPatient(long patientPersonId) {
+        return lock.read(() -> resolve(byPatient.get(patientPersonId)));
+    }
+
+    /**
+     * @return Alle Behandlungen eines Arztes (über den Arzt-Index)
+     */
+    public Set<Treatment> findByDoctor(long doctorPersonId) {
+        return lock.read(() -> resolve(byDoctor.get(doctorPersonId)));
+    }
+
+    /**
+     * @return Alle Behandlungen an einem Tag (über den Datums-Index)
+     */
+    public Set<Treatment> findByDate(LocalDate date) {
+        return lock.read(() -> resolve(byDate.get(date.toEpochDay())));
+    }
+
+    /**
+     * Liefert Behandlungen in einem Datumsbereich, optional eingeschränkt auf
+     * einen Patienten und/oder Arzt, bereits in der Reihenfolge
+     * {@link Treatment#BY_DATE_ASC} bzw. {@link Treatment#BY_DATE_DESC}.
+     *
+     * Der Datums-Index wird nur im angefragten Bereich Tag für Tag
+     * durchlaufen; sortiert werden jeweils nur die IDs eines Tages. Ohne Datumsgrenzen, aber mit Patient oder Arzt, wird stattdessen
+     * dessen Index verwendet und nur das Ergebnis sortiert.
+     *
+     * @param from      Erster Tag (inklusive, null = offen)
+     * @param to        Letzter Tag (inklusive, null = offen)
+     * @param patientId Patient (null = alle)
+     * @param doctorId  Arzt (null = alle)
+     * @param ascending true = älteste zuerst, false = neueste zuerst
+     * @return Alle Behandlungen des Bereichs; der Stream läuft über eine
+     *         vollständig unter der Lesesperre gesammelte Liste (für Seiten
+     *         die Variante mit limit verwenden)
+     * @throws IllegalArgumentException wenn from nach to liegt
+     */
+    public Stream<Treatment> findInRange(LocalDate from, LocalDate to, Long patientId, Long doctorId,
+            boolean ascending) {
+        return findInRange(from, to, patientId, doctorId, ascending, null, Integer.MAX_VALUE).stream();
+    }
+
+    /**
+     * Wie {@link #findInRange(LocalDate, LocalDate, Long, Long, boolean)},
+     * beginnt aber hinter der Behandlung after (Keyset-Pagination) und liest
+     * nur bis zu limit Behandlungen (z.B. limit + 1 für eine Seite): der
+     * Datumsbereich wird auf den Tag von after verkürzt und unter der
+     * Lesesperre nur so weit durchlaufen, bis limit Treffer gefunden sind.
+     *
+     * @param after ID der letzten Behandlung der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Behandlungen
+     * @throws IllegalArgumentException wenn after nicht (mehr) existiert
+     */
+    public List<Treatment> findInRange(LocalDate from, LocalDate to, Long patientId, Long doctorId,
+            boolean ascending, Long after, int limit) {
+        return lock.read(() -> rangeStream(from, to, patientId, doctorId, ascending, after)
+                .limit(limit)
+                .collect(Collectors.toList()));
+    }
+
+    // Lazy über die Indizes; nur unter der Lesesperre konsumieren
+    private Stream<Treatment> rangeStream(LocalDate from, LocalDate to, Long patientId, Long doctorId,
+            boolean ascending, Long after) {
+        Comparator<Treatment> order = ascending ? Treatment.BY_DATE_ASC : Treatment.BY_DATE_DESC;
+        boolean usePersonIndex = from == null && to == null && (patientId != null || doctorId != null);
+        Treatment anchor = null;
+        if (after != null) {
+            anchor = byId.get(after);
+            if (anchor == null) {
+                throw new IllegalArgumentException("Cursor " + after + " existiert nicht");
+            }
+            // Ohne Datum steht der Cursor am Ende; dann grenzt er den Bereich nicht ein
+            LocalDate anchorDate = anchor.getDate();
+            if (anchorDate != null && ascending && (from == null || from.isBefore(anchorDate))) {
+                from = anchorDate;
+            } else if (anchorDate != null && !ascending && (to == null || to.isAfter(anchorDate))) {
+                to = anchorDate;
+            }
         }
-        return null;
+        Treatment cursor = anchor;
+        Predicate<Treatment> matches = t -> (patientId == null || t.getPatientPersonId() == patientId)
+                && (doctorId == null || t.getDoctorPersonId() == doctorId)
+                && (cursor == null || order.compare(t, cursor) > 0);
+
+        if (usePersonIndex) {
+            Set<Treatment> candidates = resolve(patientId != null ? byPatient.get(patientId) : byDoctor.get(doctorId));
+            return candidates.stream()
+                    .filter(matches)
+                    .sorted(order);
+        }
+
+        NavigableMap<Long, LongHashSet> days = byDate;
+        if (from != null && to != null) {
+            days = byDate.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+        } else if (from != null) {
+            days = byDate.tailMap(from.toEpochDay(), true);
+        } else if (to != null) {
+            days = byDate.headMap(to.toEpochDay(), true);
+        }
+        if (!ascending) {
+            days = days.descendingMap();
+        }
+
+        // Innerhalb eines Tages nach ID aufsteigend, wie in beiden Comparatoren
+        return days.values().stream()
+                .flatMap(ids -> {
+                    long[] sorted = ids.toArray();
+                    Arrays.sort(sorted);
+                    return Arrays.stream(sorted).mapToObj(id -> byId.get(id));
+                })
+                .filter(matches);
     }
 
+    // Unveränderliche Version ohne Kopie; bleibt stabil, während weiter geändert wird
     public Set<Treatment> getAll() {
-        return treatmentSet;
+        return byId.asSet(Treatment::getTreatmentId);
+    }
+
+    // Behandlungen zur festgehaltenen Version (siehe VersionClock)
+    public Set<Treatment> getAll(VersionClock.Snapshot snapshot) {
+        return history.at(snapshot).asSet(Treatment::getTreatmentId);
+    }
+
+    public Treatment findById(long treatmentId, VersionClock.Snapshot snapshot) {
+        return history.at(snapshot).get(treatmentId);
+    }
+
+    /**
+     * Gibt eine Seite in ID-Reihenfolge zurück (Keyset-Pagination über den
+     * sortierten ID-Index). Die Kosten hängen nur von der Seitengröße ab.
+     *
+     * @param after ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Einträge
+     * @return Einträge mit ID größer after, aufsteigend nach ID
+     */
+    public List<Treatment> getPage(Integer after, int limit) {
+        return lock.read(() -> {
+            NavigableMap<Integer, Treatment> view = after != null ? byIdOrdered.tailMap(after, false) : byIdOrdered;
+            return view.values().stream().limit(limit).collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Gibt eine Seite in der Reihenfolge order zurück. Der zugehörige
+     * sortierte Index wird beim ersten Aufruf für sortKey einmal aufgebaut
+     * und danach bei jeder Änderung mitgeführt.
+     *
+     * @param sortKey Name der Sortierung (ein Index je Name)
+     * @param order   Reihenfolge; muss für denselben sortKey immer gleich sein
+     * @param after   ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit   Maximale Anzahl Einträge
+     * @throws IllegalArgumentException wenn after nicht (mehr) existiert
+     */
+    public List<Treatment> getSortedPage(String sortKey, Comparator<? super Treatment> order, Integer after,
+            int limit) {
+        return lock.read(() -> {
+            SortedIndex<Treatment> index = sortedIndexes.computeIfAbsent(sortKey, key -> {
+                SortedIndex<Treatment> created = new SortedIndex<>(order, Treatment::getTreatmentId);
+                created.addAll(getAll());
+                return created;
+            });
+            Treatment anchor = null;
+            if (after != null) {
+                anchor = byId.get(after);
+                if (anchor == null) {
+                    throw new IllegalArgumentException("Cursor " + after + " existiert nicht");
+                }
+            }
+            return index.page(anchor, limit);
+        });
     }
 
     public Set<Treatment> filter(Predicate<Treatment> criteria) {
-        return treatmentSet.stream()
+        return getAll().stream()
                 .filter(criteria)
                 .collect(Collectors.toSet());
     }
 
     public boolean updateTherapy(long treatmentId, String newTherapy) {
-        Treatment t = findById(treatmentId);
-        if (t != null) {
-            t.setTherapy(newTherapy);
-            autoSave(); // Speichern nach Update
-            return true;
-        }
-        return false;
+        return lock.write(() -> {
+            Treatment t = byId.get(treatmentId);
+            if (t != null) {
+                // Copy-on-Write: Leser älterer Versionen sehen die Behandlung unverändert
+                Treatment updated = new Treatment(t.getTreatmentId(), t.getDate(), newTherapy,
+                        t.getPatientPersonId(), t.getDoctorPersonId());
+                replace(t, updated); // Therapie ist Sortierschlüssel
+                autoSave(MutationLog.Operation.UPDATE, updated); // Speichern nach Update
+                return true;
+            }
+            return false;
+        });
     }
 
     public boolean updateTreatment(long treatmentId, String newTherapy, long newPatientId, long newDoctorId) {
-        Treatment treatment = findById(treatmentId);
-        if (treatment != null) {
-            if (newTherapy != null)
-                treatment.setTherapy(newTherapy);
-            if (newPatientId > 0)
-                treatment.setPatientPersonId(newPatientId);
-            if (newDoctorId > 0)
-                treatment.setDoctorPersonId(newDoctorId);
-
-            autoSave(); // Speichern nach Update
-            return true;
-        }
-        return false;
+        return lock.write(() -> {
+            Treatment treatment = byId.get(treatmentId);
+            if (treatment != null) {
+                Treatment updated = new Treatment(treatment.getTreatmentId(), treatment.getDate(),
+                        newTherapy != null ? newTherapy : treatment.getTherapy(),
+                        newPatientId > 0 ? newPatientId : treatment.getPatientPersonId(),
+                        newDoctorId > 0 ? newDoctorId : treatment.getDoctorPersonId());
+                replace(treatment, updated); // Patient/Arzt/Therapie können sich ändern
+
+                autoSave(MutationLog.Operation.UPDATE, updated); // Speichern nach Update
+                return true;
+            }
+            return false;
+        });
     }
 
     public boolean addTreatmentWithAutoId(LocalDate date, String therapy,
@@ -109,55 +455,187 @@ public class TreatmentManager {
         return addTreatment(treatment);
     }
 
-    private int generateUniqueTreatmentId() {
-        if (treatmentSet.isEmpty()) {
-            return 1;
+    // Nächste ID aus der persistenten ID-Folge (konstante Zeit, thread-sicher)
+    public int generateUniqueTreatmentId() {
+        return (int) idSequence.next();
+    }
+
+    // ===== TRANSAKTIONEN =====
+
+    /**
+     * Legt einen Patienten samt erster Behandlung in einer Transaktion an:
+     * Entweder existieren danach beide (inkl. Platz auf der Station) oder
+     * keiner von beiden.
+     *
+     * @return Die angelegte Behandlung oder null, wenn nichts angelegt wurde
+     */
+    public Treatment addPatientWithTreatment(String name, String firstname, String phonenumber, String email,
+            LocalDate birthdate, String adress, Integer wardId, LocalDate date, String therapy,
+            long doctorPersonId) {
+        PersonManager<Patient> patients = patients();
+        try {
+            Patient patient = new Patient(patients.generateUniquePersonId(), name, firstname, phonenumber, email,
+                    birthdate, adress, wardId);
+            Treatment treatment = new Treatment(generateUniqueTreatmentId(), date, therapy,
+                    patient.getPersonId(), doctorPersonId);
+            return Transaction.begin()
+                    .add(patients, patient)
+                    .add(this, treatment)
+                    .commit() ? treatment : null;
+        } catch (Exception e) {
+            System.err.println("Fehler beim Anlegen von Patient und Behandlung: " + e.getMessage());
+            return null;
+        }
+    }
+
+    Transaction.Participant<Treatment> participant() {
+        return participant;
+    }
+
+    // ===== STAPELVERARBEITUNG =====
+
+    /**
+     * Fügt mehrere Behandlungen in einem Stapel hinzu, z.B. beim Nachtragen
+     * (siehe {@link #applyAll}).
+     *
+     * @return Ergebnis je Behandlung in Eingabereihenfolge: null bei Erfolg, sonst der Grund
+     */
+    public List<String> addAll(Collection<Treatment> added) {
+        return applyAll(added, List.of(), List.of());
+    }
+
+    public List<String> updateAll(Collection<Treatment> updated) {
+        return applyAll(List.of(), updated, List.of());
+    }
+
+    public List<String> deleteAll(Collection<Long> treatmentIds) {
+        return applyAll(List.of(), List.of(), treatmentIds);
+    }
+
+    /**
+     * Hinzufügen, Ändern und Löschen als ein Stapel (siehe
+     * {@link Transaction#batch()}): alle zulässigen Einträge unter einer
+     * Sperre und mit einem Log-Datensatz.
+     *
+     * @return Ergebnisse in der Reihenfolge added, updated, deleted: null bei
+     *         Erfolg, sonst der Grund
+     */
+    public List<String> applyAll(Collection<Treatment> added, Collection<Treatment> updated,
+            Collection<Long> deleted) {
+        Transaction batch = Transaction.batch();
+        added.forEach(treatment -> batch.add(this, treatment));
+        updated.forEach(treatment -> batch.update(this, treatment));
+        deleted.forEach(treatmentId -> batch.delete(this, treatmentId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    /**
+     * Wie {@link #applyAll(Collection, Collection, Collection)}, Änderungen
+     * aber als Patch je ID, berechnet aus dem Stand unter der Sperre.
+     */
+    public List<String> applyAll(Collection<Treatment> added, Map<Long, Transaction.Patch<Treatment>> patched,
+            Collection<Long> deleted) {
+        Transaction batch = Transaction.batch();
+        added.forEach(treatment -> batch.add(this, treatment));
+        patched.forEach((treatmentId, patch) -> batch.update(this, treatmentId, patch));
+        deleted.forEach(treatmentId -> batch.delete(this, treatmentId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    // Teilnahme an Transaction; Indizes wie in addTreatment/replace/deleteTreatment
+    private final class Staging implements Transaction.Participant<Treatment> {
+        @Override
+        public ManagerLock lock() {
+            return lock;
+        }
+
+        @Override
+        public PersistentLongMap<Treatment> current() {
+            return byId;
+        }
+
+        @Override
+        public String prepare(Transaction.Change<Treatment> change, Transaction transaction) {
+            if (change.before() == null) {
+                idSequence.observe(change.key()); // vorgegebene IDs nicht erneut vergeben
+            }
+            return null;
+        }
+
+        @Override
+        public void apply(Collection<Transaction.Change<Treatment>> changes, PersistentLongMap<Treatment> next) {
+            for (Transaction.Change<Treatment> change : changes) {
+                if (change.before() != null) {
+                    indexRemove(change.before());
+                }
+                if (change.after() != null) {
+                    indexInsert(change.after());
+                }
+            }
+            byId = next;
+        }
+
+        @Override
+        public void install(long version, PersistentLongMap<Treatment> next) {
+            history.install(version, next);
+        }
+
+        @Override
+        public LogStore<Treatment> store() {
+            return autoSaveEnabled ? store : null;
         }
-        return treatmentSet.stream()
-                .mapToInt(Treatment::getTreatmentId)
-                .max()
-                .orElse(0) + 1;
     }
 
-    // Manuelles Speichern
+    // Manuelles Speichern (Snapshot schreiben, Log leeren)
     public void save() {
-        if (filename != null) {
-            SerializationManager.saveToFile(treatmentSet, filename);
+        if (store != null) {
+            // Ohne Sperre: geschrieben wird eine unveränderliche Version
+            store.saveSnapshot(this::getAll);
         }
     }
 
-    // Laden von Datei
+    // Laden von Datei (Snapshot + Replay des Mutation-Logs)
     public void load() {
-        if (filename != null && SerializationManager.fileExists(filename)) {
-            Set<Treatment> loadedData = SerializationManager.loadFromFile(filename);
+        if (store != null) {
+            Set<Treatment> loadedData = store.load();
             if (loadedData != null) {
-                treatmentSet = loadedData;
+                lock.write(() -> {
+                    rebuildIndexes(loadedData);
+                    return null;
+                });
             }
         }
     }
 
+    public LogStore<Treatment> getStore() {
+        return store;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("TreatmentManager{\n");
         sb.append("  filename='").append(filename != null ? filename : "none").append("'\n");
         sb.append("  autoSaveEnabled=").append(autoSaveEnabled).append("\n");
-        sb.append("  totalTreatments=").append(treatmentSet.size()).append("\n");
+        Set<Treatment> treatments = getAll();
+        sb.append("  totalTreatments=").append(treatments.size()).append("\n");
 
-        if (!treatmentSet.isEmpty()) {
+        if (!treatments.isEmpty()) {
             sb.append("  treatments=[\n");
 
+            PersonManager<Patient> patients = patients();
+            PersonManager<Employee> employees = employees();
+
             // Sortiere Treatments nach ID für bessere Übersicht
-            treatmentSet.stream()
+            treatments.stream()
                     .sorted((t1, t2) -> Integer.compare(t1.getTreatmentId(), t2.getTreatmentId()))
                     .forEach(treatment -> {
                         try {
-                            // Versuche Patient und Doctor Namen zu laden
-                            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-                            PersonManager<Employee> employeeManager = new PersonManager<>("employees.ser");
-
-                            Patient patient = patientManager.findById(treatment.getPatientPersonId());
-                            Employee doctor = employeeManager.findById(treatment.getDoctorPersonId());
+                            // Patient und Doctor Namen auflösen
+                            Patient patient = patients.findById(treatment.getPatientPersonId());
+                            Employee doctor = employees.findById(treatment.getDoctorPersonId());
 
                             String patientName = patient != null ? patient.getFirstname() + " " + patient.getName()
                                     : "Unknown (ID:" + treatment.getPatientPersonId() + ")";
@@ -0,0 +1,110 @@
+package com.healthsphere.manager;
+
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Globale Versionsnummer über alle Manager (MVCC).
+ *
+ * Jede Änderung eines Managers veröffentlicht ihren neuen Bestand unter der
+ * nächsten Versionsnummer (siehe {@link VersionHistory}). Eine Anfrage kann
+ * mit {@link #pin()} die aktuelle Version festhalten und danach Patienten,
+ * Stationen und Behandlungen zu genau diesem Stand lesen - ohne Sperre, die
+ * Schreiber aufhält:
+ *
+ * <pre>
+ * try (VersionClock.Snapshot snapshot = VersionClock.global().pin()) {
+ *     Set&lt;Ward&gt; wards = wardManager.getAll(snapshot);
+ *     Set&lt;Patient&gt; patients = patientManager.getAll(snapshot);
+ * }
+ * </pre>
+ *
+ * Vergeben und Veröffentlichen einer Version geschehen gemeinsam unter dem
+ * Monitor der Uhr; eine festgehaltene Version ist also bei allen Managern
+ * vollständig eingetragen. Ältere Versionen werden beim nächsten
+ * Veröffentlichen verworfen, sobald kein Snapshot sie mehr festhält - offene
+ * Snapshots daher immer schließen.
+ */
+public final class VersionClock {
+    private static final VersionClock GLOBAL = new VersionClock();
+
+    private long last; // zuletzt vergebene Version, nur unter this
+    private volatile long current; // zuletzt vollständig veröffentlichte Version
+    private final TreeMap<Long, Integer> pinned = new TreeMap<>(); // Version -> offene Snapshots, nur unter this
+
+    VersionClock() {
+    }
+
+    /**
+     * @return Gemeinsame Uhr aller Manager
+     */
+    public static VersionClock global() {
+        return GLOBAL;
+    }
+
+    public long current() {
+        return current;
+    }
+
+    /**
+     * Hält die aktuelle Version fest, bis der Snapshot geschlossen wird.
+     */
+    public synchronized Snapshot pin() {
+        long version = current;
+        pinned.merge(version, 1, Integer::sum);
+        return new Snapshot(this, version);
+    }
+
+    /**
+     * Vergibt die nächste Version und lässt install die neuen Bestände
+     * eintragen. Mehrere Manager können so unter derselben Version
+     * veröffentlichen; erst danach wird die Version für pin() sichtbar.
+     */
+    synchronized long publish(LongConsumer install) {
+        long version = last + 1;
+        install.accept(version);
+        last = version;
+        current = version;
+        return version;
+    }
+
+    /**
+     * Älteste Version, die noch gelesen werden kann; nur innerhalb von
+     * {@link #publish} aufrufen.
+     *
+     * @param publishing gerade veröffentlichte Version
+     */
+    synchronized long retainFrom(long publishing) {
+        return pinned.isEmpty() ? publishing : pinned.firstKey();
+    }
+
+    private synchronized void release(long version) {
+        pinned.computeIfPresent(version, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Festgehaltene Version; wird mit close() freigegeben.
+     */
+    public static final class Snapshot implements AutoCloseable {
+        private final VersionClock clock;
+        private final long version;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Snapshot(VersionClock clock, long version) {
+            this.clock = clock;
+            this.version = version;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                clock.release(version);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.healthsphere.manager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.healthsphere.index.PersistentLongMap;
+
+/**
+ * Versionen des Bestands eines Managers für Snapshots über mehrere Manager
+ * (siehe {@link VersionClock}).
+ *
+ * Gespeichert werden nur Versionen, in denen sich der Bestand dieses
+ * Managers geändert hat; gelesen wird die jüngste Version, die nicht neuer
+ * als die festgehaltene ist. Dank PersistentLongMap teilen sich die
+ * Versionen fast alle Knoten.
+ *
+ * @param <V> Typ der verwalteten Objekte
+ */
+final class VersionHistory<V> {
+    private final VersionClock clock;
+    private final ConcurrentSkipListMap<Long, PersistentLongMap<V>> versions = new ConcurrentSkipListMap<>();
+
+    VersionHistory(VersionClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Veröffentlicht einen neuen Bestand unter der nächsten globalen Version.
+     * Nur unter der Schreibsperre des Managers aufrufen.
+     */
+    void publish(PersistentLongMap<V> map) {
+        clock.publish(version -> install(version, map));
+    }
+
+    /**
+     * Trägt einen Bestand unter version ein und verwirft Versionen, die kein
+     * Snapshot mehr lesen kann; nur innerhalb von {@link VersionClock#publish}.
+     */
+    void install(long version, PersistentLongMap<V> map) {
+        versions.put(version, map);
+        Long oldestReadable = versions.floorKey(clock.retainFrom(version));
+        if (oldestReadable != null) {
+            versions.headMap(oldestReadable, false).clear();
+        }
+    }
+
+    /**
+     * Ersetzt alle Versionen durch map, z.B. wenn im MAPPED-Modus der schon
+     * vorhandene Bestand erstmals aufgebaut wird (keine neue Änderung).
+     */
+    void reset(PersistentLongMap<V> map) {
+        versions.put(0L, map);
+        versions.tailMap(0L, false).clear();
+    }
+
+    /**
+     * @return Bestand zur festgehaltenen Version (leer, wenn es damals noch
+     *         keinen gab)
+     */
+    PersistentLongMap<V> at(VersionClock.Snapshot snapshot) {
+        Map.Entry<Long, PersistentLongMap<V>> entry = versions.floorEntry(snapshot.version());
+        return entry != null ? entry.getValue() : PersistentLongMap.empty();
+    }
+}
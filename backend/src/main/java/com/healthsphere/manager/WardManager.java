@@ -1,17 +1,26 @@
 package com.healthsphere.manager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.healthsphere.components.Patient;
 import com.healthsphere.components.Ward;
-import com.healthsphere.serialization.SerializationManager;
+import com.healthsphere.index.PersistentLongMap;
+import com.healthsphere.index.SortedIndex;
+import com.healthsphere.serialization.IdSequence;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.MutationLog;
 
 /**
  * Verwaltungsklasse für Krankenhausstationen im HealthSphere-System.
@@ -20,11 +29,28 @@ import com.healthsphere.serialization.SerializationManager;
  * Stationsmanagement inklusive Kapazitätsüberwachung und Integration
  * mit dem PatientManager für Echtzeit-Belegungsdaten.
  * 
+ * Änderungen sind über {@link ManagerLock} synchronisiert und
+ * veröffentlichen jeweils eine neue unveränderliche Version des Bestands
+ * (PersistentLongMap); findById und getAll lesen sie ohne Sperre. Stationen
+ * werden dabei nicht verändert, sondern durch eine geänderte Kopie ersetzt.
+ * Belegungsdaten werden erst nach dem Lesen der Stationen, außerhalb der
+ * eigenen Sperre, beim PatientManager abgefragt; die Übersicht über alle
+ * Stationen liest beide zur selben Version (VersionClock).
  */
 public class WardManager {
-    private Set<Ward> wardSet = new HashSet<>();
+    private volatile PersistentLongMap<Ward> wards = PersistentLongMap.empty(); // veröffentlichte Version
+    private final VersionHistory<Ward> history = new VersionHistory<>(VersionClock.global()); // für Snapshots
+    private NavigableMap<Integer, Ward> byId = new TreeMap<>(); // sortierter ID-Index für getPage()
+    private final Map<String, SortedIndex<Ward>> sortedIndexes = new ConcurrentHashMap<>(); // ?sort=
+    private final ManagerLock lock = new ManagerLock(); // Änderungen, Indizes und Log
     private String filename; // Dateiname für automatisches Speichern
+    private LogStore<Ward> store; // Snapshot + Mutation-Log
+    private IdSequence idSequence = IdSequence.forFile(null); // persistente ID-Folge
     private boolean autoSaveEnabled = true;
+    private PersonManager<Patient> patientManager; // gemeinsame Instanz für Belegungsdaten
+    private final FallbackManager<PersonManager<Patient>> fallbackPatients = new FallbackManager<>(
+            () -> new PersonManager<>(FallbackManager.siblingFile(filename, "patients.ser")));
+    private final Transaction.Participant<Ward> participant = new Staging(); // für Transaction
 
     // Konstruktor ohne Auto-Save
     public WardManager() {
@@ -33,79 +59,309 @@ public class WardManager {
     // Konstruktor mit Auto-Save
     public WardManager(String filename) {
         this.filename = filename;
+        this.store = new LogStore<>(filename);
+        this.idSequence = IdSequence.forFile(filename);
         this.autoSaveEnabled = true;
         load(); // Automatisch laden beim Start
     }
 
     // Auto-Save nachträglich aktivieren
     public void enableAutoSave(String filename) {
-        this.filename = filename;
-        this.autoSaveEnabled = true;
+        lock.write(() -> {
+            this.filename = filename;
+            this.store = new LogStore<>(filename);
+            this.idSequence = IdSequence.forFile(filename);
+            wards.forEach(ward -> idSequence.observe(ward.getWardId()));
+            this.autoSaveEnabled = true;
+            return null;
+        });
     }
 
     public void disableAutoSave() {
         this.autoSaveEnabled = false;
     }
 
-    private void autoSave() {
-        if (autoSaveEnabled && filename != null) {
-            SerializationManager.saveToFile(wardSet, filename);
+    /**
+     * Verdrahtet den gemeinsamen PatientManager, aus dessen Speicherstand
+     * alle Belegungsdaten berechnet werden.
+     */
+    public void setPatientManager(PersonManager<Patient> patientManager) {
+        this.patientManager = patientManager;
+    }
+
+    // Verdrahteter PatientManager oder - ohne Verdrahtung - einmalig aus patients.ser neben der eigenen Datei
+    private PersonManager<Patient> patients() {
+        PersonManager<Patient> patients = patientManager;
+        return patients != null ? patients : fallbackPatients.get();
+    }
+
+    // Einzelne Änderung ins Mutation-Log schreiben
+    private void autoSave(MutationLog.Operation operation, Ward ward) {
+        if (autoSaveEnabled && store != null) {
+            switch (operation) {
+                case ADD -> store.recordAdd(ward);
+                case UPDATE -> store.recordUpdate(ward);
+                case DELETE -> store.recordDelete(ward);
+            }
         }
     }
 
+    // Neuen Bestand für findById/getAll und unter der nächsten globalen Version veröffentlichen
+    private void publish(PersistentLongMap<Ward> next) {
+        wards = next;
+        history.publish(next);
+    }
+
     // Add a new ward
     public boolean addWard(Ward ward) {
-        boolean result = wardSet.add(ward); // returns false if Ward with same ID already exists
-        if (result) {
-            autoSave(); // Speichern nur bei erfolgreicher Änderung
-        }
-        return result;
+        idSequence.observe(ward.getWardId()); // vorgegebene IDs nicht erneut vergeben
+        return lock.write(() -> {
+            if (wards.containsKey(ward.getWardId())) {
+                return false; // Ward mit gleicher ID existiert bereits
+            }
+            byId.put(ward.getWardId(), ward);
+            sortedIndexes.values().forEach(index -> index.add(ward));
+            publish(wards.put(ward.getWardId(), ward));
+            autoSave(MutationLog.Operation.ADD, ward); // Speichern nur bei erfolgreicher Änderung
+            return true;
+        });
     }
 
     // Remove a ward by ID
     public boolean deleteWard(int wardId) {
-        boolean result = wardSet.removeIf(w -> w.getWardId() == wardId);
-        if (result) {
-            autoSave(); // Speichern nur bei erfolgreicher Änderung
-        }
-        return result;
+        return lock.write(() -> {
+            Ward ward = wards.get(wardId);
+            if (ward == null) {
+                return false;
+            }
+            byId.remove(wardId);
+            sortedIndexes.values().forEach(index -> index.remove(ward));
+            publish(wards.remove(wardId));
+            autoSave(MutationLog.Operation.DELETE, ward); // Speichern nur bei erfolgreicher Änderung
+            return true;
+        });
     }
 
-    // Find a ward by ID
+    // Find a ward by ID (aktuelle Version, ohne Sperre)
     public Ward findById(int wardId) {
-        for (Ward ward : wardSet) {
-            if (ward.getWardId() == wardId) {
-                return ward;
-            }
-        }
-        return null;
+        return wards.get(wardId);
     }
 
-    // Return all wards
+    // Return all wards (unveränderliche Version ohne Kopie, stabil bei weiteren Änderungen)
     public Set<Ward> getAll() {
-        return wardSet;
+        return wards.asSet(Ward::getWardId);
+    }
+
+    // Stationen zur festgehaltenen Version (siehe VersionClock)
+    public Set<Ward> getAll(VersionClock.Snapshot snapshot) {
+        return history.at(snapshot).asSet(Ward::getWardId);
+    }
+
+    public Ward findById(int wardId, VersionClock.Snapshot snapshot) {
+        return history.at(snapshot).get(wardId);
+    }
+
+    /**
+     * Gibt eine Seite von Stationen in ID-Reihenfolge zurück
+     * (Keyset-Pagination über den sortierten ID-Index).
+     *
+     * @param after ID der letzten Station der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Einträge
+     */
+    public List<Ward> getPage(Integer after, int limit) {
+        return lock.read(() -> {
+            NavigableMap<Integer, Ward> view = after != null ? byId.tailMap(after, false) : byId;
+            return view.values().stream().limit(limit).collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Gibt eine Seite in der Reihenfolge order zurück. Der zugehörige
+     * sortierte Index wird beim ersten Aufruf für sortKey einmal aufgebaut
+     * und danach bei jeder Änderung mitgeführt.
+     *
+     * @param sortKey Name der Sortierung (ein Index je Name)
+     * @param order   Reihenfolge; muss für denselben sortKey immer gleich sein
+     * @param after   ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit   Maximale Anzahl Einträge
+     * @throws IllegalArgumentException wenn after nicht (mehr) existiert
+     */
+    public List<Ward> getSortedPage(String sortKey, Comparator<? super Ward> order, Integer after, int limit) {
+        return lock.read(() -> {
+            SortedIndex<Ward> index = sortedIndexes.computeIfAbsent(sortKey, key -> {
+                SortedIndex<Ward> created = new SortedIndex<>(order, Ward::getWardId);
+                created.addAll(getAll());
+                return created;
+            });
+            Ward anchor = null;
+            if (after != null) {
+                anchor = wards.get(after);
+                if (anchor == null) {
+                    throw new IllegalArgumentException("Cursor " + after + " existiert nicht");
+                }
+            }
+            return index.page(anchor, limit);
+        });
     }
 
     // Filter wards by given predicate (e.g. capacity, name, etc.)
     public Set<Ward> filter(Predicate<Ward> predicate) {
-        return wardSet.stream().filter(predicate).collect(Collectors.toSet());
+        return getAll().stream().filter(predicate).collect(Collectors.toSet());
     }
 
-    // Update a ward by ID
+    // Update a ward by ID (Copy-on-Write: Leser älterer Versionen sehen die Station unverändert)
     public boolean updateWard(int wardId, String newName, String newDescription, Integer newCapacity) {
-        Ward ward = findById(wardId);
-        if (ward != null) {
-            if (newName != null)
-                ward.setWardName(newName);
-            if (newDescription != null)
-                ward.setDescription(newDescription);
-            if (newCapacity != null)
-                ward.setCapacity(newCapacity);
-
-            autoSave();
-            return true;
+        return lock.write(() -> {
+            Ward ward = wards.get(wardId);
+            if (ward != null) {
+                Ward updated = Ward.restore(wardId,
+                        newName != null ? newName : ward.getWardName(),
+                        newDescription != null ? newDescription : ward.getDescription(),
+                        newCapacity != null ? newCapacity : ward.getCapacity());
+                sortedIndexes.values().forEach(index -> index.remove(ward)); // Name/Kapazität sind Sortierschlüssel
+                sortedIndexes.values().forEach(index -> index.add(updated));
+                byId.put(wardId, updated);
+                publish(wards.put(wardId, updated));
+
+                autoSave(MutationLog.Operation.UPDATE, updated);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // === TRANSAKTIONEN ===
+
+    /**
+     * Verlegt einen Patienten auf eine andere Station. Anders als
+     * updatePatient() mit neuer wardId werden Station und Belegung unter den
+     * Sperren beider Manager geprüft (siehe {@link Transaction}).
+     *
+     * @return null bei Erfolg, sonst der Grund
+     */
+    public String transferPatient(long patientId, int targetWardId) {
+        Transaction transaction = Transaction.begin().moveToWard(patients(), patientId, targetWardId);
+        return transaction.commit() ? null : transaction.getError();
+    }
+
+    /**
+     * Löscht eine Station samt Zuweisungen in einer Transaktion: Die
+     * Patienten der Station werden auf reassignTo verlegt (bzw. ohne Station
+     * gelassen); ist dort nicht für alle Platz, bleibt alles unverändert.
+     *
+     * @param reassignTo Station für die bisherigen Patienten (null = keine)
+     * @return null bei Erfolg, sonst der Grund
+     */
+    public String deleteWard(int wardId, Integer reassignTo) {
+        if (reassignTo != null && reassignTo == wardId) {
+            return "Patienten können nicht auf die zu löschende Station verlegt werden";
+        }
+        Transaction transaction = Transaction.begin()
+                .reassignWard(patients(), wardId, reassignTo)
+                .delete(this, wardId);
+        return transaction.commit() ? null : transaction.getError();
+    }
+
+    Transaction.Participant<Ward> participant() {
+        return participant;
+    }
+
+    // === STAPELVERARBEITUNG ===
+
+    /**
+     * @return Ergebnis je Station in Eingabereihenfolge: null bei Erfolg, sonst der Grund
+     */
+    public List<String> addAll(Collection<Ward> added) {
+        return applyAll(added, List.of(), List.of());
+    }
+
+    public List<String> updateAll(Collection<Ward> updated) {
+        return applyAll(List.of(), updated, List.of());
+    }
+
+    /**
+     * Löscht mehrere Stationen wie {@link #deleteWard(int)}, also ohne ihre
+     * Patienten zu verlegen.
+     */
+    public List<String> deleteAll(Collection<Integer> wardIds) {
+        return applyAll(List.of(), List.of(), wardIds);
+    }
+
+    /**
+     * Hinzufügen, Ändern und Löschen als ein Stapel (siehe
+     * {@link Transaction#batch()}): alle zulässigen Einträge unter einer
+     * Sperre und mit einem Log-Datensatz.
+     *
+     * @return Ergebnisse in der Reihenfolge added, updated, deleted: null bei
+     *         Erfolg, sonst der Grund
+     */
+    public List<String> applyAll(Collection<Ward> added, Collection<Ward> updated, Collection<Integer> deleted) {
+        Transaction batch = Transaction.batch();
+        added.forEach(ward -> batch.add(this, ward));
+        updated.forEach(ward -> batch.update(this, ward));
+        deleted.forEach(wardId -> batch.delete(this, wardId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    /**
+     * Wie {@link #applyAll(Collection, Collection, Collection)}, Änderungen
+     * aber als Patch je ID, berechnet aus dem Stand unter der Sperre.
+     */
+    public List<String> applyAll(Collection<Ward> added, Map<Integer, Transaction.Patch<Ward>> patched,
+            Collection<Integer> deleted) {
+        Transaction batch = Transaction.batch();
+        added.forEach(ward -> batch.add(this, ward));
+        patched.forEach((wardId, patch) -> batch.update(this, wardId, patch));
+        deleted.forEach(wardId -> batch.delete(this, wardId));
+        batch.commit();
+        return batch.getResults();
+    }
+
+    // Teilnahme an Transaction; Indizes wie in addWard/updateWard/deleteWard
+    private final class Staging implements Transaction.Participant<Ward> {
+        @Override
+        public ManagerLock lock() {
+            return lock;
+        }
+
+        @Override
+        public PersistentLongMap<Ward> current() {
+            return wards;
+        }
+
+        @Override
+        public String prepare(Transaction.Change<Ward> change, Transaction transaction) {
+            if (change.before() == null) {
+                idSequence.observe(change.key()); // vorgegebene IDs nicht erneut vergeben
+            }
+            return null;
+        }
+
+        @Override
+        public void apply(Collection<Transaction.Change<Ward>> changes, PersistentLongMap<Ward> next) {
+            for (Transaction.Change<Ward> change : changes) {
+                if (change.before() != null) {
+                    byId.remove(change.before().getWardId());
+                    sortedIndexes.values().forEach(index -> index.remove(change.before()));
+                }
+                if (change.after() != null) {
+                    byId.put(change.after().getWardId(), change.after());
+                    sortedIndexes.values().forEach(index -> index.add(change.after()));
+                }
+            }
+            wards = next;
+        }
+
+        @Override
+        public void install(long version, PersistentLongMap<Ward> next) {
+            history.install(version, next);
+        }
+
+        @Override
+        public LogStore<Ward> store() {
+            return autoSaveEnabled ? store : null;
         }
-        return false;
     }
 
     // === KAPAZITÄTS-METHODEN ===
@@ -115,9 +371,9 @@ public class WardManager {
      */
     public Set<Ward> getAvailableWards() {
         try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-            return wardSet.stream()
-                    .filter(ward -> ward.hasCapacity(patientManager))
+            PersonManager<Patient> patients = patients();
+            return getAll().stream()
+                    .filter(ward -> ward.hasCapacity(patients))
                     .collect(Collectors.toSet());
         } catch (Exception e) {
             System.err.println("Fehler beim Abrufen verfügbarer Wards: " + e.getMessage());
@@ -147,18 +403,13 @@ public class WardManager {
     }
 
     /**
-     * Generiert eine eindeutige Ward-ID für neue Stationen.
+     * Generiert eine eindeutige Ward-ID für neue Stationen aus der
+     * persistenten ID-Folge (konstante Zeit, thread-sicher).
      * 
      * @return Neue eindeutige Ward-ID
      */
-    private int generateUniqueWardId() {
-        if (wardSet.isEmpty()) {
-            return 1;
-        }
-        return wardSet.stream()
-                .mapToInt(Ward::getWardId)
-                .max()
-                .orElse(0) + 1;
+    public int generateUniqueWardId() {
+        return (int) idSequence.next();
     }
 
     /**
@@ -169,17 +420,17 @@ public class WardManager {
      */
     public void showAllWardCapacities() {
         try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
+            PersonManager<Patient> patients = patients();
 
             System.out.println("\n===== WARD-KAPAZITÄTS-ÜBERSICHT =====");
             System.out.printf("%-20s %-8s %-12s %-8s %-10s%n",
                     "Ward Name", "ID", "Belegung", "Frei", "Status");
             System.out.println("------------------------------------------------------------");
 
-            for (Ward ward : wardSet) {
-                long currentOccupancy = ward.getCurrentOccupancy(patientManager);
-                long availableCapacity = ward.getAvailableCapacity(patientManager);
-                String status = ward.hasCapacity(patientManager) ? "Verfügbar" : "Voll";
+            for (Ward ward : getAll()) {
+                long currentOccupancy = ward.getCurrentOccupancy(patients);
+                long availableCapacity = ward.getAvailableCapacity(patients);
+                String status = ward.hasCapacity(patients) ? "Verfügbar" : "Voll";
 
                 System.out.printf("%-20s %-8d %-12s %-8d %-10s%n",
                         truncate(ward.getWardName(), 20),
@@ -206,11 +457,11 @@ public class WardManager {
         }
 
         try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
+            PersonManager<Patient> patients = patients();
 
-            long currentOccupancy = ward.getCurrentOccupancy(patientManager);
-            long availableCapacity = ward.getAvailableCapacity(patientManager);
-            boolean hasCapacity = ward.hasCapacity(patientManager);
+            long currentOccupancy = ward.getCurrentOccupancy(patients);
+            long availableCapacity = ward.getAvailableCapacity(patients);
+            boolean hasCapacity = ward.hasCapacity(patients);
 
             System.out.println("\n=== WARD-DETAILS ===");
             System.out.println("Name: " + ward.getWardName());
@@ -224,9 +475,7 @@ public class WardManager {
             // Zugewiesene Patienten auflisten
             if (currentOccupancy > 0) {
                 System.out.println("\nZugewiesene Patienten:");
-                patientManager.getAll().stream()
-                        .filter(patient -> patient.getWardId() != null)
-                        .filter(patient -> patient.getWardId().equals(ward.getWardId()))
+                patients.findByWard(ward.getWardId())
                         .forEach(patient -> System.out.println("  - " + patient.getFirstname() + " " +
                                 patient.getName() + " (ID: " + patient.getPersonId() + ")"));
             } else {
@@ -249,10 +498,10 @@ public class WardManager {
         if (availableWards.isEmpty()) {
             System.out.println("Keine Wards mit freien Plätzen verfügbar!");
         } else {
+            PersonManager<Patient> patients = patients();
             for (Ward ward : availableWards) {
                 try {
-                    PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-                    long availableCapacity = ward.getAvailableCapacity(patientManager);
+                    long availableCapacity = ward.getAvailableCapacity(patients);
                     System.out.println("- " + ward.getWardName() + " (ID: " + ward.getWardId() +
                             ") - " + availableCapacity + " freie Plätze");
                 } catch (Exception e) {
@@ -266,7 +515,9 @@ public class WardManager {
     // === FRONTEND-DATEN-METHODEN ===
 
     /**
-     * Gibt Ward-Kapazitätsdaten für Frontend zurück
+     * Gibt Ward-Kapazitätsdaten für Frontend zurück. Belegung und Liste der
+     * zugewiesenen Patienten stammen aus derselben Abfrage und passen daher
+     * immer zusammen.
      */
     public Map<String, Object> getWardCapacityData(int wardId) {
         Ward ward = findById(wardId);
@@ -275,33 +526,7 @@ public class WardManager {
         }
 
         try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-
-            Map<String, Object> data = new HashMap<>();
-            data.put("wardId", ward.getWardId());
-            data.put("wardName", ward.getWardName());
-            data.put("description", ward.getDescription());
-            data.put("totalCapacity", ward.getCapacity());
-            data.put("currentOccupancy", ward.getCurrentOccupancy(patientManager));
-            data.put("availableCapacity", ward.getAvailableCapacity(patientManager));
-            data.put("hasCapacity", ward.hasCapacity(patientManager));
-
-            // Zugewiesene Patienten
-            List<Map<String, Object>> assignedPatients = patientManager.getAll().stream()
-                    .filter(patient -> patient.getWardId() != null && patient.getWardId().equals(ward.getWardId()))
-                    .map(patient -> {
-                        Map<String, Object> patientInfo = new HashMap<>();
-                        patientInfo.put("personId", patient.getPersonId());
-                        patientInfo.put("name", patient.getName());
-                        patientInfo.put("firstname", patient.getFirstname());
-                        patientInfo.put("email", patient.getEmail());
-                        return patientInfo;
-                    })
-                    .collect(Collectors.toList());
-
-            data.put("assignedPatients", assignedPatients);
-
-            return data;
+            return capacityData(ward, patients().findByWard(ward.getWardId()));
 
         } catch (Exception e) {
             System.err.println("Fehler beim Abrufen der Ward-Kapazitätsdaten: " + e.getMessage());
@@ -310,41 +535,20 @@ public class WardManager {
     }
 
     /**
-     * Gibt alle Ward-Kapazitätsdaten für Frontend zurück
+     * Gibt alle Ward-Kapazitätsdaten für Frontend zurück.
+     *
+     * Stationen und Patienten werden zu derselben festgehaltenen Version
+     * gelesen (siehe {@link VersionClock}); gleichzeitige Verlegungen oder
+     * Kapazitätsänderungen erscheinen daher entweder vollständig oder gar
+     * nicht, ohne dass Schreiber warten müssen. Die Patienten kommen je
+     * Station aus dem versionierten Stations-Index, es werden also nur
+     * zugewiesene Patienten gelesen.
      */
     public List<Map<String, Object>> getAllWardCapacityData() {
-        try {
-            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-
-            return wardSet.stream()
-                    .map(ward -> {
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("wardId", ward.getWardId());
-                        data.put("wardName", ward.getWardName());
-                        data.put("description", ward.getDescription());
-                        data.put("totalCapacity", ward.getCapacity());
-                        data.put("currentOccupancy", ward.getCurrentOccupancy(patientManager));
-                        data.put("availableCapacity", ward.getAvailableCapacity(patientManager));
-                        data.put("hasCapacity", ward.hasCapacity(patientManager));
-
-                        // Zugewiesene Patienten
-                        List<Map<String, Object>> assignedPatients = patientManager.getAll().stream()
-                                .filter(patient -> patient.getWardId() != null
-                                        && patient.getWardId().equals(ward.getWardId()))
-                                .map(patient -> {
-                                    Map<String, Object> patientInfo = new HashMap<>();
-                                    patientInfo.put("personId", patient.getPersonId());
-                                    patientInfo.put("name", patient.getName());
-                                    patientInfo.put("firstname", patient.getFirstname());
-                                    patientInfo.put("email", patient.getEmail());
-                                    return patientInfo;
-                                })
-                                .collect(Collectors.toList());
-
-                        data.put("assignedPatients", assignedPatients);
-
-                        return data;
-                    })
+        try (VersionClock.Snapshot snapshot = VersionClock.global().pin()) {
+            PersonManager<Patient> patients = patients();
+            return getAll(snapshot).stream()
+                    .map(ward -> capacityData(ward, patients.findByWard(ward.getWardId(), snapshot)))
                     .collect(Collectors.toList());
 
         } catch (Exception e) {
@@ -353,6 +557,35 @@ public class WardManager {
         }
     }
 
+    // Kapazitätsdaten einer Station; die Belegung ergibt sich aus den übergebenen Patienten
+    private Map<String, Object> capacityData(Ward ward, List<Patient> assignedPatients) {
+        long currentOccupancy = assignedPatients.size();
+        Map<String, Object> data = new HashMap<>();
+        data.put("wardId", ward.getWardId());
+        data.put("wardName", ward.getWardName());
+        data.put("description", ward.getDescription());
+        data.put("totalCapacity", ward.getCapacity());
+        data.put("currentOccupancy", currentOccupancy);
+        data.put("availableCapacity", Math.max(0, ward.getCapacity() - currentOccupancy));
+        data.put("hasCapacity", currentOccupancy < ward.getCapacity());
+
+        // Zugewiesene Patienten
+        List<Map<String, Object>> patientInfos = assignedPatients.stream()
+                .map(patient -> {
+                    Map<String, Object> patientInfo = new HashMap<>();
+                    patientInfo.put("personId", patient.getPersonId());
+                    patientInfo.put("name", patient.getName());
+                    patientInfo.put("firstname", patient.getFirstname());
+                    patientInfo.put("email", patient.getEmail());
+                    return patientInfo;
+                })
+                .collect(Collectors.toList());
+
+        data.put("assignedPatients", patientInfos);
+
+        return data;
+    }
+
     // Helper-Methode für Textkürzung
     private String truncate(String text, int maxLength) {
         if (text == null)
@@ -360,45 +593,62 @@ public class WardManager {
         return text.length() > maxLength ? text.substring(0, maxLength - 3) + "..." : text;
     }
 
-    // Save current state to file
+    // Save current state to file (Snapshot schreiben, Log leeren)
     public void save() {
-        if (filename != null) {
-            SerializationManager.saveToFile(wardSet, filename);
+        if (store != null) {
+            // Ohne Sperre: geschrieben wird eine unveränderliche Version
+            store.saveSnapshot(this::getAll);
         }
     }
 
-    // Load state from file
-    @SuppressWarnings("unchecked")
+    // Load state from file (Snapshot + Replay des Mutation-Logs)
     public void load() {
-        if (filename != null) {
-            Set<Ward> loadedSet = SerializationManager.loadFromFile(filename);
+        if (store != null) {
+            Set<Ward> loadedSet = store.load();
             if (loadedSet != null) {
-                this.wardSet = loadedSet;
+                lock.write(() -> {
+                    PersistentLongMap.Builder<Ward> loaded = PersistentLongMap.builder();
+                    byId = new TreeMap<>();
+                    sortedIndexes.values().forEach(SortedIndex::clear);
+                    for (Ward ward : loadedSet) {
+                        sortedIndexes.values().forEach(index -> index.add(ward));
+                        byId.put(ward.getWardId(), ward);
+                        loaded.put(ward.getWardId(), ward);
+                        idSequence.observe(ward.getWardId());
+                    }
+                    publish(loaded.build());
+                    return null;
+                });
             }
         }
     }
 
+    public LogStore<Ward> getStore() {
+        return store;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("WardManager{\n");
         sb.append("  filename='").append(filename != null ? filename : "none").append("'\n");
         sb.append("  autoSaveEnabled=").append(autoSaveEnabled).append("\n");
-        sb.append("  totalWards=").append(wardSet.size()).append("\n");
+        Set<Ward> wards = getAll();
+        sb.append("  totalWards=").append(wards.size()).append("\n");
 
-        if (!wardSet.isEmpty()) {
+        if (!wards.isEmpty()) {
             sb.append("  wards=[\n");
+            PersonManager<Patient> patients = patients();
 
             // Sortiere Wards nach ID für bessere Übersicht
-            wardSet.stream()
+            wards.stream()
                     .sorted((w1, w2) -> Integer.compare(w1.getWardId(), w2.getWardId()))
                     .forEach(ward -> {
                         try {
-                            // Versuche Kapazitätsinformationen zu laden
-                            PersonManager<Patient> patientManager = new PersonManager<>("patients.ser");
-                            long currentOccupancy = ward.getCurrentOccupancy(patientManager);
-                            long availableCapacity = ward.getAvailableCapacity(patientManager);
-                            boolean hasCapacity = ward.hasCapacity(patientManager);
+                            // Kapazitätsinformationen aus dem PatientManager
+                            long currentOccupancy = ward.getCurrentOccupancy(patients);
+                            long availableCapacity = ward.getAvailableCapacity(patients);
+                            boolean hasCapacity = ward.hasCapacity(patients);
 
                             sb.append("    Ward{")
                                     .append("id=").append(ward.getWardId())
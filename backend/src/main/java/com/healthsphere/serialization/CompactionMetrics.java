@@ -0,0 +1,65 @@
+package com.healthsphere.serialization;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kennzahlen der Snapshot-Kompaktierung eines LogStores.
+ *
+ * Werden vom SnapshotCompactor nach jedem Lauf aktualisiert und über
+ * GET /api/health/persistence ausgegeben.
+ */
+public class CompactionMetrics {
+    private long compactionCount;
+    private long lastDurationMillis;
+    private long lastBytesWritten;
+    private long totalBytesWritten;
+    private long lastRecordsCompacted;
+    private long lastCompactedAt;
+
+    synchronized void recordCompaction(long durationMillis, long bytesWritten, long recordsCompacted) {
+        compactionCount++;
+        lastDurationMillis = durationMillis;
+        lastBytesWritten = bytesWritten;
+        totalBytesWritten += bytesWritten;
+        lastRecordsCompacted = recordsCompacted;
+        lastCompactedAt = System.currentTimeMillis();
+    }
+
+    public synchronized long getCompactionCount() {
+        return compactionCount;
+    }
+
+    public synchronized long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    public synchronized long getLastBytesWritten() {
+        return lastBytesWritten;
+    }
+
+    public synchronized long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    /**
+     * Gibt die Kennzahlen zusammen mit der aktuellen Log-Länge zurück
+     *
+     * @param log Mutation-Log des Stores
+     */
+    public synchronized Map<String, Object> toMap(MutationLog<?> log) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("compactionCount", compactionCount);
+        data.put("lastDurationMillis", lastDurationMillis);
+        data.put("lastBytesWritten", lastBytesWritten);
+        data.put("totalBytesWritten", totalBytesWritten);
+        data.put("lastRecordsCompacted", lastRecordsCompacted);
+        data.put("lastCompactedAt", lastCompactedAt);
+        data.put("logBytes", log.length());
+        data.put("logRecords", log.recordCount());
+        data.put("durability", log.getDurability());
+        data.put("pendingRecords", log.pendingCount());
+        data.put("fsyncs", log.syncCount());
+        return data;
+    }
+}
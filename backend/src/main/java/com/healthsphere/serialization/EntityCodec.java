@@ -0,0 +1,459 @@
+package com.healthsphere.serialization;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.healthsphere.components.Employee;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+
+/**
+ * Kompaktes, versioniertes Binärformat für die Fachklassen.
+ *
+ * Ersetzt ObjectOutputStream/ObjectInputStream für Snapshots und
+ * Log-Datensätze: keine Klassenbeschreibungen, keine Reflection, keine
+ * geboxten LocalDate-Objekte im Datenstrom.
+ *
+ * Snapshot-Aufbau:
+ *
+ * ["HSPH"][byte Version][varint Anzahl][Datensatz]...
+ *
+ * Ab Version 2 teilen sich die Datensätze eines Snapshots eine
+ * String-Tabelle für Felder, die sich oft wiederholen (Name, Vorname,
+ * Adresse, Abteilung, Stationsname/-beschreibung, Therapie). Ein solches
+ * Feld ist entweder ein Verweis auf einen früheren Eintrag ([varint
+ * Index*2+1]) oder ein neuer String ([varint Länge*2][UTF-8-Bytes]), der
+ * an die Tabelle angehängt wird. Einzelne Log-Datensätze und Snapshots der
+ * Version 1 kommen ohne Tabelle aus.
+ *
+ * Datensatz-Aufbau (Version 1):
+ *
+ * [byte Typ][varint ID][byte Null-Bitmap][Felder...]
+ *
+ * - IDs als varint (7 Bit pro Byte), wardId/Kapazität als zigzag-varint
+ * - Datumswerte als zigzag-varint des Epoch-Days
+ * - Strings als varint-Länge + UTF-8-Bytes
+ * - Referenzfelder (Name, E-Mail, wardId, Geburtsdatum, ...) nur, wenn das
+ *   entsprechende Bit in der Null-Bitmap gesetzt ist
+ *
+ * Beim Lesen werden die Objekte ohne erneute Validierung wiederhergestellt
+ * (restore-Fabrikmethoden), genau wie bei der Java-Serialisierung.
+ */
+public final class EntityCodec {
+    public static final int FORMAT_VERSION = 2;
+    private static final int FORMAT_VERSION_PLAIN = 1;
+
+    private static final byte[] MAGIC = { 'H', 'S', 'P', 'H' };
+
+    // Obergrenze für das Vorbelegen des Sets beim Lesen eines Snapshots
+    private static final int MAX_PRESIZE = 1 << 16;
+
+    // Obergrenze der String-Tabelle eines Snapshots (danach werden Strings direkt geschrieben)
+    private static final int MAX_SHARED_STRINGS = 1 << 18;
+
+    private static final int TYPE_PATIENT = 1;
+    private static final int TYPE_EMPLOYEE = 2;
+    private static final int TYPE_WARD = 3;
+    private static final int TYPE_TREATMENT = 4;
+
+    // Null-Bitmap für Personen (Bit gesetzt = Feld vorhanden)
+    private static final int HAS_NAME = 1;
+    private static final int HAS_FIRSTNAME = 1 << 1;
+    private static final int HAS_PHONE = 1 << 2;
+    private static final int HAS_EMAIL = 1 << 3;
+    private static final int HAS_ADRESS = 1 << 4;
+    private static final int HAS_BIRTHDATE = 1 << 5;
+    private static final int HAS_WARD = 1 << 6;
+    private static final int HAS_DEPARTMENT = 1 << 7;
+
+    // Null-Bitmap für Ward (HAS_NAME wie oben) und Treatment
+    private static final int HAS_DESCRIPTION = 1 << 1;
+    private static final int HAS_DATE = 1;
+    private static final int HAS_THERAPY = 1 << 1;
+
+    private EntityCodec() {
+    }
+
+    /**
+     * @return true wenn das Objekt mit diesem Codec kodiert werden kann
+     */
+    public static boolean supports(Object entity) {
+        return entity instanceof Patient || entity instanceof Employee
+                || entity instanceof Ward || entity instanceof Treatment;
+    }
+
+    public static boolean supportsAll(Collection<?> data) {
+        for (Object entity : data) {
+            if (!supports(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prüft anhand der ersten Bytes, ob ein Datenstrom im Codec-Format vorliegt.
+     */
+    public static boolean hasMagic(byte[] header) {
+        if (header.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===== SNAPSHOTS =====
+
+    /**
+     * Schreibt eine komplette Sammlung als Snapshot (streamend).
+     */
+    public static void writeSnapshot(Collection<?> data, OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.write(MAGIC);
+        dos.writeByte(FORMAT_VERSION);
+        writeVarLong(dos, data.size());
+        Strings strings = new Strings();
+        for (Object entity : data) {
+            encode(entity, dos, strings);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Liest einen Snapshot (streamend). Der Strom wird vorausgepuffert gelesen
+     * und ist danach nicht mehr an der Snapshot-Grenze positioniert.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Set<T> readSnapshot(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(new ReadBuffer(in));
+        byte[] header = new byte[MAGIC.length];
+        dis.readFully(header);
+        if (!hasMagic(header)) {
+            throw new IOException("Kein HealthSphere-Snapshot");
+        }
+        int version = dis.readUnsignedByte();
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_PLAIN) {
+            throw new IOException("Nicht unterstützte Snapshot-Version " + version);
+        }
+
+        long count = readVarLong(dis);
+        if (count < 0) {
+            throw new StreamCorruptedException("Anzahl ungültig: " + count);
+        }
+        // Die Anzahl stammt aus der Datei: nur begrenzt vorbelegen, der Rest wächst mit den Daten
+        Set<T> data = new HashSet<>((int) (Math.min(count, MAX_PRESIZE) * 4 / 3 + 1));
+        Strings strings = version == FORMAT_VERSION ? new Strings() : null;
+        for (long i = 0; i < count; i++) {
+            data.add((T) decode(dis, strings));
+        }
+        return data;
+    }
+
+    // ===== EINZELNE DATENSÄTZE =====
+
+    public static byte[] toBytes(Object entity) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream dos = new DataOutputStream(bytes);
+        encode(entity, dos);
+        dos.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Object fromBytes(byte[] data) throws IOException {
+        return decode(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    public static void encode(Object entity, DataOutputStream out) throws IOException {
+        encode(entity, out, null);
+    }
+
+    public static Object decode(DataInputStream in) throws IOException {
+        return decode(in, null);
+    }
+
+    private static void encode(Object entity, DataOutputStream out, Strings strings) throws IOException {
+        if (entity instanceof Patient patient) {
+            out.writeByte(TYPE_PATIENT);
+            writePerson(out, strings, patient, null, patient.getWardId());
+        } else if (entity instanceof Employee employee) {
+            out.writeByte(TYPE_EMPLOYEE);
+            writePerson(out, strings, employee, employee.getDepartment(), employee.getWardId());
+        } else if (entity instanceof Ward ward) {
+            out.writeByte(TYPE_WARD);
+            writeVarLong(out, ward.getWardId());
+            int flags = (ward.getWardName() != null ? HAS_NAME : 0)
+                    | (ward.getDescription() != null ? HAS_DESCRIPTION : 0);
+            out.writeByte(flags);
+            writeOptionalString(out, strings, ward.getWardName());
+            writeOptionalString(out, strings, ward.getDescription());
+            writeZigZag(out, ward.getCapacity());
+        } else if (entity instanceof Treatment treatment) {
+            out.writeByte(TYPE_TREATMENT);
+            writeVarLong(out, treatment.getTreatmentId());
+            int flags = (treatment.getDate() != null ? HAS_DATE : 0)
+                    | (treatment.getTherapy() != null ? HAS_THERAPY : 0);
+            out.writeByte(flags);
+            if (treatment.getDate() != null) {
+                writeZigZag(out, treatment.getDate().toEpochDay());
+            }
+            writeOptionalString(out, strings, treatment.getTherapy());
+            writeVarLong(out, treatment.getPatientPersonId());
+            writeVarLong(out, treatment.getDoctorPersonId());
+        } else {
+            throw new NotSerializableException(entity == null ? "null" : entity.getClass().getName());
+        }
+    }
+
+    private static Object decode(DataInputStream in, Strings strings) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case TYPE_PATIENT:
+            case TYPE_EMPLOYEE: {
+                long personId = readVarLong(in);
+                int flags = in.readUnsignedByte();
+                String name = readOptionalString(in, strings, flags, HAS_NAME);
+                String firstname = readOptionalString(in, strings, flags, HAS_FIRSTNAME);
+                String phone = readOptionalString(in, flags, HAS_PHONE);
+                String email = readOptionalString(in, flags, HAS_EMAIL);
+                String adress = readOptionalString(in, strings, flags, HAS_ADRESS);
+                LocalDate birthdate = (flags & HAS_BIRTHDATE) != 0 ? LocalDate.ofEpochDay(readZigZag(in)) : null;
+                Integer wardId = (flags & HAS_WARD) != 0 ? (int) readZigZag(in) : null;
+                if (type == TYPE_PATIENT) {
+                    return Patient.restore(personId, name, firstname, phone, email, birthdate, adress, wardId);
+                }
+                String department = readOptionalString(in, strings, flags, HAS_DEPARTMENT);
+                return Employee.restore(personId, name, firstname, phone, email, birthdate, adress,
+                        department, wardId);
+            }
+            case TYPE_WARD: {
+                int wardId = (int) readVarLong(in);
+                int flags = in.readUnsignedByte();
+                String wardName = readOptionalString(in, strings, flags, HAS_NAME);
+                String description = readOptionalString(in, strings, flags, HAS_DESCRIPTION);
+                int capacity = (int) readZigZag(in);
+                return Ward.restore(wardId, wardName, description, capacity);
+            }
+            case TYPE_TREATMENT: {
+                int treatmentId = (int) readVarLong(in);
+                int flags = in.readUnsignedByte();
+                LocalDate date = (flags & HAS_DATE) != 0 ? LocalDate.ofEpochDay(readZigZag(in)) : null;
+                String therapy = readOptionalString(in, strings, flags, HAS_THERAPY);
+                long patientPersonId = readVarLong(in);
+                long doctorPersonId = readVarLong(in);
+                return new Treatment(treatmentId, date, therapy, patientPersonId, doctorPersonId);
+            }
+            default:
+                throw new StreamCorruptedException("Unbekannter Datensatztyp " + type);
+        }
+    }
+
+    private static void writePerson(DataOutputStream out, Strings strings, Person person, String department,
+            Integer wardId) throws IOException {
+        writeVarLong(out, person.getPersonId());
+        int flags = (person.getName() != null ? HAS_NAME : 0)
+                | (person.getFirstname() != null ? HAS_FIRSTNAME : 0)
+                | (person.getPhonenumber() != null ? HAS_PHONE : 0)
+                | (person.getEmail() != null ? HAS_EMAIL : 0)
+                | (person.getAdress() != null ? HAS_ADRESS : 0)
+                | (person.getBirthdate() != null ? HAS_BIRTHDATE : 0)
+                | (wardId != null ? HAS_WARD : 0)
+                | (department != null ? HAS_DEPARTMENT : 0);
+        out.writeByte(flags);
+        writeOptionalString(out, strings, person.getName());
+        writeOptionalString(out, strings, person.getFirstname());
+        writeOptionalString(out, person.getPhonenumber());
+        writeOptionalString(out, person.getEmail());
+        writeOptionalString(out, strings, person.getAdress());
+        if (person.getBirthdate() != null) {
+            writeZigZag(out, person.getBirthdate().toEpochDay());
+        }
+        if (wardId != null) {
+            writeZigZag(out, wardId);
+        }
+        writeOptionalString(out, strings, department);
+    }
+
+    // ===== PRIMITIVE =====
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("varint zu lang");
+    }
+
+    static void writeZigZag(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readZigZag(DataInput in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeOptionalString(DataOutput out, String value) throws IOException {
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    static String readOptionalString(DataInput in, int flags, int bit) throws IOException {
+        return (flags & bit) != 0 ? readString(in) : null;
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return readUtf8(in, readVarLong(in));
+    }
+
+    private static String readUtf8(DataInput in, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("String-Länge ungültig: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Unsynchronisierter Lesepuffer für Snapshots: DataInputStream liest
+     * varints byteweise, und BufferedInputStream.read() synchronisiert bei
+     * jedem Byte.
+     */
+    private static final class ReadBuffer extends InputStream {
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+
+        ReadBuffer(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == limit) {
+                if (length >= buffer.length) {
+                    return in.read(target, offset, length);
+                }
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            int read = in.read(buffer, 0, buffer.length);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+    }
+
+    // ===== STRING-TABELLE =====
+
+    // Ohne Tabelle (strings == null) wie writeOptionalString/readOptionalString
+    private static void writeOptionalString(DataOutput out, Strings strings, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (strings == null) {
+            writeString(out, value);
+            return;
+        }
+        Integer index = strings.indexes.get(value);
+        if (index != null) {
+            writeVarLong(out, ((long) index << 1) | 1);
+            return;
+        }
+        strings.add(value);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, (long) bytes.length << 1);
+        out.write(bytes);
+    }
+
+    private static String readOptionalString(DataInput in, Strings strings, int flags, int bit)
+            throws IOException {
+        if ((flags & bit) == 0) {
+            return null;
+        }
+        if (strings == null) {
+            return readString(in);
+        }
+        long header = readVarLong(in);
+        if ((header & 1) != 0) {
+            long index = header >>> 1;
+            if (index >= strings.values.size()) {
+                throw new StreamCorruptedException("String-Verweis ungültig: " + index);
+            }
+            return strings.values.get((int) index);
+        }
+        String value = readUtf8(in, header >>> 1);
+        strings.add(value);
+        return value;
+    }
+
+    /**
+     * String-Tabelle eines Snapshots. Schreiben und Lesen füllen sie in
+     * derselben Reihenfolge und mit derselben Obergrenze, daher stimmen die
+     * Indizes überein; geteilte Strings werden beim Laden nur einmal angelegt.
+     */
+    private static final class Strings {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (values.size() < MAX_SHARED_STRINGS) {
+                indexes.put(value, values.size());
+                values.add(value);
+            }
+        }
+    }
+}
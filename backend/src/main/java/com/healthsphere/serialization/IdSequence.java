@@ -0,0 +1,114 @@
+package com.healthsphere.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistente, thread-sichere ID-Folge für einen Entitätstyp.
+ *
+ * IDs werden blockweise reserviert: die Obergrenze des aktuellen Blocks
+ * steht in der Datei &lt;filename&gt;.seq, die daher nur einmal pro Block
+ * (Standard: 64 IDs) geschrieben wird. Nach einem Neustart wird hinter dem
+ * zuletzt reservierten Block weitergezählt; nicht verbrauchte IDs des alten
+ * Blocks bleiben als Lücke frei. Eine einmal vergebene ID wird dadurch auch
+ * nach dem Löschen des höchsten Datensatzes nicht erneut vergeben.
+ *
+ * Alle Manager auf derselben Datei teilen sich über {@link #forFile(String)}
+ * eine Instanz, damit sie keine überlappenden Blöcke reservieren.
+ */
+public class IdSequence {
+    public static final String SEQ_SUFFIX = ".seq";
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final Map<String, IdSequence> SEQUENCES = new ConcurrentHashMap<>();
+
+    private final Path path; // null = nur im Speicher
+    private final int blockSize;
+    private long next = 1;
+    private long reservedUpTo; // exklusiv; IDs darunter sind auf der Platte reserviert
+
+    /**
+     * Liefert die gemeinsame ID-Folge zu einer Datendatei.
+     *
+     * @param filename Datendatei des Managers (z.B. "patients.ser") oder null
+     *                 für eine eigene Folge ohne Persistierung
+     */
+    public static IdSequence forFile(String filename) {
+        if (filename == null) {
+            return new IdSequence(null, DEFAULT_BLOCK_SIZE);
+        }
+        String key = Paths.get(filename).toAbsolutePath().normalize().toString();
+        return SEQUENCES.computeIfAbsent(key, k -> new IdSequence(filename, DEFAULT_BLOCK_SIZE));
+    }
+
+    public IdSequence(String filename, int blockSize) {
+        this.path = filename != null ? Paths.get(filename + SEQ_SUFFIX) : null;
+        this.blockSize = Math.max(1, blockSize);
+        this.next = Math.max(1, readReserved());
+        this.reservedUpTo = next;
+    }
+
+    /**
+     * @return Nächste freie ID
+     */
+    public synchronized long next() {
+        if (next >= reservedUpTo) {
+            reserve(next + blockSize);
+        }
+        return next++;
+    }
+
+    /**
+     * Meldet eine bereits verwendete ID (z.B. aus geladenen Daten oder einem
+     * Datensatz mit vorgegebener ID), damit sie nicht erneut vergeben wird.
+     */
+    public synchronized void observe(long id) {
+        if (id >= next) {
+            next = id + 1;
+        }
+    }
+
+    /**
+     * @return ID, die als nächste vergeben wird
+     */
+    public synchronized long peek() {
+        return next;
+    }
+
+    private void reserve(long upTo) {
+        if (path != null) {
+            Path tmp = Paths.get(path + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, upTo));
+                channel.force(false);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Eindeutig bleibt die ID trotzdem: nach einem Neustart wird
+                // mindestens hinter der höchsten geladenen ID weitergezählt
+                System.err.println("Fehler beim Reservieren von IDs in " + path + ": " + e.getMessage());
+            }
+        }
+        reservedUpTo = upTo;
+    }
+
+    private long readReserved() {
+        if (path == null || !Files.exists(path)) {
+            return 1;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 1;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Lesen der ID-Folge " + path + ": " + e.getMessage());
+            return 1;
+        }
+    }
+}
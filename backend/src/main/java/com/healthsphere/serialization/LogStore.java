@@ -0,0 +1,227 @@
+package com.healthsphere.serialization;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.healthsphere.serialization.MutationLog.Operation;
+
+/**
+ * Persistierung eines Managers aus Snapshot-Datei und Mutation-Log.
+ *
+ * Der Snapshot (z.B. patients.ser) enthält den vollständigen Datenbestand zum
+ * Zeitpunkt des letzten save() bzw. der letzten Kompaktierung; alle späteren
+ * Änderungen stehen als einzelne Datensätze in der zugehörigen Log-Datei
+ * (z.B. patients.ser.log). Dadurch kostet eine Änderung nur noch einen
+ * Datensatz statt eines kompletten Neuschreibens des Sets.
+ *
+ * @param <T> Typ der gespeicherten Objekte
+ */
+public class LogStore<T extends Serializable> {
+    public static final String LOG_SUFFIX = ".log";
+
+    private final String filename;
+    private final MutationLog<T> mutationLog;
+    private final CompactionMetrics metrics = new CompactionMetrics();
+
+    public LogStore(String filename) {
+        this.filename = filename;
+        this.mutationLog = new MutationLog<>(filename + LOG_SUFFIX);
+    }
+
+    /**
+     * Lädt den letzten Snapshot und spielt das Mutation-Log darauf ab.
+     *
+     * Ein vorhandener, aber nicht lesbarer Snapshot wird nicht stillschweigend
+     * durch einen leeren Bestand ersetzt, sondern beiseitegelegt
+     * (*.corrupt-Zeitstempel), damit er beim nächsten Speichern nicht
+     * überschrieben wird.
+     *
+     * Transaktionen, die im Transaktions-Journal stehen, aber dem Log fehlen
+     * (Absturz vor dessen fsync), werden vorher an das Log angehängt.
+     *
+     * @return Geladener Datenbestand oder null, wenn weder Snapshot noch Log
+     *         vorhanden sind
+     */
+    public Set<T> load() {
+        recoverTransactions();
+        Set<T> data = loadSnapshot();
+        Set<T> target = data != null ? data : new HashSet<>();
+        int replayed = mutationLog.replay(target);
+        return (data == null && replayed == 0) ? null : target;
+    }
+
+    public void recordAdd(T entity) {
+        mutationLog.append(Operation.ADD, entity);
+    }
+
+    public void recordUpdate(T entity) {
+        mutationLog.append(Operation.UPDATE, entity);
+    }
+
+    public void recordDelete(T entity) {
+        mutationLog.append(Operation.DELETE, entity);
+    }
+
+    /**
+     * Protokolliert mehrere Änderungen als einen Batch-Datensatz (siehe
+     * {@link MutationLog#appendBatch}).
+     *
+     * @return true wenn der Batch geschrieben wurde
+     */
+    public boolean recordBatch(byte[] batch, boolean journaled) {
+        return mutationLog.appendBatch(batch, journaled);
+    }
+
+    /**
+     * Schreibt gesammelte Log-Datensätze (siehe {@link MutationLog#flush()}).
+     */
+    public int flush() {
+        return mutationLog.flush();
+    }
+
+    /**
+     * Schreibt einen vollständigen Snapshot und entfernt die darin enthaltenen
+     * Log-Datensätze.
+     *
+     * Die Manager ändern immer zuerst ihr Set und protokollieren danach; alle
+     * Datensätze vor der hier gemerkten Log-Position sind also im übergebenen
+     * Set bereits enthalten.
+     *
+     * @param data Vollständiger Datenbestand
+     */
+    public void saveSnapshot(Set<T> data) {
+        saveSnapshot(() -> data);
+    }
+
+    /**
+     * Wie {@link #saveSnapshot(Set)}, holt den Datenbestand aber erst nach dem
+     * Merken der Log-Position. Liefert snapshot eine unveränderliche Version
+     * des Managers, muss dieser während des Schreibens nicht gesperrt werden:
+     * alle Datensätze vor der Marke sind darin enthalten, spätere werden beim
+     * Laden erneut angewendet (unschädlich, da vollständige Objektzustände).
+     *
+     * @param snapshot Liefert den aktuellen, unveränderlichen Datenbestand
+     */
+    public synchronized void saveSnapshot(Supplier<Set<T>> snapshot) {
+        long mark = mutationLog.length();
+        long records = mutationLog.recordCount();
+        if (SerializationManager.saveToFileAtomic(snapshot.get(), filename) >= 0) {
+            forgetTransactions();
+            mutationLog.discardPrefix(mark, records);
+        }
+    }
+
+    /**
+     * Faltet das Mutation-Log in einen neuen Snapshot.
+     *
+     * Arbeitet ausschließlich auf den Dateien: letzter Snapshot + Log bis zur
+     * aktuellen Position ergeben einen konsistenten Stand, der in eine
+     * temporäre Datei geschrieben und atomar ausgetauscht wird. Erst danach
+     * wird der übernommene Log-Anfang entfernt. Die Manager werden dabei nicht
+     * gesperrt; parallel angehängte Datensätze bleiben im Log erhalten.
+     *
+     * Stürzt das System zwischen Austausch und Kürzen ab, wird der
+     * Log-Anfang beim nächsten Laden erneut angewendet - das ist unschädlich,
+     * da jeder Datensatz den vollständigen Objektzustand enthält.
+     *
+     * @return true wenn kompaktiert wurde
+     */
+    public synchronized boolean compact() {
+        long mark = mutationLog.length();
+        if (mark == 0 && !SerializationManager.isLegacyFormat(filename)) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        Set<T> data = new HashSet<>();
+        if (SerializationManager.fileExists(filename)) {
+            data = SerializationManager.loadFromFile(filename);
+            if (data == null) {
+                System.err.println("Kompaktierung von " + filename + " abgebrochen: Snapshot nicht lesbar.");
+                return false;
+            }
+        }
+        int records = mutationLog.replay(data, mark);
+
+        long bytesWritten = SerializationManager.saveToFileAtomic(data, filename);
+        if (bytesWritten < 0) {
+            return false;
+        }
+        forgetTransactions();
+        mutationLog.discardPrefix(mark, records);
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        metrics.recordCompaction(durationMillis, bytesWritten, records);
+        return true;
+    }
+
+    /**
+     * @param minLogBytes Mindestgröße des Logs
+     * @return true wenn das Log groß genug ist oder der Snapshot noch im alten
+     *         Format (Java-Serialisierung) vorliegt und migriert werden soll
+     */
+    public boolean needsCompaction(long minLogBytes) {
+        long logBytes = mutationLog.length();
+        return (logBytes > 0 && logBytes >= minLogBytes) || SerializationManager.isLegacyFormat(filename);
+    }
+
+    // Batches aus dem Journal nachtragen, die das Log beim Absturz noch nicht synchronisiert hatte
+    private void recoverTransactions() {
+        int recovered = 0;
+        for (byte[] batch : TransactionJournal.forFile(filename).pending(filename)) {
+            if (!mutationLog.containsTransaction(MutationLog.transactionId(batch))
+                    && mutationLog.appendBatch(batch, true)) {
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            mutationLog.flush();
+            System.out.println(recovered + " Transaktion(en) aus dem Journal in " + filename + " übernommen.");
+        }
+    }
+
+    /**
+     * Nach dem Schreiben eines Snapshots: Batches vor der Marke stehen im
+     * Snapshot, spätere im Log - nach dessen fsync braucht das Journal sie
+     * nicht mehr.
+     */
+    private void forgetTransactions() {
+        TransactionJournal.forFile(filename).forget(filename, mutationLog::flush);
+    }
+
+    private Set<T> loadSnapshot() {
+        if (!SerializationManager.fileExists(filename)) {
+            return null;
+        }
+        Set<T> data = SerializationManager.loadFromFile(filename);
+        if (data == null) {
+            Path corrupt = Paths.get(filename + ".corrupt-" + System.currentTimeMillis());
+            try {
+                Files.move(Paths.get(filename), corrupt);
+                System.err.println("WARNUNG: Snapshot " + filename + " ist nicht lesbar und wurde nach "
+                        + corrupt + " verschoben. Es wird nur das Mutation-Log geladen.");
+            } catch (IOException e) {
+                System.err.println("WARNUNG: Snapshot " + filename + " ist nicht lesbar: " + e.getMessage());
+            }
+        }
+        return data;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public MutationLog<T> getMutationLog() {
+        return mutationLog;
+    }
+
+    public CompactionMetrics getMetrics() {
+        return metrics;
+    }
+}
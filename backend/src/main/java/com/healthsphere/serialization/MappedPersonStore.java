@@ -0,0 +1,505 @@
+package com.healthsphere.serialization;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.healthsphere.components.Employee;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+
+/**
+ * Memory-mapped Personenspeicher mit Slots fester Größe.
+ *
+ * Jede Person belegt einen Slot von {@value #SLOT_BYTES} Bytes in der
+ * Slot-Datei (z.B. patients.ser.slots); Strings liegen in einem
+ * Überlaufbereich (patients.ser.strings) und werden im Slot über Offset und
+ * Länge referenziert. Beide Dateien werden per {@link FileChannel#map}
+ * eingeblendet:
+ *
+ * - findById dekodiert genau einen Slot direkt aus dem gemappten Bereich
+ * - Änderungen überschreiben den Slot an Ort und Stelle, statt den ganzen
+ *   Bestand neu zu schreiben
+ * - beim Öffnen werden nur die festen Felder jedes Slots gelesen (sortierter
+ *   ID-Index und Index Station -> Patienten), es wird nichts vorab
+ *   deserialisiert; Seiten in ID-Reihenfolge, Patienten einer Station und
+ *   Belegungszahlen kommen ohne den ganzen Bestand aus
+ *
+ * Slot-Aufbau:
+ *
+ * [byte Status][byte Typ][byte Flags][byte -][int wardId][long personId]
+ * [long Geburtsdatum (Epoch-Day)][6 x (int Offset, int Länge)]
+ *
+ * Strings: Name, Vorname, Telefon, E-Mail, Adresse, Abteilung; Länge -1 =
+ * null. Ein geänderter String wird in den bisherigen Platz geschrieben, wenn
+ * er hineinpasst, sonst an den Überlaufbereich angehängt. Freigegebene Slots
+ * werden samt ihres String-Platzes wiederverwendet.
+ *
+ * Pro Datei gibt es genau eine Instanz ({@link #open(String)}), damit alle
+ * Manager auf denselben ID-Index und dieselbe Freiliste zugreifen.
+ *
+ * @param <T> Personentyp (Patient oder Employee)
+ */
+public class MappedPersonStore<T extends Person> {
+    public static final String SLOTS_SUFFIX = ".slots";
+    public static final String STRINGS_SUFFIX = ".strings";
+
+    static final int SLOT_BYTES = 72;
+
+    private static final int SLOTS_MAGIC = 0x48535053; // "HSPS"
+    private static final int STRINGS_MAGIC = 0x4853504F; // "HSPO"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16; // Magic, Version, Slot-Anzahl bzw. Stringende, reserviert
+    private static final int INITIAL_BYTES = 64 * 1024;
+
+    private static final byte SLOT_FREE = 0;
+    private static final byte SLOT_USED = 1;
+    private static final byte TYPE_PATIENT = 1;
+    private static final byte TYPE_EMPLOYEE = 2;
+    private static final byte HAS_BIRTHDATE = 1;
+    private static final byte HAS_WARD = 1 << 1;
+
+    // Positionen innerhalb eines Slots
+    private static final int OFF_STATE = 0;
+    private static final int OFF_TYPE = 1;
+    private static final int OFF_FLAGS = 2;
+    private static final int OFF_WARD = 4;
+    private static final int OFF_ID = 8;
+    private static final int OFF_BIRTHDATE = 16;
+    private static final int OFF_STRINGS = 24;
+    private static final int STRING_FIELDS = 6;
+
+    private static final Map<Path, MappedPersonStore<?>> OPEN_STORES = new HashMap<>();
+
+    private final Path slotsPath;
+    private final Path stringsPath;
+    private FileChannel slotsChannel;
+    private FileChannel stringsChannel;
+    private MappedByteBuffer slots;
+    private MappedByteBuffer strings;
+    private int slotCount; // Anzahl jemals belegter Slots (Hochwassermarke)
+    private int stringsEnd;
+    private boolean created;
+
+    private final NavigableMap<Long, Integer> slotById = new TreeMap<>(); // sortiert für page()
+    private final Map<Integer, Set<Long>> patientsByWard = new HashMap<>(); // wardId -> Patienten-IDs
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private MappedPersonStore(String filename) {
+        this.slotsPath = Paths.get(filename + SLOTS_SUFFIX);
+        this.stringsPath = Paths.get(filename + STRINGS_SUFFIX);
+    }
+
+    /**
+     * Öffnet den Speicher zur angegebenen Basisdatei oder gibt die bereits
+     * geöffnete Instanz zurück.
+     *
+     * @param filename Basisdateiname (z.B. "patients.ser")
+     * @return Geöffneter Speicher oder null bei einem Fehler
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T extends Person> MappedPersonStore<T> open(String filename) {
+        Path key = Paths.get(filename).toAbsolutePath().normalize();
+        MappedPersonStore<?> store = OPEN_STORES.get(key);
+        if (store == null) {
+            MappedPersonStore<T> newStore = new MappedPersonStore<>(filename);
+            try {
+                newStore.map();
+            } catch (IOException e) {
+                System.err.println("Fehler beim Öffnen des Mapped-Stores " + filename + ": " + e.getMessage());
+                newStore.closeChannels();
+                return null;
+            }
+            OPEN_STORES.put(key, newStore);
+            store = newStore;
+        }
+        return (MappedPersonStore<T>) store;
+    }
+
+    // ===== LESEN =====
+
+    public synchronized T get(long personId) {
+        Integer slot = slotById.get(personId);
+        return slot != null ? read(slot) : null;
+    }
+
+    public synchronized boolean contains(long personId) {
+        return slotById.containsKey(personId);
+    }
+
+    /**
+     * Dekodiert nur die Personen mit ID größer after, aufsteigend nach ID.
+     *
+     * @param after ID des letzten Eintrags der vorherigen Seite (null = erste Seite)
+     * @param limit Maximale Anzahl Einträge
+     */
+    public synchronized List<T> page(Long after, int limit) {
+        NavigableMap<Long, Integer> view = after != null ? slotById.tailMap(after, false) : slotById;
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        for (int slot : view.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(read(slot));
+        }
+        return page;
+    }
+
+    /**
+     * Dekodiert nur die Patienten der Station.
+     */
+    public synchronized List<T> findByWard(int wardId) {
+        Set<Long> personIds = patientsByWard.getOrDefault(wardId, Set.of());
+        List<T> result = new ArrayList<>(personIds.size());
+        for (long personId : personIds) {
+            result.add(read(slotById.get(personId)));
+        }
+        return result;
+    }
+
+    /**
+     * @return Anzahl Patienten je Station (Mitarbeiter belegen keine Plätze)
+     */
+    public synchronized Map<Integer, Integer> wardOccupancy() {
+        Map<Integer, Integer> occupancy = new HashMap<>();
+        patientsByWard.forEach((wardId, personIds) -> occupancy.put(wardId, personIds.size()));
+        return occupancy;
+    }
+
+    /**
+     * Dekodiert alle belegten Slots.
+     */
+    public synchronized Set<T> loadAll() {
+        Set<T> result = new HashSet<>(slotById.size() * 4 / 3 + 1);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots.get(slotOffset(slot) + OFF_STATE) == SLOT_USED) {
+                result.add(read(slot));
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return slotById.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return slotById.isEmpty();
+    }
+
+    /**
+     * @return Höchste vergebene ID oder 0
+     */
+    public synchronized long maxId() {
+        return slotById.isEmpty() ? 0 : Math.max(0, slotById.lastKey());
+    }
+
+    /**
+     * @return true wenn die Dateien beim Öffnen neu angelegt wurden
+     */
+    public synchronized boolean wasCreated() {
+        return created;
+    }
+
+    // ===== SCHREIBEN =====
+
+    /**
+     * Schreibt eine Person in ihren Slot (Update an Ort und Stelle) oder in
+     * einen freien Slot.
+     *
+     * @return true wenn erfolgreich geschrieben wurde
+     */
+    public synchronized boolean put(T person) {
+        try {
+            Integer existing = slotById.get(person.getPersonId());
+            Integer previousWard = existing != null ? patientWard(existing) : null;
+            boolean fresh = false;
+            int slot;
+            if (existing != null) {
+                slot = existing;
+            } else if (!freeSlots.isEmpty()) {
+                slot = freeSlots.peek();
+            } else {
+                slot = slotCount;
+                fresh = true;
+                ensureSlotCapacity(slot + 1);
+            }
+            int base = slotOffset(slot);
+
+            // Erst die Strings, dann die festen Felder, zuletzt der Status:
+            // ein neuer Slot wird erst sichtbar, wenn er vollständig ist
+            String department = person instanceof Employee employee ? employee.getDepartment() : null;
+            String[] values = { person.getName(), person.getFirstname(), person.getPhonenumber(),
+                    person.getEmail(), person.getAdress(), department };
+            for (int field = 0; field < STRING_FIELDS; field++) {
+                writeString(base + OFF_STRINGS + field * 8, values[field], !fresh);
+            }
+            strings.putInt(8, stringsEnd);
+
+            Integer wardId = wardIdOf(person);
+            LocalDate birthdate = person.getBirthdate();
+            slots.put(base + OFF_TYPE, person instanceof Employee ? TYPE_EMPLOYEE : TYPE_PATIENT);
+            slots.put(base + OFF_FLAGS, (byte) ((birthdate != null ? HAS_BIRTHDATE : 0)
+                    | (wardId != null ? HAS_WARD : 0)));
+            slots.putInt(base + OFF_WARD, wardId != null ? wardId : 0);
+            slots.putLong(base + OFF_ID, person.getPersonId());
+            slots.putLong(base + OFF_BIRTHDATE, birthdate != null ? birthdate.toEpochDay() : 0);
+            slots.put(base + OFF_STATE, SLOT_USED);
+
+            if (fresh) {
+                slotCount++;
+                slots.putInt(8, slotCount);
+            } else if (existing == null) {
+                freeSlots.poll();
+            }
+            slotById.put(person.getPersonId(), slot);
+            unindexWard(previousWard, person.getPersonId());
+            indexWard(patientWard(slot), person.getPersonId());
+
+            slots.force(base, SLOT_BYTES);
+            slots.force(0, HEADER_BYTES);
+            strings.force();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben in " + slotsPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Gibt den Slot einer Person frei.
+     *
+     * @return true wenn die Person vorhanden war
+     */
+    public synchronized boolean remove(long personId) {
+        Integer slot = slotById.remove(personId);
+        if (slot == null) {
+            return false;
+        }
+        unindexWard(patientWard(slot), personId);
+        int base = slotOffset(slot);
+        slots.put(base + OFF_STATE, SLOT_FREE);
+        slots.force(base, SLOT_BYTES);
+        freeSlots.push(slot);
+        return true;
+    }
+
+    /**
+     * Schreibt alle geänderten Seiten auf die Platte.
+     */
+    public synchronized void force() {
+        if (slots != null) {
+            slots.force();
+            strings.force();
+        }
+    }
+
+    /**
+     * Schreibt alles auf die Platte und gibt die Dateien frei.
+     */
+    public void close() {
+        synchronized (MappedPersonStore.class) {
+            OPEN_STORES.values().remove(this);
+        }
+        synchronized (this) {
+            force();
+            closeChannels();
+            slots = null;
+            strings = null;
+            slotById.clear();
+            patientsByWard.clear();
+            freeSlots.clear();
+        }
+    }
+
+    // ===== INTERN =====
+
+    private void map() throws IOException {
+        slotsChannel = FileChannel.open(slotsPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        stringsChannel = FileChannel.open(stringsPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        created = slotsChannel.size() < HEADER_BYTES;
+
+        slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(slotsChannel.size(), INITIAL_BYTES));
+        strings = stringsChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(stringsChannel.size(), INITIAL_BYTES));
+
+        if (created) {
+            slots.putInt(0, SLOTS_MAGIC);
+            slots.putInt(4, VERSION);
+            slots.putInt(8, 0);
+            strings.putInt(0, STRINGS_MAGIC);
+            strings.putInt(4, VERSION);
+            strings.putInt(8, HEADER_BYTES);
+            force();
+        } else if (slots.getInt(0) != SLOTS_MAGIC || strings.getInt(0) != STRINGS_MAGIC) {
+            throw new IOException("Keine HealthSphere-Slot-Datei");
+        } else if (slots.getInt(4) != VERSION) {
+            throw new IOException("Nicht unterstützte Slot-Version " + slots.getInt(4));
+        }
+
+        slotCount = slots.getInt(8);
+        stringsEnd = strings.getInt(8);
+        if ((long) HEADER_BYTES + (long) slotCount * SLOT_BYTES > slots.capacity()) {
+            throw new IOException("Slot-Datei ist unvollständig");
+        }
+
+        // ID- und Stations-Index aufbauen: nur die festen Felder je Slot lesen
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slotOffset(slot);
+            if (slots.get(base + OFF_STATE) == SLOT_USED) {
+                slotById.put(slots.getLong(base + OFF_ID), slot);
+                indexWard(patientWard(slot), slots.getLong(base + OFF_ID));
+            } else {
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T read(int slot) {
+        int base = slotOffset(slot);
+        byte flags = slots.get(base + OFF_FLAGS);
+        long personId = slots.getLong(base + OFF_ID);
+        LocalDate birthdate = (flags & HAS_BIRTHDATE) != 0
+                ? LocalDate.ofEpochDay(slots.getLong(base + OFF_BIRTHDATE))
+                : null;
+        Integer wardId = (flags & HAS_WARD) != 0 ? slots.getInt(base + OFF_WARD) : null;
+
+        String name = readString(base + OFF_STRINGS);
+        String firstname = readString(base + OFF_STRINGS + 8);
+        String phonenumber = readString(base + OFF_STRINGS + 16);
+        String email = readString(base + OFF_STRINGS + 24);
+        String adress = readString(base + OFF_STRINGS + 32);
+
+        if (slots.get(base + OFF_TYPE) == TYPE_EMPLOYEE) {
+            String department = readString(base + OFF_STRINGS + 40);
+            return (T) Employee.restore(personId, name, firstname, phonenumber, email, birthdate, adress,
+                    department, wardId);
+        }
+        return (T) Patient.restore(personId, name, firstname, phonenumber, email, birthdate, adress, wardId);
+    }
+
+    private String readString(int refPosition) {
+        int length = slots.getInt(refPosition + 4);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        strings.get(slots.getInt(refPosition), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Schreibt einen String in den bisherigen Platz des Feldes, wenn er
+     * hineinpasst, sonst ans Ende des Überlaufbereichs.
+     */
+    private void writeString(int refPosition, String value, boolean reuse) throws IOException {
+        if (value == null) {
+            slots.putInt(refPosition + 4, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int offset;
+        if (reuse && slots.getInt(refPosition + 4) >= bytes.length) {
+            offset = slots.getInt(refPosition);
+        } else {
+            offset = stringsEnd;
+            ensureStringCapacity((long) offset + bytes.length);
+            stringsEnd += bytes.length;
+        }
+        strings.put(offset, bytes);
+        slots.putInt(refPosition, offset);
+        slots.putInt(refPosition + 4, bytes.length);
+    }
+
+    private void ensureSlotCapacity(int count) throws IOException {
+        long needed = HEADER_BYTES + (long) count * SLOT_BYTES;
+        if (needed > slots.capacity()) {
+            slots.force();
+            slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(slots.capacity(), needed));
+        }
+    }
+
+    private void ensureStringCapacity(long needed) throws IOException {
+        if (needed > strings.capacity()) {
+            strings.force();
+            strings = stringsChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(strings.capacity(), needed));
+        }
+    }
+
+    private static long grow(long capacity, long needed) throws IOException {
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Mapped-Store voll (max. 2 GB je Datei)");
+        }
+        return Math.min(Integer.MAX_VALUE, Math.max(needed, capacity * 2));
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // Station eines Patienten-Slots aus den festen Feldern; Mitarbeiter belegen keine Plätze
+    private Integer patientWard(int slot) {
+        int base = slotOffset(slot);
+        if (slots.get(base + OFF_TYPE) != TYPE_PATIENT || (slots.get(base + OFF_FLAGS) & HAS_WARD) == 0) {
+            return null;
+        }
+        return slots.getInt(base + OFF_WARD);
+    }
+
+    private void indexWard(Integer wardId, long personId) {
+        if (wardId != null) {
+            patientsByWard.computeIfAbsent(wardId, k -> new HashSet<>()).add(personId);
+        }
+    }
+
+    private void unindexWard(Integer wardId, long personId) {
+        Set<Long> personIds = wardId != null ? patientsByWard.get(wardId) : null;
+        if (personIds != null && personIds.remove(personId) && personIds.isEmpty()) {
+            patientsByWard.remove(wardId);
+        }
+    }
+
+    private static Integer wardIdOf(Person person) {
+        if (person instanceof Patient patient) {
+            return patient.getWardId();
+        }
+        if (person instanceof Employee employee) {
+            return employee.getWardId();
+        }
+        return null;
+    }
+
+    private void closeChannels() {
+        try {
+            if (slotsChannel != null) {
+                slotsChannel.close();
+            }
+            if (stringsChannel != null) {
+                stringsChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schließen von " + slotsPath + ": " + e.getMessage());
+        }
+        slotsChannel = null;
+        stringsChannel = null;
+    }
+}
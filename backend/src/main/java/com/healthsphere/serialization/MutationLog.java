@@ -0,0 +1,617 @@
+package com.healthsphere.serialization;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only Mutation-Log für die Manager-Persistierung.
+ *
+ * Statt bei jeder Änderung das komplette Set neu zu serialisieren, wird pro
+ * add/update/delete genau ein Datensatz an die Log-Datei angehängt. Beim
+ * Laden wird das Log auf den letzten Snapshot angewendet (Replay).
+ *
+ * Datensatz-Format:
+ *
+ * [int Länge der Nutzdaten][int CRC32][byte Operation][Nutzdaten]
+ *
+ * Die Nutzdaten sind im Binärformat des {@link EntityCodec} kodiert; nur für
+ * Typen, die der Codec nicht kennt, wird Java-Serialisierung verwendet.
+ *
+ * Ein unvollständiger oder beschädigter Datensatz am Dateiende (z.B. nach
+ * einem Absturz mitten im Schreiben) beendet das Replay und wird beim
+ * nächsten Anhängen abgeschnitten.
+ *
+ * Mehrere zusammengehörige Änderungen (Transaktion, siehe
+ * {@link #appendBatch}) stehen in einem einzigen Batch-Datensatz mit der
+ * Operation 0xFF und einer gemeinsamen Prüfsumme; sie werden beim Replay
+ * daher ganz oder gar nicht angewendet:
+ *
+ * [long Transaktions-ID][int Anzahl]{[byte Operation][int Länge][Nutzdaten]}
+ *
+ * Wann ein Datensatz auf die Platte kommt, bestimmt die {@link Durability}:
+ * SYNC schreibt und synchronisiert bei jedem append(), GROUP ebenso, teilt
+ * sich das fsync aber mit gleichzeitigen append()-Aufrufen (Group Commit),
+ * BATCHED schreibt
+ * sofort und synchronisiert erst beim nächsten {@link #flush()}, ASYNC
+ * sammelt die Änderungen im Speicher (je Objekt nur der letzte Stand) und
+ * schreibt sie gesammelt beim nächsten {@link #flush()}.
+ *
+ * @param <T> Typ der protokollierten Objekte
+ */
+public class MutationLog<T extends Serializable> {
+
+    /**
+     * Art der protokollierten Änderung
+     */
+    public enum Operation {
+        ADD, UPDATE, DELETE
+    }
+
+    /**
+     * Haltbarkeit eines append()
+     *
+     * SYNC: Datensatz ist bei Rückkehr geschrieben und synchronisiert
+     * GROUP: wie SYNC; gleichzeitig geschriebene Datensätze werden mit einem
+     * gemeinsamen fsync synchronisiert
+     * BATCHED: Datensatz ist bei Rückkehr geschrieben (übersteht einen
+     * Prozessabsturz), synchronisiert wird beim nächsten flush()
+     * ASYNC: Datensatz wird erst beim nächsten flush() geschrieben
+     */
+    public enum Durability {
+        SYNC, GROUP, BATCHED, ASYNC
+    }
+
+    /**
+     * Einzelne Änderung innerhalb eines Batch-Datensatzes
+     */
+    public record Mutation<T>(Operation operation, T entity) {
+    }
+
+    private record Pending(Operation operation, Object entity) {
+    }
+
+    // Kodierter Datensatz; mutations = Anzahl enthaltener Änderungen
+    private record Frame(int operation, byte[] payload, int mutations) {
+    }
+
+    private static final int HEADER_BYTES = 9; // Länge + CRC + Operation
+    private static final int BATCH = 0xFF; // Operation eines Batch-Datensatzes
+    private static final byte JAVA_STREAM_MAGIC = (byte) 0xAC; // erstes Byte von ObjectOutputStream
+
+    private final Path path;
+    private FileChannel channel;
+    private long validLength = -1; // -1 = noch nicht geprüft
+    private long recordCount;
+    private Durability durability = Durability.SYNC;
+    private final Map<T, Pending> pending = new LinkedHashMap<>(); // ASYNC, je Objekt der letzte Stand
+    private boolean unsynced; // BATCHED: geschrieben, aber noch nicht synchronisiert
+    private long syncCount;
+
+    // Group Commit: fortlaufende Nummern der geschriebenen bzw. synchronisierten Datensätze
+    private final Object syncLock = new Object();
+    private long appendedSeq;
+    private volatile long syncedSeq;
+    private long groupCommitWindowNanos;
+
+    public MutationLog(String filename) {
+        this.path = Paths.get(filename);
+    }
+
+    /**
+     * Hängt einen Datensatz an das Log an; wann er auf der Platte ist,
+     * bestimmt die eingestellte {@link Durability}.
+     *
+     * @param operation Art der Änderung
+     * @param entity    Geändertes Objekt (bei DELETE das entfernte Objekt)
+     */
+    public void append(Operation operation, T entity) {
+        synchronized (this) {
+            if (durability == Durability.ASYNC) {
+                // Objekte sind per ID gleich - ein älterer Stand wird ersetzt
+                pending.put(entity, new Pending(operation, entity));
+                return;
+            }
+        }
+        try {
+            appendDurably(encode(List.of(new Pending(operation, entity))));
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Mutation-Logs " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hängt einen Batch-Datensatz (siehe {@link #encodeBatch}) an; seine
+     * Änderungen werden beim Replay nur gemeinsam angewendet. Im ASYNC-Modus
+     * werden gesammelte Datensätze vorher geschrieben, damit die Reihenfolge
+     * erhalten bleibt.
+     *
+     * @param batch     Kodierter Batch
+     * @param journaled true, wenn der Batch bereits im Transaktions-Journal
+     *                  synchronisiert ist: dann wird nur geschrieben, das
+     *                  fsync folgt mit dem nächsten {@link #flush()}
+     * @return true wenn der Batch geschrieben wurde
+     */
+    public boolean appendBatch(byte[] batch, boolean journaled) {
+        Frame frame = new Frame(BATCH, batch, ByteBuffer.wrap(batch).getInt(Long.BYTES));
+        try {
+            synchronized (this) {
+                if (!pending.isEmpty()) {
+                    write(encode(new ArrayList<>(pending.values())));
+                    pending.clear();
+                    unsynced = true;
+                }
+                if (journaled) {
+                    write(List.of(frame));
+                    unsynced = true;
+                    return true;
+                }
+            }
+            appendDurably(List.of(frame));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Mutation-Logs " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Schreibt Datensätze und synchronisiert sie gemäß der Durability (ASYNC wie BATCHED)
+    private void appendDurably(List<Frame> frames) throws IOException {
+        long seq;
+        synchronized (this) {
+            write(frames);
+            if (durability == Durability.SYNC) {
+                channel.force(false);
+                syncCount++;
+                return;
+            }
+            if (durability != Durability.GROUP) {
+                unsynced = true;
+                return;
+            }
+            seq = appendedSeq;
+        }
+        awaitGroupCommit(seq);
+    }
+
+    /**
+     * Kodiert zusammengehörige Änderungen als Nutzdaten eines
+     * Batch-Datensatzes.
+     *
+     * @param transactionId Kennung für die Wiederherstellung aus dem
+     *                      Transaktions-Journal (0 = ohne Journal)
+     */
+    public static byte[] encodeBatch(long transactionId, List<? extends Mutation<?>> mutations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(transactionId);
+        out.writeInt(mutations.size());
+        for (Mutation<?> mutation : mutations) {
+            byte[] payload = serialize(mutation.entity());
+            out.writeByte(mutation.operation().ordinal());
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return Transaktions-ID eines kodierten Batches
+     */
+    public static long transactionId(byte[] batch) {
+        return ByteBuffer.wrap(batch).getLong(0);
+    }
+
+    /**
+     * @return true, wenn ein gültiger Batch-Datensatz mit dieser
+     *         Transaktions-ID im Log steht
+     */
+    public synchronized boolean containsTransaction(long transactionId) {
+        boolean[] found = new boolean[1];
+        readRecords(null, Long.MAX_VALUE, id -> found[0] |= id == transactionId);
+        return found[0];
+    }
+
+    /**
+     * Wartet, bis der Datensatz mit der Nummer seq synchronisiert ist.
+     *
+     * Wer den syncLock bekommt, synchronisiert alle bis dahin geschriebenen
+     * Datensätze mit einem fsync; Threads, die in der Zwischenzeit
+     * geschrieben haben, finden ihren Datensatz danach bereits synchronisiert
+     * vor und kehren ohne eigenes fsync zurück.
+     */
+    private void awaitGroupCommit(long seq) {
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos); // weitere Datensätze einsammeln
+            }
+            long target;
+            FileChannel ch;
+            synchronized (this) {
+                target = appendedSeq;
+                ch = channel;
+                syncCount++;
+            }
+            try {
+                if (ch != null) {
+                    ch.force(false);
+                }
+            } catch (ClosedChannelException e) {
+                // Log wurde inzwischen umgeschrieben - dabei wurde bereits synchronisiert
+            } catch (IOException e) {
+                System.err.println("Fehler beim Synchronisieren des Mutation-Logs " + path + ": " + e.getMessage());
+                return;
+            }
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Schreibt alle gesammelten Datensätze in einem Rutsch und synchronisiert
+     * die Datei.
+     *
+     * @return Anzahl der geschriebenen Datensätze
+     */
+    public synchronized int flush() {
+        int written = pending.size();
+        try {
+            if (written > 0) {
+                write(encode(new ArrayList<>(pending.values())));
+                pending.clear();
+                unsynced = true;
+            }
+            if (unsynced && channel != null) {
+                channel.force(false);
+                unsynced = false;
+                syncCount++;
+            }
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Mutation-Logs " + path + ": " + e.getMessage());
+            return 0;
+        }
+        return written;
+    }
+
+    /**
+     * Stellt die Haltbarkeit um; noch gesammelte Datensätze werden vorher
+     * geschrieben.
+     */
+    public synchronized void setDurability(Durability durability) {
+        flush();
+        this.durability = durability;
+    }
+
+    public synchronized Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Legt fest, wie lange der Group Commit vor dem fsync auf weitere
+     * Datensätze wartet (0 = nur die ohnehin wartenden mitnehmen).
+     */
+    public synchronized void setGroupCommitWindowMicros(long micros) {
+        this.groupCommitWindowNanos = micros * 1000;
+    }
+
+    /**
+     * @return Anzahl der bisher ausgeführten fsync-Aufrufe
+     */
+    public synchronized long syncCount() {
+        return syncCount;
+    }
+
+    /**
+     * @return Anzahl der noch nicht geschriebenen Datensätze (ASYNC)
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private static List<Frame> encode(List<Pending> records) throws IOException {
+        List<Frame> frames = new ArrayList<>(records.size());
+        for (Pending record : records) {
+            frames.add(new Frame(record.operation().ordinal(), serialize(record.entity()), 1));
+        }
+        return frames;
+    }
+
+    private void write(List<Frame> frames) throws IOException {
+        int size = 0;
+        int mutations = 0;
+        for (Frame frame : frames) {
+            size += HEADER_BYTES + frame.payload().length;
+            mutations += frame.mutations();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Frame frame : frames) {
+            buffer.putInt(frame.payload().length);
+            buffer.putInt(checksum(frame.operation(), frame.payload()));
+            buffer.put((byte) frame.operation());
+            buffer.put(frame.payload());
+        }
+        buffer.flip();
+
+        FileChannel ch = openForAppend();
+        while (buffer.hasRemaining()) {
+            ch.write(buffer);
+        }
+        validLength = ch.position();
+        recordCount += mutations;
+        appendedSeq += frames.size();
+    }
+
+    /**
+     * Wendet alle gültigen Datensätze des Logs auf das übergebene Set an.
+     *
+     * Da equals()/hashCode() aller Fachklassen auf der ID basieren, ersetzt
+     * ADD/UPDATE ein eventuell vorhandenes Objekt gleicher ID.
+     *
+     * @param target Set, auf das das Log angewendet wird
+     * @return Anzahl der angewendeten Datensätze
+     */
+    public synchronized int replay(Set<T> target) {
+        int applied = readRecords(target, Long.MAX_VALUE, null);
+        if (applied > 0) {
+            System.out.println(applied + " Änderung(en) aus " + path + " nachgespielt.");
+        }
+        return applied;
+    }
+
+    /**
+     * Wendet nur die Datensätze bis zur angegebenen Byte-Position an.
+     *
+     * Wird von der Kompaktierung verwendet; das Log selbst wird dabei nicht
+     * gesperrt, sodass parallel weiter angehängt werden kann.
+     *
+     * @param target Set, auf das das Log angewendet wird
+     * @param upTo   Byte-Position (exklusiv), z.B. aus {@link #length()}
+     * @return Anzahl der angewendeten Datensätze
+     */
+    public int replay(Set<T> target, long upTo) {
+        return readRecords(target, upTo, null);
+    }
+
+    /**
+     * Entfernt alle Datensätze vor der angegebenen Position, nachdem sie in
+     * einen Snapshot übernommen wurden. Danach angehängte Datensätze bleiben
+     * erhalten.
+     *
+     * @param mark     Byte-Position (aus {@link #length()})
+     * @param recordsBeforeMark Anzahl der entfernten Datensätze
+     */
+    public synchronized void discardPrefix(long mark, long recordsBeforeMark) {
+        try {
+            long end = length();
+            if (mark >= end) {
+                truncate();
+                return;
+            }
+
+            closeChannel(); // gesammelte Datensätze bleiben für den nächsten flush() erhalten
+            Path tmp = Paths.get(path + ".tmp");
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long copied = 0;
+                while (copied < end - mark) {
+                    copied += in.transferTo(mark + copied, end - mark - copied, out);
+                }
+                out.force(false);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SerializationManager.syncDirectory(path.toAbsolutePath().getParent());
+            validLength = end - mark;
+            recordCount = Math.max(0, recordCount - recordsBeforeMark);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Kürzen des Mutation-Logs " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Leert das Log, nachdem ein vollständiger Snapshot geschrieben wurde.
+     */
+    public synchronized void truncate() {
+        try {
+            if (channel != null) {
+                channel.truncate(0);
+                channel.force(false);
+            } else {
+                Files.deleteIfExists(path);
+            }
+            validLength = 0;
+            recordCount = 0;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Leeren des Mutation-Logs " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Länge des gültigen Log-Inhalts in Bytes
+     */
+    public synchronized long length() {
+        if (validLength < 0) {
+            readRecords(null, Long.MAX_VALUE, null);
+        }
+        return validLength;
+    }
+
+    /**
+     * @return Anzahl der Datensätze im Log
+     */
+    public synchronized long recordCount() {
+        if (validLength < 0) {
+            readRecords(null, Long.MAX_VALUE, null);
+        }
+        return recordCount;
+    }
+
+    public synchronized void close() {
+        flush();
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Fehler beim Schließen des Mutation-Logs " + path + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Liest alle gültigen Datensätze bis zur Position upTo. Bei target == null
+     * werden nur die Prüfsummen kontrolliert und die gültige Länge ermittelt.
+     *
+     * @param transactions erhält die Transaktions-ID jedes Batch-Datensatzes
+     *                     (null = nicht benötigt)
+     * @return Anzahl der Änderungen (ein Batch zählt mit seinem Inhalt)
+     */
+    private int readRecords(Set<T> target, long upTo, LongConsumer transactions) {
+        if (!Files.exists(path)) {
+            if (target == null) {
+                validLength = 0;
+                recordCount = 0;
+            }
+            return 0;
+        }
+
+        int count = 0;
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            long fileSize = Files.size(path);
+            while (offset < upTo) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                int crc = in.readInt();
+                int opIndex = in.readUnsignedByte();
+                // Die Länge ist nicht durch die Prüfsumme gedeckt: reicht sie über das
+                // Dateiende hinaus, ist der Datensatz unvollständig (kein Riesen-Array anlegen)
+                if (length < 0 || length > fileSize - offset - HEADER_BYTES
+                        || (opIndex >= Operation.values().length && opIndex != BATCH)) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(opIndex, payload) != crc) {
+                    break;
+                }
+
+                if (opIndex == BATCH) {
+                    count += readBatch(payload, target, transactions);
+                } else {
+                    if (target != null) {
+                        apply(target, Operation.values()[opIndex], deserialize(payload));
+                    }
+                    count++;
+                }
+                offset += HEADER_BYTES + length;
+            }
+        } catch (EOFException e) {
+            // Unvollständiger Datensatz am Ende - wird beim nächsten Anhängen verworfen
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Fehler beim Lesen des Mutation-Logs " + path + ": " + e.getMessage());
+        }
+
+        if (upTo == Long.MAX_VALUE && channel == null) {
+            validLength = offset;
+            recordCount = count;
+        }
+        return count;
+    }
+
+    // Wendet die Änderungen eines Batch-Datensatzes an; liefert ihre Anzahl
+    private int readBatch(byte[] batch, Set<T> target, LongConsumer transactions)
+            throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch));
+        long transactionId = in.readLong();
+        int mutations = in.readInt();
+        if (transactions != null) {
+            transactions.accept(transactionId);
+        }
+        if (target != null) {
+            for (int i = 0; i < mutations; i++) {
+                Operation operation = Operation.values()[in.readUnsignedByte()];
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                apply(target, operation, deserialize(payload));
+            }
+        }
+        return mutations;
+    }
+
+    private static <T> void apply(Set<T> target, Operation operation, T entity) {
+        target.remove(entity);
+        if (operation != Operation.DELETE) {
+            target.add(entity);
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        if (channel == null) {
+            if (validLength < 0) {
+                readRecords(null, Long.MAX_VALUE, null); // nur gültige Länge ermitteln
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                channel.truncate(validLength); // beschädigtes Ende verwerfen
+            }
+            channel.position(validLength);
+        }
+        return channel;
+    }
+
+    private static int checksum(int operation, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(operation);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] serialize(Object entity) throws IOException {
+        if (EntityCodec.supports(entity)) {
+            return EntityCodec.toBytes(entity);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(entity);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T deserialize(byte[] payload) throws IOException, ClassNotFoundException {
+        if (payload.length > 0 && payload[0] != JAVA_STREAM_MAGIC) {
+            return (T) EntityCodec.fromBytes(payload);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (T) ois.readObject();
+        }
+    }
+}
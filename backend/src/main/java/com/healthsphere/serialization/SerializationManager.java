@@ -1,17 +1,40 @@
 package com.healthsphere.serialization;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Zentrale Klasse für die Serialisierung und Deserialisierung von Objekten.
  * 
  * Der SerializationManager implementiert das gewählte Persistierungskonzept
- * (Java-Serialisierung) aus Phase 3 und bietet generische Methoden zum
- * Speichern und Laden von Objektsammlungen.
+ * aus Phase 3 und bietet generische Methoden zum Speichern und Laden von
+ * Objektsammlungen.
+ * 
+ * Sammlungen der Fachklassen werden im kompakten Binärformat des
+ * {@link EntityCodec} gespeichert. Beim Laden wird das Format anhand der
+ * ersten Bytes erkannt, sodass bestehende .ser-Dateien (Java-Serialisierung)
+ * weiterhin gelesen und beim nächsten Speichern migriert werden.
+ * 
+ * Gespeichert wird immer absturzsicher: erst in eine temporäre Datei, dann
+ * fsync, dann atomares Umbenennen auf die Zieldatei. Eine beschädigte
+ * Zieldatei durch einen Absturz mitten im Schreiben ist damit ausgeschlossen.
  * 
  */
 public class SerializationManager {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TMP_SUFFIX = ".tmp";
+
+    // Ein Schreiber je Zieldatei, da alle dieselbe temporäre Datei verwenden
+    private static final Map<Path, Object> FILE_LOCKS = new ConcurrentHashMap<>();
 
     /**
      * Generische Methode zum Speichern von Objektsammlungen in eine Datei.
@@ -21,12 +44,66 @@ public class SerializationManager {
      * @param filename Dateiname für Serialisierung
      * @return true wenn Speichern erfolgreich war
      */
-    public static <T extends Serializable> void saveToFile(Set<T> data, String filename) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(data);
-            System.out.println("Daten erfolgreich in " + filename + " gespeichert.");
+    public static <T extends Serializable> boolean saveToFile(Set<T> data, String filename) {
+        if (saveToFileAtomic(data, filename) < 0) {
+            return false;
+        }
+        System.out.println("Daten erfolgreich in " + filename + " gespeichert.");
+        return true;
+    }
+
+    /**
+     * Speichert eine Objektsammlung zunächst in eine temporäre Datei und
+     * ersetzt die Zieldatei anschließend atomar. Ein Leser sieht dadurch
+     * immer entweder den alten oder den neuen vollständigen Stand; nach dem
+     * Umbenennen wird auch das Verzeichnis synchronisiert, damit der neue
+     * Stand einen Stromausfall übersteht.
+     *
+     * @param <T>      Der Typ der zu speichernden Objekte
+     * @param data     Set der zu speichernden Objekte
+     * @param filename Dateiname für Serialisierung
+     * @return Anzahl geschriebener Bytes oder -1 bei Fehlern
+     */
+    public static <T extends Serializable> long saveToFileAtomic(Set<T> data, String filename) {
+        Path target = Paths.get(filename).toAbsolutePath().normalize();
+        Path tmp = Paths.get(target + TMP_SUFFIX);
+        synchronized (FILE_LOCKS.computeIfAbsent(target, key -> new Object())) {
+            try {
+                try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                        OutputStream out = new BufferedOutputStream(fos, BUFFER_SIZE)) {
+                    writeData(data, out);
+                    out.flush();
+                    fos.getFD().sync();
+                }
+                long bytes = Files.size(tmp);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(target.getParent());
+                return bytes;
+            } catch (IOException e) {
+                System.err.println("Fehler beim Speichern: " + e.getMessage());
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // Wird beim nächsten Speichern überschrieben
+                }
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Synchronisiert einen Verzeichniseintrag (z.B. nach einem Umbenennen).
+     * Nicht jedes Betriebssystem erlaubt das; dann bleibt es beim fsync der
+     * Datei selbst.
+     */
+    static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
         } catch (IOException e) {
-            System.err.println("Fehler beim Speichern: " + e.getMessage());
+            // z.B. unter Windows nicht unterstützt
         }
     }
 
@@ -39,8 +116,14 @@ public class SerializationManager {
      */
     @SuppressWarnings("unchecked")
     public static <T extends Serializable> Set<T> loadFromFile(String filename) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            Set<T> data = (Set<T>) ois.readObject();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename), BUFFER_SIZE)) {
+            Set<T> data;
+            if (startsWithMagic(in)) {
+                data = EntityCodec.readSnapshot(in);
+            } else {
+                // Altes Format (Java-Serialisierung) - wird beim nächsten Speichern migriert
+                data = (Set<T>) new ObjectInputStream(in).readObject();
+            }
             System.out.println("Daten erfolgreich aus " + filename + " geladen.");
             return data;
         } catch (IOException | ClassNotFoundException e) {
@@ -49,6 +132,41 @@ public class SerializationManager {
         }
     }
 
+    /**
+     * Prüft, ob eine Datei noch im alten Format (Java-Serialisierung) vorliegt.
+     *
+     * @param filename Zu prüfende Datei
+     * @return true wenn die Datei existiert und nicht im Codec-Format ist
+     */
+    public static boolean isLegacyFormat(String filename) {
+        if (!fileExists(filename)) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+            return !startsWithMagic(in);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static <T extends Serializable> void writeData(Set<T> data, OutputStream out) throws IOException {
+        if (EntityCodec.supportsAll(data)) {
+            EntityCodec.writeSnapshot(data, out);
+        } else {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(data instanceof Serializable ? data : new HashSet<>(data)); // z.B. Snapshot-Sichten
+            oos.flush();
+        }
+    }
+
+    private static boolean startsWithMagic(InputStream in) throws IOException {
+        byte[] header = new byte[4];
+        in.mark(header.length);
+        int read = in.readNBytes(header, 0, header.length);
+        in.reset();
+        return read == header.length && EntityCodec.hasMagic(header);
+    }
+
     // Methode zum Prüfen ob eine Datei existiert
     public static boolean fileExists(String filename) {
         File file = new File(filename);
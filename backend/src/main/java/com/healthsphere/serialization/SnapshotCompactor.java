@@ -0,0 +1,115 @@
+package com.healthsphere.serialization;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hintergrund-Kompaktierung für alle registrierten LogStores.
+ *
+ * Ein einzelner Daemon-Thread prüft periodisch, ob das Mutation-Log eines
+ * Stores die konfigurierte Mindestgröße überschritten hat, und faltet es
+ * dann in einen neuen Snapshot (siehe {@link LogStore#compact()}). Snapshots
+ * im alten Format (Java-Serialisierung) werden beim ersten Lauf einmalig ins
+ * Codec-Format migriert. Die Request-Threads der Controller werden dabei
+ * nicht blockiert.
+ *
+ * Konfiguration (application.properties oder -D):
+ * - healthsphere.compaction.interval-ms (Standard: 60000)
+ * - healthsphere.compaction.min-log-bytes (Standard: 262144)
+ */
+@Component
+public class SnapshotCompactor {
+    private final Map<String, LogStore<?>> stores = new ConcurrentHashMap<>();
+    private final long intervalMillis;
+    private final long minLogBytes;
+    private ScheduledExecutorService scheduler;
+
+    public SnapshotCompactor(
+            @Value("${healthsphere.compaction.interval-ms:60000}") long intervalMillis,
+            @Value("${healthsphere.compaction.min-log-bytes:262144}") long minLogBytes) {
+        this.intervalMillis = intervalMillis;
+        this.minLogBytes = minLogBytes;
+    }
+
+    /**
+     * Registriert den Store eines Managers für die Kompaktierung
+     *
+     * @param name  Anzeigename (z.B. "patients")
+     * @param store Store des Managers (kann null sein, wenn ohne Datei)
+     */
+    public void register(String name, LogStore<?> store) {
+        if (store != null) {
+            stores.put(name, store);
+        }
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (scheduler == null && intervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::compactIfNeeded,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Kompaktiert alle Stores, deren Log die Mindestgröße überschritten hat.
+     */
+    public void compactIfNeeded() {
+        stores.forEach((name, store) -> {
+            try {
+                if (store.needsCompaction(minLogBytes)) {
+                    store.compact();
+                }
+            } catch (Exception e) {
+                System.err.println("Fehler bei der Kompaktierung von " + name + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Kompaktiert alle Stores unabhängig von der Log-Größe.
+     */
+    public void compactAll() {
+        stores.forEach((name, store) -> {
+            try {
+                store.compact();
+            } catch (Exception e) {
+                System.err.println("Fehler bei der Kompaktierung von " + name + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Gibt Kompaktierungsdauer, geschriebene Bytes und Log-Länge je Store
+     * zurück
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        stores.forEach((name, store) -> metrics.put(name,
+                store.getMetrics().toMap(store.getMutationLog())));
+        return metrics;
+    }
+}
@@ -0,0 +1,282 @@
+package com.healthsphere.serialization;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Journal für Transaktionen über mehrere Mutation-Logs.
+ *
+ * Eine Transaktion schreibt je beteiligtem Log einen Batch-Datensatz (siehe
+ * {@link MutationLog#appendBatch}). Damit nach einem Absturz nicht nur ein
+ * Teil der Logs die Transaktion enthält, stehen alle Batches vorher in einem
+ * einzigen Eintrag dieses Journals, der als einziger synchronisiert wird; die
+ * Logs selbst werden erst mit dem nächsten flush() synchronisiert.
+ *
+ * Beim Laden ergänzt {@link LogStore#load()} jedes Log um die Batches aus dem
+ * Journal, die ihm fehlen (erkannt an der Transaktions-ID). Sobald ein Log
+ * synchronisiert in einen Snapshot übernommen wird, werden seine Batches aus
+ * dem Journal entfernt ({@link #forget}); das Journal bleibt dadurch klein.
+ *
+ * Eintrag-Format:
+ *
+ * [int Länge][int CRC32][long Transaktions-ID][int Anzahl]{[UTF Datendatei][int Länge][Batch]}
+ *
+ * Es gibt ein Journal je Verzeichnis (transactions.log neben den
+ * .ser-Dateien); alle Manager einer Transaktion müssen im selben Verzeichnis
+ * speichern.
+ */
+public final class TransactionJournal {
+    public static final String FILENAME = "transactions.log";
+    private static final Map<Path, TransactionJournal> JOURNALS = new ConcurrentHashMap<>();
+
+    private record Entry(long transactionId, Map<String, byte[]> batches) {
+    }
+
+    private final Path path;
+    private List<Entry> entries; // null = noch nicht gelesen
+    private long validLength;
+    private FileChannel channel;
+
+    private TransactionJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @param filename Datendatei eines Managers (z.B. "patients.ser")
+     * @return Gemeinsames Journal im Verzeichnis dieser Datei
+     */
+    public static TransactionJournal forFile(String filename) {
+        Path directory = Paths.get(filename).toAbsolutePath().normalize().getParent();
+        return JOURNALS.computeIfAbsent(directory.resolve(FILENAME), TransactionJournal::new);
+    }
+
+    /**
+     * @return Neue Transaktions-ID (zufällig, nie 0), eindeutig auch über
+     *         Neustarts hinweg
+     */
+    public static long newTransactionId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Schreibt die Batches einer Transaktion als einen Eintrag und
+     * synchronisiert ihn; erst danach hängt appendToLogs sie an die
+     * Mutation-Logs an (ohne eigenes fsync).
+     *
+     * @param batches Datendatei -> kodierter Batch (alle mit derselben
+     *                Transaktions-ID)
+     * @return false, wenn das Journal nicht geschrieben werden konnte
+     */
+    public synchronized boolean commit(Map<String, byte[]> batches, Runnable appendToLogs) {
+        Map<String, byte[]> byKey = new LinkedHashMap<>();
+        batches.forEach((filename, batch) -> byKey.put(key(filename), batch));
+        Entry entry = new Entry(MutationLog.transactionId(batches.values().iterator().next()), byKey);
+        try {
+            List<Entry> current = entries();
+            ByteBuffer frame = ByteBuffer.wrap(encode(entry));
+            FileChannel ch = openForAppend();
+            while (frame.hasRemaining()) {
+                ch.write(frame);
+            }
+            ch.force(false);
+            validLength = ch.position();
+            current.add(entry);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Transaktions-Journals " + path + ": " + e.getMessage());
+            try {
+                closeChannel(); // beim nächsten commit() ab validLength neu öffnen
+            } catch (IOException ignored) {
+                // Kanal ist ohnehin unbrauchbar
+            }
+            return false;
+        }
+        appendToLogs.run();
+        return true;
+    }
+
+    /**
+     * @return Batches im Journal für eine Datendatei, in Commit-Reihenfolge
+     */
+    public synchronized List<byte[]> pending(String filename) {
+        String key = key(filename);
+        List<byte[]> result = new ArrayList<>();
+        for (Entry entry : entries()) {
+            byte[] batch = entry.batches().get(key);
+            if (batch != null) {
+                result.add(batch);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Entfernt alle Batches einer Datendatei, nachdem sie in deren Snapshot
+     * bzw. Log übernommen wurden.
+     *
+     * @param syncLog synchronisiert vorher das Mutation-Log der Datei, damit
+     *                Batches hinter der Snapshot-Marke nicht verloren gehen
+     */
+    public synchronized void forget(String filename, Runnable syncLog) {
+        String key = key(filename);
+        List<Entry> current = entries();
+        if (current.stream().noneMatch(entry -> entry.batches().containsKey(key))) {
+            return;
+        }
+        syncLog.run();
+
+        List<Entry> remaining = new ArrayList<>();
+        for (Entry entry : current) {
+            Map<String, byte[]> batches = new LinkedHashMap<>(entry.batches());
+            batches.remove(key);
+            if (!batches.isEmpty()) {
+                remaining.add(new Entry(entry.transactionId(), batches));
+            }
+        }
+        try {
+            closeChannel();
+            if (remaining.isEmpty()) {
+                Files.deleteIfExists(path);
+                validLength = 0;
+            } else {
+                Path tmp = Paths.get(path + ".tmp");
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                for (Entry entry : remaining) {
+                    bytes.write(encode(entry));
+                }
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    out.write(ByteBuffer.wrap(bytes.toByteArray()));
+                    out.force(false);
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                validLength = bytes.size();
+            }
+            SerializationManager.syncDirectory(path.getParent());
+            entries = remaining;
+        } catch (IOException e) {
+            // Einträge bleiben erhalten; beim Laden werden vorhandene Batches erkannt
+            System.err.println("Fehler beim Kürzen des Transaktions-Journals " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Anzahl der Transaktionen im Journal
+     */
+    public synchronized int size() {
+        return entries().size();
+    }
+
+    private static String key(String filename) {
+        return Paths.get(filename).toAbsolutePath().normalize().toString();
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.transactionId());
+        out.writeInt(entry.batches().size());
+        for (Map.Entry<String, byte[]> batch : entry.batches().entrySet()) {
+            out.writeUTF(batch.getKey());
+            out.writeInt(batch.getValue().length);
+            out.write(batch.getValue());
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .array();
+    }
+
+    // Liest alle gültigen Einträge; ein beschädigtes Ende wird beim nächsten commit() abgeschnitten
+    private List<Entry> entries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new ArrayList<>();
+        validLength = 0;
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            long fileSize = Files.size(path);
+            while (true) {
+                int length = in.readInt();
+                int crc = in.readInt();
+                if (length < 0 || length > fileSize - validLength - 8) {
+                    break; // Länge nicht durch die Prüfsumme gedeckt - wie unvollständiger Eintrag
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(payload) != crc) {
+                    break;
+                }
+                DataInputStream entry = new DataInputStream(new ByteArrayInputStream(payload));
+                long transactionId = entry.readLong();
+                int count = entry.readInt();
+                Map<String, byte[]> batches = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String filename = entry.readUTF();
+                    byte[] batch = new byte[entry.readInt()];
+                    entry.readFully(batch);
+                    batches.put(filename, batch);
+                }
+                entries.add(new Entry(transactionId, batches));
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // Ende bzw. unvollständiger Eintrag nach einem Absturz
+        } catch (IOException e) {
+            System.err.println("Fehler beim Lesen des Transaktions-Journals " + path + ": " + e.getMessage());
+        }
+        return entries;
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                channel.truncate(validLength); // beschädigtes Ende verwerfen
+            }
+            channel.position(validLength);
+        }
+        return channel;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.healthsphere.serialization;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthsphere.serialization.MutationLog.Durability;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-Behind für die Mutation-Logs aller registrierten LogStores.
+ *
+ * Bei BATCHED und ASYNC kehren die Manager zurück, sobald der Stand im
+ * Speicher geändert ist; ein einzelner Daemon-Thread schreibt bzw.
+ * synchronisiert höchstens alle N Millisekunden alle gesammelten Änderungen.
+ * Mehrere Änderungen am selben Objekt innerhalb eines Intervalls werden
+ * dabei zu einem Datensatz zusammengefasst (ASYNC). Beim regulären
+ * Herunterfahren wird ein letztes Mal geschrieben, damit nichts verloren geht.
+ *
+ * Konfiguration (application.properties oder -D):
+ * - healthsphere.persistence.durability: sync, group, batched oder async
+ *   (Standard: sync)
+ * - healthsphere.persistence.flush-interval-ms (Standard: 50)
+ * - healthsphere.persistence.group-commit-window-micros (Standard: 0)
+ */
+@Component
+public class WriteBehindFlusher {
+    private final Map<String, LogStore<?>> stores = new ConcurrentHashMap<>();
+    private final Durability durability;
+    private final long flushIntervalMillis;
+    private final long groupCommitWindowMicros;
+    private ScheduledExecutorService scheduler;
+
+    public WriteBehindFlusher(
+            @Value("${healthsphere.persistence.durability:sync}") String durability,
+            @Value("${healthsphere.persistence.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${healthsphere.persistence.group-commit-window-micros:0}") long groupCommitWindowMicros) {
+        this.durability = Durability.valueOf(durability.toUpperCase());
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.groupCommitWindowMicros = groupCommitWindowMicros;
+    }
+
+    /**
+     * Registriert den Store eines Managers und stellt seine Haltbarkeit ein
+     *
+     * @param name  Anzeigename (z.B. "patients")
+     * @param store Store des Managers (kann null sein, wenn ohne Datei)
+     */
+    public void register(String name, LogStore<?> store) {
+        if (store != null) {
+            store.getMutationLog().setDurability(durability);
+            store.getMutationLog().setGroupCommitWindowMicros(groupCommitWindowMicros);
+            stores.put(name, store);
+        }
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        boolean writeBehind = durability == Durability.BATCHED || durability == Durability.ASYNC;
+        if (scheduler == null && writeBehind && flushIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "write-behind-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushAll,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Beendet den Hintergrund-Thread und schreibt alle offenen Änderungen.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(flushIntervalMillis + 1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        flushAll();
+    }
+
+    /**
+     * Schreibt die gesammelten Änderungen aller Stores.
+     */
+    public void flushAll() {
+        stores.forEach((name, store) -> {
+            try {
+                store.flush();
+            } catch (Exception e) {
+                System.err.println("Fehler beim Schreiben von " + name + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+}
@@ -0,0 +1,78 @@
+package com.healthsphere;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.serialization.SerializationManager;
+
+/**
+ * Vergleicht Java-Serialisierung mit dem EntityCodec (Dateigröße und
+ * Ladezeit von load()).
+ *
+ * Aufruf: java ... com.healthsphere.CodecBenchmark [Anzahl Patienten]
+ * (Standard: 1.000.000)
+ */
+public class CodecBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("=== CODEC BENCHMARK (" + count + " Patienten) ===\n");
+
+        Set<Patient> patients = new HashSet<>();
+        LocalDate base = LocalDate.of(1940, 1, 1);
+        for (int i = 1; i <= count; i++) {
+            patients.add(Patient.restore(i, "Name" + (i % 5000), "Vorname" + (i % 700),
+                    "0301234" + i, "patient" + i + "@test.de", base.plusDays(i % 25000),
+                    "Hauptstraße " + (i % 300), i % 3 == 0 ? null : (i % 40) + 1));
+        }
+
+        Path dir = Files.createTempDirectory("codec-bench");
+        Path legacyFile = dir.resolve("legacy.ser");
+        Path codecFile = dir.resolve("codec.ser");
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(legacyFile.toFile())))) {
+            oos.writeObject(patients);
+        }
+        SerializationManager.saveToFile(patients, codecFile.toString());
+
+        long legacySize = Files.size(legacyFile);
+        long codecSize = Files.size(codecFile);
+        System.out.printf("Dateigröße Java-Serialisierung: %,d Bytes%n", legacySize);
+        System.out.printf("Dateigröße EntityCodec:         %,d Bytes (%.1f%%)%n",
+                codecSize, 100.0 * codecSize / legacySize);
+
+        long legacyMillis = Long.MAX_VALUE;
+        long codecMillis = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(legacyFile.toFile())))) {
+                ois.readObject();
+            }
+            legacyMillis = Math.min(legacyMillis, (System.nanoTime() - start) / 1_000_000);
+
+            start = System.nanoTime();
+            SerializationManager.loadFromFile(codecFile.toString());
+            codecMillis = Math.min(codecMillis, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        System.out.printf("%nLaden Java-Serialisierung: %,d ms%n", legacyMillis);
+        System.out.printf("Laden EntityCodec:         %,d ms%n", codecMillis);
+        System.out.printf("Faktor: %.1fx%n", (double) legacyMillis / Math.max(1, codecMillis));
+
+        Files.deleteIfExists(legacyFile);
+        Files.deleteIfExists(codecFile);
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,61 @@
+package com.healthsphere;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.healthsphere.components.Treatment;
+import com.healthsphere.serialization.MutationLog;
+import com.healthsphere.serialization.MutationLog.Durability;
+
+/**
+ * Vergleicht den Durchsatz des Mutation-Logs für alle Haltbarkeitsstufen
+ * (SYNC, GROUP, BATCHED, ASYNC) bei gleichzeitig schreibenden Threads.
+ *
+ * Aufruf: java ... com.healthsphere.DurabilityBenchmark [Threads] [Datensätze je Thread]
+ * (Standard: 8 Threads, 500 Datensätze)
+ */
+public class DurabilityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        System.out.println("=== DURABILITY BENCHMARK (" + threads + " Threads x " + perThread + " Datensätze) ===\n");
+
+        Path dir = Files.createTempDirectory("durability-bench");
+        for (Durability durability : Durability.values()) {
+            Path file = dir.resolve(durability.name().toLowerCase() + ".ser.log");
+            MutationLog<Treatment> log = new MutationLog<>(file.toString());
+            log.setDurability(durability);
+
+            List<Thread> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                Thread worker = new Thread(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        log.append(MutationLog.Operation.ADD, new Treatment(offset + i,
+                                LocalDate.of(2024, 1, 1).plusDays(i % 365), "Therapie " + i, i, 10L));
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            log.flush(); // BATCHED/ASYNC: letzter Flush gehört zur Messung
+            long nanos = System.nanoTime() - start;
+
+            long total = (long) threads * perThread;
+            System.out.printf("%-8s %,10.0f Datensätze/s  %,6d fsyncs  %,8d ms%n", durability,
+                    total * 1e9 / nanos, log.syncCount(), nanos / 1_000_000);
+
+            log.close();
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,156 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.components.Employee;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.serialization.EntityCodec;
+import com.healthsphere.serialization.SerializationManager;
+
+/**
+ * Testet das Binärformat (EntityCodec) und die Migration alter .ser-Dateien.
+ */
+public class EntityCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Alle Fachklassen überstehen Kodieren und Dekodieren")
+    public void testRoundTrip() throws IOException {
+        Patient patient = Patient.createForTest(7L, "Müller", "Jörg", null, "j@test.de",
+                LocalDate.of(1970, 2, 28), null, 3);
+        Employee employee = Employee.createForTest(8L, "Weber", "Sarah", "030789", null,
+                LocalDate.of(1980, 3, 20), "Arztstr. 1", "Kardiologie");
+        Ward ward = Ward.createForTest(3, "Innere", null, 40);
+        Treatment treatment = new Treatment(300_000, LocalDate.of(2024, 1, 15), "EKG", 7L, 8L);
+
+        Patient p = (Patient) EntityCodec.fromBytes(EntityCodec.toBytes(patient));
+        assertEquals(7L, p.getPersonId());
+        assertEquals("Müller", p.getName());
+        assertEquals("Jörg", p.getFirstname());
+        assertNull(p.getPhonenumber());
+        assertNull(p.getAdress());
+        assertEquals(LocalDate.of(1970, 2, 28), p.getBirthdate());
+        assertEquals(3, p.getWardId());
+
+        Employee e = (Employee) EntityCodec.fromBytes(EntityCodec.toBytes(employee));
+        assertEquals("Kardiologie", e.getDepartment());
+        assertNull(e.getEmail());
+        assertNull(e.getWardId());
+
+        Ward w = (Ward) EntityCodec.fromBytes(EntityCodec.toBytes(ward));
+        assertEquals("Innere", w.getWardName());
+        assertNull(w.getDescription());
+        assertEquals(40, w.getCapacity());
+
+        Treatment t = (Treatment) EntityCodec.fromBytes(EntityCodec.toBytes(treatment));
+        assertEquals(300_000, t.getTreatmentId());
+        assertEquals(LocalDate.of(2024, 1, 15), t.getDate());
+        assertEquals(8L, t.getDoctorPersonId());
+    }
+
+    @Test
+    @DisplayName("Alte .ser-Dateien werden gelesen und beim Speichern migriert")
+    public void testLegacyMigration() throws IOException {
+        String file = tempDir.resolve("patients.ser").toString();
+
+        Set<Patient> patients = new HashSet<>();
+        patients.add(Patient.createForTest(1L, "Mustermann", "Max", "030123", "max@test.de",
+                LocalDate.of(1985, 5, 15), "Str. 123"));
+        patients.add(Patient.createForTest(2L, "Schmidt", "Anna", "030456", "anna@test.de",
+                LocalDate.of(1990, 3, 20), "Str. 456", 1));
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+            oos.writeObject(patients);
+        }
+        assertTrue(SerializationManager.isLegacyFormat(file));
+
+        Set<Patient> legacy = SerializationManager.loadFromFile(file);
+        assertNotNull(legacy);
+        assertEquals(2, legacy.size());
+
+        assertTrue(SerializationManager.saveToFile(legacy, file));
+        assertFalse(SerializationManager.isLegacyFormat(file));
+
+        Set<Patient> migrated = SerializationManager.loadFromFile(file);
+        assertEquals(legacy, migrated);
+        assertEquals(1, migrated.stream().filter(p -> p.getWardId() != null).count());
+    }
+
+    @Test
+    @DisplayName("Snapshots teilen wiederholte Strings und lesen weiterhin Version 1")
+    public void testSharedStringsAndVersionOne() throws IOException {
+        Set<Object> data = new HashSet<>();
+        for (long id = 1; id <= 50; id++) {
+            data.add(Patient.createForTest(id, "Müller", "Anna", "030" + id, "p" + id + "@test.de",
+                    LocalDate.of(1980, 1, 1), id % 2 == 0 ? "Str. 1" : null, 1));
+        }
+        data.add(Employee.createForTest(99L, "Müller", "Jörg", null, null,
+                LocalDate.of(1975, 6, 1), "Str. 1", "Kardiologie"));
+        data.add(new Treatment(1, LocalDate.of(2024, 1, 15), "EKG", 1L, 99L));
+        data.add(new Treatment(2, null, "EKG", 2L, 99L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EntityCodec.writeSnapshot(data, out);
+        Set<Object> read = EntityCodec.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(data, read);
+        for (Object entity : read) {
+            if (entity instanceof Patient p) {
+                Patient original = (Patient) data.stream().filter(p::equals).findFirst().orElseThrow();
+                assertEquals(original.getAdress(), p.getAdress());
+                assertEquals(original.getEmail(), p.getEmail());
+                assertEquals("Anna", p.getFirstname());
+            } else if (entity instanceof Employee e) {
+                assertEquals("Müller", e.getName());
+                assertEquals("Kardiologie", e.getDepartment());
+            } else {
+                assertEquals("EKG", ((Treatment) entity).getTherapy());
+            }
+        }
+
+        // Version 1: Datensätze ohne String-Tabelle, wie im Log
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        plain.write(new byte[] { 'H', 'S', 'P', 'H', 1, 2 });
+        plain.write(EntityCodec.toBytes(Patient.createForTest(1L, "Müller", "Anna", null, null,
+                LocalDate.of(1980, 1, 1), null, 1)));
+        plain.write(EntityCodec.toBytes(Ward.createForTest(1, "Innere", "Müller", 40)));
+        Set<Object> legacy = EntityCodec.readSnapshot(new ByteArrayInputStream(plain.toByteArray()));
+        assertEquals(2, legacy.size());
+        assertTrue(legacy.stream().anyMatch(e -> e instanceof Ward w && "Müller".equals(w.getDescription())));
+    }
+
+    @Test
+    @DisplayName("Eine gefälschte Datensatzanzahl belegt keinen Speicher vor")
+    public void testForgedCountIsNotTrusted() throws IOException {
+        // Magic, Version 1 und als Anzahl 2^40 (varint), aber nur ein Datensatz
+        ByteArrayOutputStream forged = new ByteArrayOutputStream();
+        forged.write(new byte[] { 'H', 'S', 'P', 'H', 1,
+                -128, -128, -128, -128, -128, 32 });
+        forged.write(EntityCodec.toBytes(Ward.createForTest(1, "Innere", null, 40)));
+
+        assertThrows(EOFException.class,
+                () -> EntityCodec.readSnapshot(new ByteArrayInputStream(forged.toByteArray())));
+    }
+}
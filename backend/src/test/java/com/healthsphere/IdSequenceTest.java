@@ -0,0 +1,63 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.serialization.IdSequence;
+
+/**
+ * Testet die persistente ID-Folge.
+ */
+public class IdSequenceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Vergebene IDs werden auch nach einem Neustart nicht erneut vergeben")
+    public void testMonotonicAcrossRestart() {
+        String file = tempDir.resolve("wards.ser").toString();
+
+        IdSequence sequence = new IdSequence(file, 4);
+        sequence.observe(10); // geladene Daten
+        assertEquals(11, sequence.next());
+        assertEquals(12, sequence.next());
+
+        // Neustart: weiter hinter dem zuletzt reservierten Block (11..14)
+        IdSequence restarted = new IdSequence(file, 4);
+        assertEquals(15, restarted.next());
+    }
+
+    @Test
+    @DisplayName("Gleichzeitige Aufrufe liefern eindeutige IDs")
+    public void testConcurrentNext() throws InterruptedException {
+        IdSequence sequence = new IdSequence(tempDir.resolve("patients.ser").toString(), 16);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(ids.add(sequence.next()));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(8000, ids.size());
+        assertEquals(8001, sequence.peek());
+    }
+}
@@ -0,0 +1,74 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.healthsphere.index.LongHashIndex;
+import com.healthsphere.index.LongHashSet;
+
+/**
+ * Testet den primitiven long-Index und die long-Menge gegen HashMap bzw.
+ * HashSet als Referenz.
+ */
+public class LongHashIndexTest {
+
+    @Test
+    @DisplayName("Zufällige put/remove-Folgen liefern dasselbe Ergebnis wie eine HashMap")
+    public void testMatchesHashMap() {
+        LongHashIndex<String> index = new LongHashIndex<>();
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 100; // inkl. negativer Schlüssel und 0
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), index.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), index.put(key, value));
+            }
+        }
+
+        assertEquals(reference.size(), index.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(reference.get(key), index.get(key));
+        }
+        assertEquals(reference.size(), index.values().size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertNull(index.get(1));
+    }
+
+    @Test
+    @DisplayName("Zufällige add/remove-Folgen liefern dasselbe Ergebnis wie ein HashSet")
+    public void testSetMatchesHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), set.remove(key));
+            } else {
+                assertEquals(reference.add(key), set.add(key));
+            }
+        }
+
+        assertEquals(reference.size(), set.size());
+        for (long key = -100; key < 1_900; key++) {
+            assertEquals(reference.contains(key), set.contains(key));
+        }
+        assertEquals(reference.size(), set.toArray().length);
+    }
+}
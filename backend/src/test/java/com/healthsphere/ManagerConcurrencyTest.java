@@ -0,0 +1,311 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.TreatmentManager;
+import com.healthsphere.manager.VersionClock;
+import com.healthsphere.manager.WardManager;
+
+/**
+ * Testet die Manager unter gleichzeitigen Schreib- und Lesezugriffen, wie
+ * sie von mehreren Tomcat-Threads kommen.
+ */
+public class ManagerConcurrencyTest {
+
+    @Test
+    @DisplayName("Gleichzeitige Änderungen und JSON-Serialisierung ohne Fehler und mit konsistenten Indizes")
+    public void testConcurrentWritesAndSerialization() throws Exception {
+        PersonManager<Patient> patients = new PersonManager<>();
+        WardManager wards = new WardManager();
+        TreatmentManager treatments = new TreatmentManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+        for (int wardId = 1; wardId <= 8; wardId++) {
+            wards.addWard(Ward.createForTest(wardId, "Station " + wardId, "Test", 100));
+        }
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        int writers = 4;
+        int perWriter = 150;
+        AtomicBoolean done = new AtomicBoolean();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 3);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            futures.add(executor.submit(() -> {
+                await(start);
+                for (int i = 0; i < perWriter; i++) {
+                    long id = writer * 10_000L + i + 1;
+                    int ward = 1 + i % 8;
+                    try {
+                        patients.addPerson(Patient.createForTest(id, "Name" + i, "Vorname", "030", "p@test.de",
+                                LocalDate.of(1980, 1, 1), "Str. 1", ward));
+                        treatments.addTreatment(new Treatment((int) id, LocalDate.of(2024, 1, 1).plusDays(i % 30),
+                                "Therapie", id, 1L));
+                        patients.updatePatient(id, null, null, null, null, null, 1 + (ward % 8));
+                        wards.updateWard(ward, "Station " + ward + "." + i, null, null);
+                        if (i % 3 == 0) {
+                            patients.deletePerson(id);
+                            treatments.deleteTreatment(id);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        // Leser serialisieren fortlaufend, während geschrieben wird
+        for (int r = 0; r < 3; r++) {
+            futures.add(executor.submit(() -> {
+                await(start);
+                while (!done.get()) {
+                    try {
+                        mapper.writeValueAsString(patients.getAll());
+                        mapper.writeValueAsString(wards.getAll());
+                        mapper.writeValueAsString(treatments.getAll());
+                        mapper.writeValueAsString(patients.getPage(null, 50));
+                        wards.getAllWardCapacityData();
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+
+        start.countDown();
+        for (int i = 0; i < writers; i++) {
+            futures.get(i).get(60, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(errors.isEmpty(), () -> "Fehler bei parallelem Zugriff: " + errors.peek());
+        int remaining = writers * (perWriter - (perWriter + 2) / 3);
+        assertEquals(remaining, patients.getAll().size());
+        assertEquals(remaining, treatments.getAll().size());
+        int occupied = 0;
+        for (int wardId = 1; wardId <= 8; wardId++) {
+            assertEquals(patients.findByWard(wardId).size(), patients.getWardOccupancy(wardId));
+            occupied += patients.getWardOccupancy(wardId);
+        }
+        assertEquals(remaining, occupied);
+    }
+
+    @Test
+    @DisplayName("Festgehaltene Version liefert Stationen und Patienten zum selben Stand")
+    public void testPinnedSnapshotIsConsistentAcrossManagers() throws Exception {
+        PersonManager<Patient> patients = new PersonManager<>();
+        WardManager wards = new WardManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+
+        int rounds = 2_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        // Schreiber: erst Station, dann ein Patient darauf; danach beide wieder löschen
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 1; i <= rounds; i++) {
+                wards.addWard(Ward.createForTest(i, "Station " + i, "Test", 10));
+                try {
+                    patients.addPerson(Patient.createForTest(i, "Name" + i, "Vorname", "030", "p@test.de",
+                            LocalDate.of(1980, 1, 1), "Str. 1", i));
+                } catch (Exception e) {
+                    errors.add(e.toString());
+                }
+                if (i % 2 == 0) {
+                    patients.deletePerson(i);
+                    wards.deleteWard(i);
+                }
+            }
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(executor.submit(() -> {
+                while (!done.get()) {
+                    try (VersionClock.Snapshot snapshot = VersionClock.global().pin()) {
+                        // Ohne Snapshot könnten Patient und Station zwischen beiden Abfragen gelöscht
+                        // werden - der Patient stünde dann ohne Station da
+                        List<Patient> pinnedPatients = new ArrayList<>(patients.getAll(snapshot));
+                        Set<Integer> wardIds = new HashSet<>();
+                        wards.getAll(snapshot).forEach(ward -> wardIds.add(ward.getWardId()));
+                        for (Patient patient : pinnedPatients) {
+                            if (!wardIds.contains(patient.getWardId())) {
+                                errors.add("Patient " + patient.getPersonId() + " ohne Station in Version "
+                                        + snapshot.version());
+                            }
+                        }
+                        // Stations-Index zur selben Version enthält genau diese Patienten
+                        int onWards = 0;
+                        for (int wardId : wardIds) {
+                            onWards += patients.findByWard(wardId, snapshot).size();
+                        }
+                        if (onWards != pinnedPatients.size()) {
+                            errors.add(onWards + " Patienten im Stations-Index, " + pinnedPatients.size()
+                                    + " im Bestand in Version " + snapshot.version());
+                        }
+                    }
+                }
+            }));
+        }
+
+        writer.get(60, TimeUnit.SECONDS);
+        done.set(true);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(errors.isEmpty(), () -> errors.size() + " Inkonsistenzen, z.B. " + errors.peek());
+
+        // Festgehaltene Version bleibt lesbar, während weiter geändert wird
+        try (VersionClock.Snapshot snapshot = VersionClock.global().pin()) {
+            wards.updateWard(1, "Umbenannt", null, null);
+            patients.deletePerson(1L);
+            assertEquals("Station 1", wards.findById(1, snapshot).getWardName());
+            assertEquals(1L, patients.findById(1L, snapshot).getPersonId());
+            assertEquals(rounds / 2, patients.getAll(snapshot).size());
+            assertEquals(1L, patients.findByWard(1, snapshot).get(0).getPersonId());
+        }
+        assertTrue(patients.findByWard(1).isEmpty());
+        assertEquals(rounds / 2 - 1, patients.getAll().size());
+        assertEquals("Umbenannt", wards.findById(1).getWardName());
+    }
+
+    @Test
+    @DisplayName("Zwei gleichzeitige Aufnahmen oder Verlegungen für das letzte freie Bett")
+    public void testLastFreeBedIsAssignedOnce() throws Exception {
+        PersonManager<Patient> patients = new PersonManager<>();
+        WardManager wards = new WardManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+        wards.addWard(Ward.createForTest(1, "Warteraum", "Test", 1_000));
+
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                int wardId = 100 + round;
+                wards.addWard(Ward.createForTest(wardId, "Station " + wardId, "Test", 1));
+                long first = 2L * round + 1;
+                long second = 2L * round + 2;
+                boolean admit = round % 2 == 0;
+                if (!admit) {
+                    // Verlegung: beide Patienten warten auf Station 1
+                    patients.addPerson(Patient.createForTest(first, "A", "V", "030", "p@test.de",
+                            LocalDate.of(1980, 1, 1), "Str. 1", 1));
+                    patients.addPerson(Patient.createForTest(second, "B", "V", "030", "p@test.de",
+                            LocalDate.of(1980, 1, 1), "Str. 1", 1));
+                }
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (long personId : new long[] { first, second }) {
+                    attempts.add(executor.submit(() -> {
+                        await(start);
+                        if (admit) {
+                            return patients.addPerson(Patient.createForTest(personId, "N", "V", "030",
+                                    "p@test.de", LocalDate.of(1980, 1, 1), "Str. 1", wardId));
+                        }
+                        return patients.updatePatient(personId, null, null, null, null, null, wardId);
+                    }));
+                }
+                start.countDown();
+                int succeeded = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    succeeded += attempt.get(10, TimeUnit.SECONDS) ? 1 : 0;
+                }
+
+                assertEquals(1, succeeded, "Runde " + round);
+                assertEquals(1, patients.getWardOccupancy(wardId), "Runde " + round);
+                assertEquals(1, patients.findByWard(wardId).size(), "Runde " + round);
+                patients.deletePerson(first);
+                patients.deletePerson(second);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, patients.getWardOccupancy(1));
+    }
+
+    @Test
+    @DisplayName("Gleichzeitige Änderungen verschiedener Felder gehen nicht verloren")
+    public void testConcurrentFieldUpdatesAreNotLost() throws Exception {
+        PersonManager<Patient> patients = new PersonManager<>();
+        patients.addPerson(Patient.createForTest(1, "Name0", "V", "030", "e0@test.de",
+                LocalDate.of(1980, 1, 1), "Str. 1", null));
+
+        int rounds = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Jeder Thread ändert nur sein Feld und prüft, dass das andere nie zurückspringt
+            Future<String> names = executor.submit(() -> updateField(patients, rounds, true));
+            Future<String> emails = executor.submit(() -> updateField(patients, rounds, false));
+            assertNull(names.get(60, TimeUnit.SECONDS));
+            assertNull(emails.get(60, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("Name" + rounds, patients.findById(1L).getName());
+        assertEquals("e" + rounds + "@test.de", patients.findById(1L).getEmail());
+    }
+
+    // null wenn kein Rücksprung des anderen Felds beobachtet wurde, sonst die Beschreibung
+    private static String updateField(PersonManager<Patient> patients, int rounds, boolean name) {
+        int seen = 0;
+        for (int i = 1; i <= rounds; i++) {
+            if (name) {
+                patients.updatePatient(1L, "Name" + i, null, null, null, null, null);
+            } else {
+                patients.updatePatient(1L, null, null, null, "e" + i + "@test.de", null, null);
+            }
+            Patient current = patients.findById(1L);
+            int other = name ? Integer.parseInt(current.getEmail().replaceAll("\\D", ""))
+                    : Integer.parseInt(current.getName().substring(4));
+            if (other < seen) {
+                return "Rücksprung von " + seen + " auf " + other + " in Runde " + i;
+            }
+            seen = other;
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
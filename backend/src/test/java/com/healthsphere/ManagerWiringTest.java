@@ -0,0 +1,100 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.Exceptions.PersonExceptions.DuplicatePersonException;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Ward;
+import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.WardManager;
+
+/**
+ * Testet, dass verdrahtete Manager Kapazitäten am gemeinsamen Speicherstand
+ * prüfen statt die .ser-Dateien neu zu lesen.
+ */
+public class ManagerWiringTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Kapazitätsprüfung verwendet die verdrahteten Instanzen")
+    public void testCapacityCheckUsesSharedInstances() throws DuplicatePersonException {
+        PersonManager<Patient> patientManager = new PersonManager<>();
+        WardManager wardManager = new WardManager();
+        patientManager.setWardManager(wardManager);
+        wardManager.setPatientManager(patientManager);
+
+        // Ward 99 existiert nur im Speicher, nicht in wards.ser
+        wardManager.addWard(Ward.createForTest(99, "Isolierstation", "Ein Bett", 1));
+
+        assertTrue(patientManager.addPerson(Patient.createForTest(1L, "Mustermann", "Max", "030123",
+                "max@test.de", LocalDate.of(1985, 5, 15), "Str. 123", 99)));
+        assertFalse(patientManager.addPerson(Patient.createForTest(2L, "Schmidt", "Anna", "030456",
+                "anna@test.de", LocalDate.of(1990, 3, 20), "Str. 456", 99)));
+
+        assertEquals(1L, wardManager.getWardCapacityData(99).get("currentOccupancy"));
+        assertTrue(wardManager.getAvailableWards().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Belegungszähler folgen Aufnahme, Verlegung und Entlassung")
+    public void testOccupancyCountersFollowMutations() throws DuplicatePersonException {
+        PersonManager<Patient> patientManager = new PersonManager<>();
+        WardManager wardManager = new WardManager();
+        patientManager.setWardManager(wardManager);
+        wardManager.setPatientManager(patientManager);
+        wardManager.addWard(Ward.createForTest(1, "Kardiologie", "Herz", 10));
+        wardManager.addWard(Ward.createForTest(2, "Neurologie", "Kopf", 10));
+
+        patientManager.addPerson(Patient.createForTest(1L, "Mustermann", "Max", "030123",
+                "max@test.de", LocalDate.of(1985, 5, 15), "Str. 123", 1));
+        patientManager.addPerson(Patient.createForTest(2L, "Schmidt", "Anna", "030456",
+                "anna@test.de", LocalDate.of(1990, 3, 20), "Str. 456", 1));
+        assertEquals(2, patientManager.getWardOccupancy(1));
+
+        assertTrue(patientManager.updatePatient(2L, null, null, null, null, null, 2));
+        assertEquals(1, patientManager.getWardOccupancy(1));
+        assertEquals(1, patientManager.getWardOccupancy(2));
+        assertEquals(2L, patientManager.findByWard(2).get(0).getPersonId());
+
+        assertTrue(patientManager.deletePerson(1L));
+        assertEquals(0, patientManager.getWardOccupancy(1));
+        assertTrue(patientManager.findByWard(1).isEmpty());
+        assertEquals("Belegung: 1/10 | Frei: 9 | Status: Verfügbar",
+                wardManager.findById(2).getCapacityStatus(patientManager));
+        // Verlegung auf eine volle Station wird abgelehnt, Zähler bleiben stehen
+        wardManager.addWard(Ward.createForTest(3, "Isolierstation", "Ein Bett", 1));
+        patientManager.addPerson(Patient.createForTest(3L, "Weber", "Jörg", "030789",
+                "joerg@test.de", LocalDate.of(1970, 2, 28), "Str. 789", 3));
+        assertFalse(patientManager.updatePatient(2L, null, null, null, null, null, 3));
+        assertEquals(1, patientManager.getWardOccupancy(2));
+        assertEquals(1, patientManager.getWardOccupancy(3));
+    }
+
+    @Test
+    @DisplayName("Ohne Verdrahtung wird die Datei neben der eigenen Datei gelesen")
+    public void testUnwiredManagersUseSiblingFiles() throws DuplicatePersonException {
+        // Ward 4711 existiert nur in wards.ser im Testverzeichnis
+        WardManager wardFile = new WardManager(tempDir.resolve("wards.ser").toString());
+        wardFile.addWard(Ward.createForTest(4711, "Isolierstation", "Ein Bett", 1));
+
+        PersonManager<Patient> patientManager = new PersonManager<>(tempDir.resolve("patients.ser").toString());
+        assertTrue(patientManager.addPerson(Patient.createForTest(1L, "Mustermann", "Max", "030123",
+                "max@test.de", LocalDate.of(1985, 5, 15), "Str. 123", 4711)));
+        assertFalse(patientManager.addPerson(Patient.createForTest(2L, "Schmidt", "Anna", "030456",
+                "anna@test.de", LocalDate.of(1990, 3, 20), "Str. 456", 4711)));
+
+        WardManager wardManager = new WardManager(tempDir.resolve("wards.ser").toString());
+        assertEquals(1L, wardManager.getWardCapacityData(4711).get("currentOccupancy"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Ward;
+import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.PersonManager.StorageMode;
+import com.healthsphere.manager.WardManager;
+import com.healthsphere.serialization.MappedPersonStore;
+
+/**
+ * Testet den memory-mapped Slot-Speicher für Patienten.
+ */
+public class MappedPersonStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Änderungen im Mapped-Store überstehen einen Neustart")
+    public void testMappedRoundTrip() {
+        String file = tempDir.resolve("patients.ser").toString();
+
+        PersonManager<Patient> manager = new PersonManager<>(file, StorageMode.MAPPED);
+        assertEquals(StorageMode.MAPPED, manager.getStorageMode());
+        manager.addPatientWithAutoId("Mustermann", "Max", "030123", "max@test.de",
+                LocalDate.of(1985, 5, 15), "Str. 123", null);
+        manager.addPatientWithAutoId("Schmidt", "Anna", null, "anna@test.de",
+                LocalDate.of(1990, 3, 20), "Str. 456", null);
+        manager.addPatientWithAutoId("Weber", "Jörg", "030789", "joerg@test.de",
+                LocalDate.of(1970, 2, 28), "Str. 789", null);
+
+        // Längerer Name (Überlaufbereich) und kürzere Adresse (an Ort und Stelle)
+        manager.updatePatient(1, "Mustermann-Lüdenscheid", null, null, null, "Str. 1", null);
+        manager.deletePerson(2);
+        manager.addPatientWithAutoId("Neu", "Nina", null, null, LocalDate.of(2000, 1, 1), "Weg 5", null);
+
+        MappedPersonStore.open(file).close(); // Neustart simulieren
+
+        PersonManager<Patient> reloaded = new PersonManager<>(file, StorageMode.MAPPED);
+        Patient max = reloaded.findById(1);
+        assertEquals("Mustermann-Lüdenscheid", max.getName());
+        assertEquals("Str. 1", max.getAdress());
+        assertEquals(LocalDate.of(1985, 5, 15), max.getBirthdate());
+        assertNull(reloaded.findById(2));
+        assertEquals("Jörg", reloaded.findById(3).getFirstname());
+        assertNull(reloaded.findById(4).getPhonenumber());
+        assertEquals(3, reloaded.getAll().size());
+
+        MappedPersonStore.open(file).close();
+    }
+
+    @Test
+    @DisplayName("Belegung, Stationen und Seiten kommen aus den Indizes des Slot-Speichers")
+    public void testWardsAndPagesWithoutFullLoad() throws Exception {
+        String file = tempDir.resolve("patients.ser").toString();
+        WardManager wards = new WardManager();
+        wards.addWard(Ward.createForTest(1, "Kardiologie", "Test", 2));
+        wards.addWard(Ward.createForTest(2, "Neurologie", "Test", 5));
+
+        PersonManager<Patient> manager = new PersonManager<>(file, StorageMode.MAPPED);
+        manager.setWardManager(wards);
+        assertTrue(manager.addPerson(patient(1, 1)));
+        assertTrue(manager.addPerson(patient(2, 1)));
+        assertFalse(manager.addPerson(patient(3, 1))); // Station 1 ist voll
+        assertTrue(manager.addPerson(patient(3, 2)));
+        assertTrue(manager.updatePatient(1, null, null, null, null, null, 2));
+        assertTrue(manager.addPerson(patient(4, 1))); // Platz wurde durch die Verlegung frei
+        assertTrue(manager.deletePerson(3));
+
+        assertEquals(2, manager.getWardOccupancy(1));
+        assertEquals(1, manager.getWardOccupancy(2));
+        assertEquals(List.of(1L), ids(manager.findByWard(2)));
+        assertEquals(List.of(1L, 2L), ids(manager.getPage(null, 2)));
+        assertEquals(List.of(4L), ids(manager.getPage(2L, 2)));
+
+        MappedPersonStore.open(file).close(); // Neustart simulieren
+
+        PersonManager<Patient> reloaded = new PersonManager<>(file, StorageMode.MAPPED);
+        reloaded.setWardManager(wards);
+        assertEquals(2, reloaded.getWardOccupancy(1));
+        assertFalse(reloaded.addPerson(patient(5, 1)));
+        assertEquals(List.of(2L, 4L), ids(reloaded.findByWard(1)).stream().sorted().toList());
+
+        // Das spätere Aufbauen des Sets zählt nichts doppelt
+        assertEquals(3, reloaded.getAll().size());
+        assertEquals(2, reloaded.getWardOccupancy(1));
+        assertEquals(1, reloaded.getWardOccupancy(2));
+
+        MappedPersonStore.open(file).close();
+    }
+
+    @Test
+    @DisplayName("Verlegen und Löschen einer Station laufen auch im MAPPED-Modus als Transaktion")
+    public void testTransactionsInMappedMode() throws Exception {
+        String file = tempDir.resolve("patients.ser").toString();
+        WardManager wards = new WardManager();
+        wards.addWard(Ward.createForTest(1, "Kardiologie", "Test", 5));
+        wards.addWard(Ward.createForTest(2, "Neurologie", "Test", 2));
+
+        PersonManager<Patient> manager = new PersonManager<>(file, StorageMode.MAPPED);
+        manager.setWardManager(wards);
+        wards.setPatientManager(manager);
+        assertTrue(manager.addPerson(patient(1, 1)));
+        assertTrue(manager.addPerson(patient(2, 1)));
+        assertTrue(manager.addPerson(patient(3, 1)));
+
+        assertNull(wards.transferPatient(1, 2));
+        assertEquals(2, manager.getWardOccupancy(1));
+        assertNotNull(wards.deleteWard(1, 2)); // Station 2 hat nur noch einen Platz
+        manager.deletePerson(3);
+        assertNull(wards.deleteWard(1, 2));
+        assertNull(wards.findById(1));
+        assertEquals(List.of(1L, 2L), ids(manager.findByWard(2)).stream().sorted().toList());
+
+        MappedPersonStore.open(file).close(); // Neustart simulieren
+
+        PersonManager<Patient> reloaded = new PersonManager<>(file, StorageMode.MAPPED);
+        assertEquals(2, reloaded.findById(2).getWardId());
+        assertEquals(2, reloaded.getWardOccupancy(2));
+        assertEquals(0, reloaded.getWardOccupancy(1));
+
+        MappedPersonStore.open(file).close();
+    }
+
+    private static Patient patient(long id, Integer wardId) {
+        return Patient.createForTest(id, "Name" + id, "Vorname", "030", "p@test.de", LocalDate.of(1980, 1, 1),
+                "Str. 1", wardId);
+    }
+
+    private static List<Long> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getPersonId).toList();
+    }
+
+    @Test
+    @DisplayName("Ein vorhandener Snapshot wird in den neuen Mapped-Store übernommen")
+    public void testImportFromSnapshot() {
+        String file = tempDir.resolve("patients.ser").toString();
+
+        PersonManager<Patient> logManager = new PersonManager<>(file, StorageMode.LOG);
+        logManager.addPatientWithAutoId("Mustermann", "Max", "030123", "max@test.de",
+                LocalDate.of(1985, 5, 15), "Str. 123", null);
+        logManager.addPatientWithAutoId("Schmidt", "Anna", "030456", "anna@test.de",
+                LocalDate.of(1990, 3, 20), "Str. 456", null);
+
+        PersonManager<Patient> mapped = new PersonManager<>(file, StorageMode.MAPPED);
+        assertEquals(2, mapped.getAll().size());
+        assertEquals("Anna", mapped.findById(2).getFirstname());
+        assertTrue(mapped.addPatientWithAutoId("Weber", "Jörg", null, null,
+                LocalDate.of(1970, 2, 28), "Str. 789", null));
+        assertEquals(3, mapped.findById(3).getPersonId());
+
+        MappedPersonStore.open(file).close();
+    }
+}
@@ -0,0 +1,242 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.TreatmentManager;
+import com.healthsphere.manager.WardManager;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.MutationLog;
+import com.healthsphere.serialization.SnapshotCompactor;
+import com.healthsphere.serialization.WriteBehindFlusher;
+
+/**
+ * Testet das Mutation-Log: Änderungen müssen nach einem Neustart durch
+ * Snapshot + Replay wiederhergestellt werden.
+ */
+public class MutationLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Änderungen werden aus dem Log nachgespielt")
+    public void testReplayAfterRestart() {
+        String file = tempDir.resolve("treatments.ser").toString();
+
+        TreatmentManager manager = new TreatmentManager(file);
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 15), "Herzuntersuchung", 1L, 10L);
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 20), "Nachkontrolle", 2L, 10L);
+        manager.updateTherapy(1, "EKG");
+        manager.deleteTreatment(2);
+
+        // Noch kein Snapshot geschrieben - alles steht im Log
+        assertTrue(Files.exists(Path.of(file + LogStore.LOG_SUFFIX)));
+
+        TreatmentManager reloaded = new TreatmentManager(file);
+        assertEquals(1, reloaded.getAll().size());
+        assertEquals("EKG", reloaded.findById(1).getTherapy());
+        assertNull(reloaded.findById(2));
+    }
+
+    @Test
+    @DisplayName("save() schreibt einen Snapshot und leert das Log")
+    public void testSaveTruncatesLog() throws IOException {
+        String file = tempDir.resolve("wards.ser").toString();
+
+        WardManager manager = new WardManager(file);
+        manager.addWardWithAutoId("Kardiologie", "Herzmedizin", 20);
+        manager.save();
+        manager.addWardWithAutoId("Chirurgie", "Allgemeine Chirurgie", 25);
+
+        Path log = Path.of(file + LogStore.LOG_SUFFIX);
+        long logSizeAfterOneRecord = Files.size(log);
+        assertTrue(logSizeAfterOneRecord > 0);
+
+        WardManager reloaded = new WardManager(file);
+        assertEquals(2, reloaded.getAll().size());
+        reloaded.save();
+        assertEquals(0, Files.exists(log) ? Files.size(log) : 0);
+    }
+
+    @Test
+    @DisplayName("Beschädigtes Log-Ende wird ignoriert und beim Anhängen verworfen")
+    public void testTornTailIsIgnored() throws IOException {
+        String file = tempDir.resolve("treatments.ser").toString();
+        Path log = Path.of(file + LogStore.LOG_SUFFIX);
+
+        TreatmentManager manager = new TreatmentManager(file);
+        manager.addTreatment(new Treatment(1, LocalDate.of(2024, 1, 15), "Herzuntersuchung", 1L, 10L));
+
+        // Absturz mitten im Schreiben simulieren
+        Files.write(log, new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+        TreatmentManager reloaded = new TreatmentManager(file);
+        assertEquals(1, reloaded.getAll().size());
+
+        reloaded.addTreatment(new Treatment(2, LocalDate.of(2024, 1, 20), "Nachkontrolle", 2L, 10L));
+        TreatmentManager again = new TreatmentManager(file);
+        assertEquals(2, again.getAll().size());
+        assertNotNull(again.findById(2));
+    }
+
+    @Test
+    @DisplayName("Update mit fremder ID wird abgelehnt und nicht protokolliert")
+    public void testUpdateCannotChangeId() throws Exception {
+        String file = tempDir.resolve("patients.ser").toString();
+        PersonManager<Patient> manager = new PersonManager<>(file);
+        manager.addPerson(patient(1, "Erster"));
+        manager.addPerson(patient(2, "Zweiter"));
+
+        assertFalse(manager.updatePerson(1L, patient(2, "Überschrieben")));
+        assertEquals("Erster", manager.findById(1L).getName());
+        assertEquals("Zweiter", manager.findById(2L).getName());
+
+        PersonManager<Patient> reloaded = new PersonManager<>(file);
+        assertEquals("Erster", reloaded.findById(1L).getName());
+        assertEquals("Zweiter", reloaded.findById(2L).getName());
+    }
+
+    private static Patient patient(long id, String name) {
+        return Patient.createForTest(id, name, "Vorname", "030", "p@test.de", LocalDate.of(1980, 1, 1), "Str. 1",
+                null);
+    }
+
+    @Test
+    @DisplayName("Beschädigte Längenangabe gilt als unvollständiges Ende statt 2 GB zu lesen")
+    public void testCorruptLengthIsTreatedAsTornTail() throws IOException {
+        String file = tempDir.resolve("treatments.ser").toString();
+        Path log = Path.of(file + LogStore.LOG_SUFFIX);
+
+        TreatmentManager manager = new TreatmentManager(file);
+        manager.addTreatment(new Treatment(1, LocalDate.of(2024, 1, 15), "Herzuntersuchung", 1L, 10L));
+
+        // Vollständiger Kopf mit Länge nahe Integer.MAX_VALUE, dahinter wenige Bytes
+        Files.write(log, new byte[] { 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 0, 0, 0, 0, 0, 1, 2, 3 },
+                StandardOpenOption.APPEND);
+
+        TreatmentManager reloaded = new TreatmentManager(file);
+        assertEquals(1, reloaded.getAll().size());
+        assertEquals(1, reloaded.getStore().getMutationLog().recordCount());
+
+        reloaded.addTreatment(new Treatment(2, LocalDate.of(2024, 1, 20), "Nachkontrolle", 2L, 10L));
+        assertEquals(2, new TreatmentManager(file).getAll().size());
+    }
+
+    @Test
+    @DisplayName("Ward-Updates werden als einzelner Datensatz protokolliert")
+    public void testWardUpdateIsLogged() {
+        String file = tempDir.resolve("wards.ser").toString();
+
+        WardManager manager = new WardManager(file);
+        manager.addWard(Ward.createForTest(1, "Innere", "Innere Medizin", 10));
+        manager.updateWard(1, null, null, 30);
+
+        WardManager reloaded = new WardManager(file);
+        assertEquals(30, reloaded.findById(1).getCapacity());
+    }
+
+    @Test
+    @DisplayName("Kompaktierung faltet das Log in den Snapshot")
+    public void testCompactionFoldsLogIntoSnapshot() throws IOException {
+        String file = tempDir.resolve("treatments.ser").toString();
+        Path log = Path.of(file + LogStore.LOG_SUFFIX);
+
+        TreatmentManager manager = new TreatmentManager(file);
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 15), "Herzuntersuchung", 1L, 10L);
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 20), "Nachkontrolle", 2L, 10L);
+        manager.deleteTreatment(1);
+
+        SnapshotCompactor compactor = new SnapshotCompactor(0, 0);
+        compactor.register("treatments", manager.getStore());
+        compactor.compactAll();
+
+        assertTrue(Files.exists(Path.of(file)));
+        assertEquals(0, Files.size(log));
+        assertEquals(1, manager.getStore().getMetrics().getCompactionCount());
+        assertTrue(manager.getStore().getMetrics().getLastBytesWritten() > 0);
+
+        // Änderungen nach der Kompaktierung landen wieder im Log
+        manager.updateTherapy(2, "Abschlussuntersuchung");
+        assertTrue(Files.size(log) > 0);
+
+        TreatmentManager reloaded = new TreatmentManager(file);
+        assertEquals(1, reloaded.getAll().size());
+        assertEquals("Abschlussuntersuchung", reloaded.findById(2).getTherapy());
+    }
+
+    @Test
+    @DisplayName("ASYNC fasst Änderungen zusammen und schreibt beim Herunterfahren")
+    public void testAsyncWriteBehind() {
+        String file = tempDir.resolve("treatments.ser").toString();
+
+        TreatmentManager manager = new TreatmentManager(file);
+        WriteBehindFlusher flusher = new WriteBehindFlusher("async", 60_000, 0);
+        flusher.register("treatments", manager.getStore());
+        flusher.start();
+
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 15), "Herzuntersuchung", 1L, 10L);
+        manager.updateTherapy(1, "EKG");
+        manager.updateTherapy(1, "Belastungs-EKG");
+        manager.addTreatmentWithAutoId(LocalDate.of(2024, 1, 20), "Nachkontrolle", 2L, 10L);
+
+        // Drei Änderungen an Behandlung 1 ergeben einen Datensatz
+        assertEquals(2, manager.getStore().getMutationLog().pendingCount());
+        assertTrue(new TreatmentManager(file).getAll().isEmpty());
+
+        flusher.stop();
+
+        assertEquals(0, manager.getStore().getMutationLog().pendingCount());
+        assertEquals(2, manager.getStore().getMutationLog().recordCount());
+        TreatmentManager reloaded = new TreatmentManager(file);
+        assertEquals("Belastungs-EKG", reloaded.findById(1).getTherapy());
+        assertEquals(2, reloaded.getAll().size());
+    }
+
+    @Test
+    @DisplayName("GROUP: gleichzeitige Datensätze teilen sich ein fsync und gehen nicht verloren")
+    public void testGroupCommit() throws InterruptedException {
+        String file = tempDir.resolve("treatments.ser.log").toString();
+        MutationLog<Treatment> log = new MutationLog<>(file);
+        log.setDurability(MutationLog.Durability.GROUP);
+
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            int offset = t * 100;
+            workers[t] = new Thread(() -> {
+                for (int i = 1; i <= 100; i++) {
+                    log.append(MutationLog.Operation.ADD,
+                            new Treatment(offset + i, LocalDate.of(2024, 1, 15), "EKG", 1L, 10L));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue(log.syncCount() <= 400);
+        Set<Treatment> replayed = new HashSet<>();
+        assertEquals(400, new MutationLog<Treatment>(file).replay(replayed));
+        assertEquals(400, replayed.size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.index.PersistentLongMap;
+import com.healthsphere.manager.TreatmentManager;
+import com.healthsphere.manager.WardManager;
+
+/**
+ * Testet die unveränderliche long-Map gegen HashMap als Referenz und die
+ * darauf aufbauenden Snapshots der Manager.
+ */
+public class PersistentLongMapTest {
+
+    @Test
+    @DisplayName("Zufällige put/remove-Folgen liefern dasselbe Ergebnis wie eine HashMap, alte Versionen bleiben unverändert")
+    public void testMatchesHashMapAndKeepsVersions() {
+        PersistentLongMap<String> map = PersistentLongMap.empty();
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+        PersistentLongMap<String> frozen = null;
+        Map<Long, String> frozenReference = null;
+
+        for (int i = 0; i < 200_000; i++) {
+            // inkl. negativer Schlüssel, 0 und weit gestreuter Werte
+            long key = random.nextInt(4) == 0 ? random.nextLong() : random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                reference.remove(key);
+                map = map.remove(key);
+            } else {
+                String value = "v" + i;
+                reference.put(key, value);
+                map = map.put(key, value);
+            }
+            if (i == 100_000) {
+                frozen = map;
+                frozenReference = new HashMap<>(reference);
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, String> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+        Set<String> values = new HashSet<>();
+        map.forEach(values::add);
+        assertEquals(new HashSet<>(reference.values()), values);
+        int iterated = 0;
+        for (String value : map) {
+            assertTrue(values.contains(value));
+            iterated++;
+        }
+        assertEquals(reference.size(), iterated);
+
+        // Ältere Version ist von allen späteren Änderungen unberührt
+        assertEquals(frozenReference.size(), frozen.size());
+        for (Map.Entry<Long, String> entry : frozenReference.entrySet()) {
+            assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+        }
+
+        // Builder liefert denselben Inhalt; spätere Änderungen erzeugen neue Versionen
+        PersistentLongMap.Builder<String> builder = PersistentLongMap.builder();
+        reference.forEach(builder::put);
+        PersistentLongMap<String> built = builder.build();
+        assertEquals(reference.size(), built.size());
+        for (Map.Entry<Long, String> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), built.get(entry.getKey()));
+        }
+        long anyKey = reference.keySet().iterator().next();
+        builder.put(anyKey, "geändert");
+        assertEquals(reference.get(anyKey), built.get(anyKey));
+
+        // Alles wieder entfernen: zurück zur leeren Map
+        for (long key : reference.keySet()) {
+            map = map.remove(key);
+        }
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+        assertSame(map, map.remove(1));
+    }
+
+    @Test
+    @DisplayName("getAll liefert eine stabile, unveränderliche Version, während weiter geändert wird")
+    public void testManagerSnapshotsStayStable() {
+        WardManager wards = new WardManager();
+        wards.addWard(Ward.createForTest(1, "Kardiologie", "Herz", 20));
+        TreatmentManager treatments = new TreatmentManager();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        treatments.addTreatment(new Treatment(1, day, "Massage", 10L, 1L));
+        treatments.addTreatment(new Treatment(2, day, "Akupunktur", 11L, 1L));
+
+        Set<Ward> wardSnapshot = wards.getAll();
+        Set<Treatment> treatmentSnapshot = treatments.getAll();
+        Treatment before = treatments.findById(1);
+
+        wards.updateWard(1, "Neurologie", null, 30);
+        wards.addWard(Ward.createForTest(2, "Chirurgie", "OP", 10));
+        treatments.updateTherapy(1, "Atemtherapie");
+        treatments.deleteTreatment(2);
+
+        // Alte Version: unverändert, auch die enthaltenen Objekte
+        assertEquals(1, wardSnapshot.size());
+        assertEquals("Kardiologie", wardSnapshot.iterator().next().getWardName());
+        assertEquals(2, treatmentSnapshot.size());
+        assertEquals("Massage", before.getTherapy());
+        assertTrue(treatmentSnapshot.contains(treatments.findById(1))); // Gleichheit über die ID
+
+        // Neue Version
+        assertEquals("Neurologie", wards.findById(1).getWardName());
+        assertEquals(30, wards.findById(1).getCapacity());
+        assertEquals(2, wards.getAll().size());
+        assertEquals(List.of("Atemtherapie"), treatments.getAll().stream().map(Treatment::getTherapy).toList());
+
+        assertThrows(UnsupportedOperationException.class, () -> wardSnapshot.remove(wards.findById(1)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.healthsphere;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.manager.PersonManager;
+
+/**
+ * Vergleicht findById über den long-Index mit dem bisherigen linearen
+ * Durchlauf durch das Personen-Set bei 10k, 100k und 1M Personen.
+ *
+ * Aufruf: java ... com.healthsphere.PersonIndexBenchmark
+ */
+public class PersonIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== PERSON INDEX BENCHMARK ===\n");
+        System.out.printf("%-10s %18s %18s %10s%n", "Personen", "Scan (ns/Zugriff)", "Index (ns/Zugriff)", "Faktor");
+
+        for (int count : new int[] { 10_000, 100_000, 1_000_000 }) {
+            PersonManager<Patient> manager = new PersonManager<>();
+            Set<Patient> set = new HashSet<>();
+            for (int i = 1; i <= count; i++) {
+                Patient patient = Patient.restore(i, "Name" + i, "Vorname", "030", "p@test.de",
+                        LocalDate.of(1980, 1, 1), "Str. 1", null);
+                manager.addPerson(patient);
+                set.add(patient);
+            }
+
+            Random random = new Random(7);
+            int scanLookups = Math.max(20, 20_000_000 / count);
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < scanLookups; i++) {
+                long id = 1 + random.nextInt(count);
+                Patient found = set.stream().filter(p -> p.getPersonId() == id).findFirst().orElse(null);
+                checksum += found.getPersonId();
+            }
+            double scanNanos = (System.nanoTime() - start) / (double) scanLookups;
+
+            int indexLookups = 5_000_000;
+            start = System.nanoTime();
+            for (int i = 0; i < indexLookups; i++) {
+                checksum += manager.findById(1 + random.nextInt(count)).getPersonId();
+            }
+            double indexNanos = (System.nanoTime() - start) / (double) indexLookups;
+
+            System.out.printf("%,-10d %18.0f %18.1f %9.0fx%n", count, scanNanos, indexNanos, scanNanos / indexNanos);
+            if (checksum == 42) {
+                System.out.println(); // verhindert Wegoptimieren
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.healthsphere.Exceptions.PersonExceptions.DuplicatePersonException;
+import com.healthsphere.components.Patient;
+import com.healthsphere.index.KoelnerPhonetik;
+import com.healthsphere.manager.PersonManager;
+
+/**
+ * Testet die Namenssuche des PersonManagers auf Basis der Indizes.
+ */
+public class PersonSearchTest {
+
+    private static Patient patient(long id, String name, String firstname) {
+        return Patient.createForTest(id, name, firstname, "030" + id, id + "@test.de",
+                LocalDate.of(1980, 1, 1).plusDays(id), "Str. " + id, 1);
+    }
+
+    @Test
+    @DisplayName("Vorschläge per Präfix über Nach- und Vorname, ohne Groß-/Kleinschreibung")
+    public void testSuggestByPrefix() throws DuplicatePersonException {
+        PersonManager<Patient> manager = new PersonManager<>();
+        manager.addPerson(patient(1L, "Müller", "Anna"));
+        manager.addPerson(patient(2L, "Mueller", "Jörg"));
+        manager.addPerson(patient(3L, "Schmidt", "Anna"));
+        manager.addPerson(patient(4L, "Müllmann", "Max"));
+
+        List<Patient> result = manager.suggest("MÜL", 10);
+        assertEquals(List.of(1L, 4L), result.stream().map(Patient::getPersonId).toList());
+
+        // Vorname als Präfix, weiteres Wort grenzt ein
+        assertEquals(2, manager.suggest("anna", 10).size());
+        assertEquals(3L, manager.suggest("anna sch", 10).get(0).getPersonId());
+        assertEquals(1, manager.suggest("m", 1).size());
+        assertTrue(manager.suggest("  ", 10).isEmpty());
+
+        // Index folgt Update und Löschen
+        assertTrue(manager.updatePatient(4L, "Schulz", null, null, null, null, null));
+        assertEquals(List.of(1L), manager.suggest("mül", 10).stream().map(Patient::getPersonId).toList());
+        assertTrue(manager.deletePerson(1L));
+        assertTrue(manager.suggest("mül", 10).isEmpty());
+        assertEquals(4L, manager.suggest("schu", 10).get(0).getPersonId());
+    }
+
+    @Test
+    @DisplayName("Kölner Phonetik liefert die Referenzcodes")
+    public void testKoelnerPhonetik() {
+        assertEquals("67", KoelnerPhonetik.encode("Meier"));
+        assertEquals("67", KoelnerPhonetik.encode("Meyer"));
+        assertEquals("67", KoelnerPhonetik.encode("Maier"));
+        assertEquals("65752682", KoelnerPhonetik.encode("Müller-Lüdenscheidt"));
+        assertEquals("17863", KoelnerPhonetik.encode("Breschnew"));
+        assertEquals("3412", KoelnerPhonetik.encode("Wikipedia"));
+        assertEquals("", KoelnerPhonetik.encode("123"));
+        assertEquals("", KoelnerPhonetik.encode(null));
+    }
+
+    @Test
+    @DisplayName("Phonetische Suche mit Geburtsdatum und Duplikatswarnung")
+    public void testFindSimilarAndDuplicates() throws DuplicatePersonException {
+        PersonManager<Patient> manager = new PersonManager<>();
+        manager.addPerson(patient(1L, "Meier", "Jörg"));
+        manager.addPerson(patient(2L, "Maier", "Anna"));
+        manager.addPerson(patient(3L, "Meyer", "Jürgen"));
+        manager.addPerson(patient(4L, "Schmidt", "Jörg"));
+
+        assertEquals(3, manager.findSimilar("Mayr", null, null, 10).size());
+        assertEquals(List.of(1L), manager.findSimilar("Meyer", "Joerg", null, 10).stream()
+                .map(Patient::getPersonId).toList());
+        LocalDate birthdate = manager.findById(2L).getBirthdate();
+        assertEquals(List.of(2L), manager.findSimilar("Meier", null, birthdate, 10).stream()
+                .map(Patient::getPersonId).toList());
+        assertTrue(manager.findSimilar(null, null, birthdate, 10).isEmpty());
+
+        // Duplikatswarnung: gleich klingender Name und gleiches Geburtsdatum
+        assertEquals(1, manager.findPossibleDuplicates("Mayer", "Jörg", manager.findById(1L).getBirthdate()).size());
+        assertTrue(manager.findPossibleDuplicates("Mayer", "Jörg", LocalDate.of(2000, 1, 1)).isEmpty());
+
+        assertTrue(manager.updatePatient(1L, "Weber", null, null, null, null, null));
+        assertFalse(manager.findSimilar("Meier", "Jörg", null, 10).stream().anyMatch(p -> p.getPersonId() == 1L));
+    }
+}
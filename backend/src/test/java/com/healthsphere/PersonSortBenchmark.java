@@ -0,0 +1,96 @@
+package com.healthsphere;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+
+/**
+ * Vergleicht das Sortieren von Patienten mit der bisherigen Vergleichslogik
+ * (compareToIgnoreCase und Altersberechnung je Vergleich) und mit den
+ * zwischengespeicherten Sortierschlüsseln.
+ *
+ * Aufruf: java ... com.healthsphere.PersonSortBenchmark [Patienten] [Durchläufe]
+ * (Standard: 500.000 Patienten, 5 Durchläufe)
+ */
+public class PersonSortBenchmark {
+
+    private static final String[] NAMES = { "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer",
+            "Wagner", "Becker", "Schulz", "Hoffmann", "Schäfer", "Koch", "Bauer", "Richter", "Klein", "Wolf" };
+    private static final String[] FIRSTNAMES = { "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta",
+            "Hannah", "Jonas", "Lena", "Max", "Nina", "Paul", "Sophie", "Tim", "Jörg" };
+
+    // Bisherige Person.compareTo-Logik als Referenz
+    private static final Comparator<Person> LEGACY_COMPARE_TO = (a, b) -> {
+        int nameComparison = a.getName().compareToIgnoreCase(b.getName());
+        if (nameComparison != 0) {
+            return nameComparison;
+        }
+        int firstnameComparison = a.getFirstname().compareToIgnoreCase(b.getFirstname());
+        if (firstnameComparison != 0) {
+            return firstnameComparison;
+        }
+        int thisAge = Period.between(a.getBirthdate(), LocalDate.now()).getYears();
+        int otherAge = Period.between(b.getBirthdate(), LocalDate.now()).getYears();
+        int ageComparison = Integer.compare(thisAge, otherAge);
+        if (ageComparison != 0) {
+            return ageComparison;
+        }
+        return Long.compare(a.getPersonId(), b.getPersonId());
+    };
+
+    // Bisheriger Patient.BY_NAME_ONLY als Referenz
+    private static final Comparator<Patient> LEGACY_BY_NAME = Comparator
+            .comparing(Patient::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Patient::getFirstname, String.CASE_INSENSITIVE_ORDER);
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.println("=== PERSON SORT BENCHMARK (" + count + " Patienten, " + runs + " Durchläufe) ===\n");
+
+        Random random = new Random(11);
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            // Gemischte Schreibweise, damit die Faltung tatsächlich greift
+            String name = NAMES[random.nextInt(NAMES.length)];
+            if (random.nextBoolean()) {
+                name = name.toUpperCase();
+            }
+            patients.add(Patient.restore(i, name + random.nextInt(50), FIRSTNAMES[random.nextInt(FIRSTNAMES.length)],
+                    "030", "p@test.de", LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30_000)), "Str. 1", null));
+        }
+
+        measure("compareTo", patients, LEGACY_COMPARE_TO, Comparator.naturalOrder(), runs);
+        measure("BY_NAME_ONLY", patients, LEGACY_BY_NAME, Patient.BY_NAME_ONLY, runs);
+    }
+
+    private static void measure(String label, List<Patient> patients, Comparator<? super Patient> legacy,
+            Comparator<? super Patient> cached, int runs) {
+        sort(patients, legacy); // Aufwärmen
+        sort(patients, cached);
+
+        long legacyNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            legacyNanos = Math.min(legacyNanos, sort(patients, legacy));
+            cachedNanos = Math.min(cachedNanos, sort(patients, cached));
+        }
+        System.out.printf("%-14s bisher %,6d ms   Sortierschlüssel %,6d ms   Faktor %.1fx%n", label,
+                legacyNanos / 1_000_000, cachedNanos / 1_000_000, legacyNanos / (double) cachedNanos);
+    }
+
+    private static long sort(List<Patient> patients, Comparator<? super Patient> order) {
+        List<Patient> copy = new ArrayList<>(patients);
+        Collections.shuffle(copy, new Random(3));
+        long start = System.nanoTime();
+        copy.sort(order);
+        return System.nanoTime() - start;
+    }
+}
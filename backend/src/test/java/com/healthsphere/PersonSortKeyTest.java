@@ -0,0 +1,44 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.healthsphere.Exceptions.PersonExceptions.InvalidPersonDataException;
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+
+/**
+ * Testet die zwischengespeicherten Sortierschlüssel von Personen.
+ */
+public class PersonSortKeyTest {
+
+    @Test
+    @DisplayName("Gefaltete Schlüssel ordnen wie compareToIgnoreCase")
+    public void testFoldMatchesCompareToIgnoreCase() {
+        String[] values = { "Müller", "MÜLLER", "mueller", "Straße", "STRASSE", "Öztürk", "oz", "Ärzte", "arzt",
+                "ǅemal", "ǆ", "İlhan", "ilhan", "ß", "" };
+        for (String a : values) {
+            for (String b : values) {
+                assertEquals(Integer.signum(a.compareToIgnoreCase(b)),
+                        Integer.signum(Person.fold(a).compareTo(Person.fold(b))), a + " / " + b);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Setter verwerfen den zwischengespeicherten Schlüssel")
+    public void testKeyInvalidatedOnMutation() throws InvalidPersonDataException {
+        Patient patient = Patient.createForTest(1L, "Schmidt", "Anna", "030", "a@test.de",
+                LocalDate.of(1990, 3, 20), "Str. 1", null);
+        assertEquals("schmidt", patient.nameKey());
+
+        patient.setName("Weber");
+        patient.setFirstname("JÖRG");
+        assertEquals("weber", patient.nameKey());
+        assertEquals("jörg", patient.firstnameKey());
+    }
+}
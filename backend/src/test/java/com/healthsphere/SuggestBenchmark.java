@@ -0,0 +1,76 @@
+package com.healthsphere;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Person;
+import com.healthsphere.manager.PersonManager;
+
+/**
+ * Misst die Namens-Vorschläge (suggest) über den Präfix-Index gegen einen
+ * vollständigen Durchlauf aller Patienten.
+ *
+ * Aufruf: java ... com.healthsphere.SuggestBenchmark [Patienten] [Abfragen]
+ * (Standard: 1.000.000 Patienten, 10.000 Abfragen je Eingabe)
+ */
+public class SuggestBenchmark {
+
+    private static final String[] NAMES = { "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer",
+            "Wagner", "Becker", "Schulz", "Hoffmann", "Schäfer", "Koch", "Bauer", "Richter", "Klein", "Wolf" };
+    private static final String[] FIRSTNAMES = { "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta",
+            "Hannah", "Jonas", "Lena", "Max", "Nina", "Paul", "Sophie", "Tim", "Jörg" };
+    private static final String[] QUERIES = { "m", "mül", "SCHM", "anna", "anna sch", "wolf7", "xyz" };
+    private static final int LIMIT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        System.out.println("=== SUGGEST BENCHMARK (" + count + " Patienten, " + queries + " Abfragen) ===\n");
+
+        Random random = new Random(5);
+        PersonManager<Patient> manager = new PersonManager<>();
+        for (int i = 1; i <= count; i++) {
+            manager.addPerson(Patient.restore(i, NAMES[random.nextInt(NAMES.length)] + random.nextInt(100),
+                    FIRSTNAMES[random.nextInt(FIRSTNAMES.length)], "030", "p@test.de",
+                    LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30_000)), "Str. 1", null));
+        }
+        List<Patient> all = List.copyOf(manager.getAll());
+
+        for (String query : QUERIES) {
+            // Aufwärmen
+            for (int i = 0; i < 1_000; i++) {
+                manager.suggest(query, LIMIT);
+            }
+            long start = System.nanoTime();
+            int hits = 0;
+            for (int i = 0; i < queries; i++) {
+                hits = manager.suggest(query, LIMIT).size();
+            }
+            long indexNanos = (System.nanoTime() - start) / queries;
+
+            start = System.nanoTime();
+            int scanRuns = 5;
+            for (int i = 0; i < scanRuns; i++) {
+                scan(all, query);
+            }
+            long scanNanos = (System.nanoTime() - start) / scanRuns;
+
+            System.out.printf("%-10s Treffer %2d   Index %,8d ns   Durchlauf %,12d ns%n",
+                    "\"" + query + "\"", hits, indexNanos, scanNanos);
+        }
+    }
+
+    // Bisheriger Weg: alle Patienten prüfen, sortieren und die ersten LIMIT nehmen
+    private static List<Patient> scan(List<Patient> all, String query) {
+        String prefix = Person.fold(query).trim().split("\\s+")[0];
+        return all.stream()
+                .filter(p -> Person.fold(p.getName()).startsWith(prefix)
+                        || Person.fold(p.getFirstname()).startsWith(prefix))
+                .sorted()
+                .limit(LIMIT)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,183 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthsphere.components.Patient;
+import com.healthsphere.components.Treatment;
+import com.healthsphere.components.Ward;
+import com.healthsphere.manager.PersonManager;
+import com.healthsphere.manager.Transaction;
+import com.healthsphere.manager.TreatmentManager;
+import com.healthsphere.manager.WardManager;
+import com.healthsphere.serialization.LogStore;
+import com.healthsphere.serialization.TransactionJournal;
+
+/**
+ * Testet Transaktionen über mehrere Manager: alles oder nichts im Speicher
+ * und nach einem Neustart.
+ */
+public class TransactionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Patient patient(long id, Integer wardId) {
+        return Patient.createForTest(id, "Name" + id, "Vorname", "030", "p@test.de",
+                LocalDate.of(1980, 1, 1), "Str. 1", wardId);
+    }
+
+    @Test
+    @DisplayName("Volle Station bricht die ganze Transaktion ab")
+    public void testAbortLeavesEverythingUnchanged() {
+        PersonManager<Patient> patients = new PersonManager<>();
+        WardManager wards = new WardManager();
+        TreatmentManager treatments = new TreatmentManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+        wards.addWard(Ward.createForTest(1, "Kardiologie", "Test", 1));
+        Transaction.begin().add(patients, patient(1, 1)).commit();
+
+        Transaction transaction = Transaction.begin()
+                .add(treatments, new Treatment(1, LocalDate.of(2024, 1, 1), "EKG", 2L, 10L))
+                .add(patients, patient(2, 1));
+        assertFalse(transaction.commit());
+        assertTrue(transaction.getError().contains("keine freien Plätze"));
+        assertNull(patients.findById(2L));
+        assertNull(treatments.findById(1));
+        assertEquals(1, patients.getWardOccupancy(1));
+    }
+
+    @Test
+    @DisplayName("Station löschen verlegt ihre Patienten in derselben Transaktion")
+    public void testDeleteWardReassignsPatients() throws Exception {
+        PersonManager<Patient> patients = new PersonManager<>();
+        WardManager wards = new WardManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+        wards.addWard(Ward.createForTest(1, "Alt", "Test", 5));
+        wards.addWard(Ward.createForTest(2, "Klein", "Test", 1));
+        wards.addWard(Ward.createForTest(3, "Groß", "Test", 5));
+        patients.addPerson(patient(1, 1));
+        patients.addPerson(patient(2, 1));
+
+        // Station 2 hat nur einen Platz: nichts wird verlegt oder gelöscht
+        assertNotNull(wards.deleteWard(1, 2));
+        assertNotNull(wards.findById(1));
+        assertEquals(2, patients.getWardOccupancy(1));
+        assertEquals(0, patients.getWardOccupancy(2));
+
+        assertNull(wards.deleteWard(1, 3));
+        assertNull(wards.findById(1));
+        assertEquals(2, patients.findByWard(3).size());
+        assertEquals(2, patients.getWardOccupancy(3));
+        assertEquals(0, patients.findByWard(1).size());
+
+        assertNull(wards.transferPatient(1L, 2));
+        assertEquals(Integer.valueOf(2), patients.findById(1L).getWardId());
+        assertEquals(1, patients.getWardOccupancy(3));
+        assertNotNull(wards.transferPatient(2L, 2)); // Station 2 ist jetzt voll
+
+        // Der Patient wird erst beim commit() gelesen: eine zwischenzeitliche Änderung bleibt erhalten
+        Transaction move = Transaction.begin().moveToWard(patients, 2L, 1);
+        wards.addWard(Ward.createForTest(1, "Neu", "Test", 5));
+        patients.updatePatient(2L, "Umbenannt", null, null, null, null, null);
+        assertTrue(move.commit());
+        assertEquals("Umbenannt", patients.findById(2L).getName());
+        assertEquals(Integer.valueOf(1), patients.findById(2L).getWardId());
+    }
+
+    @Test
+    @DisplayName("Patient und Behandlung werden gemeinsam gespeichert und aus dem Journal ergänzt")
+    public void testCommitIsDurableAcrossLogs() throws IOException {
+        String patientFile = tempDir.resolve("patients.ser").toString();
+        String treatmentFile = tempDir.resolve("treatments.ser").toString();
+        PersonManager<Patient> patients = new PersonManager<>(patientFile);
+        TreatmentManager treatments = new TreatmentManager(treatmentFile);
+        treatments.setPersonManagers(patients, null);
+
+        Treatment treatment = treatments.addPatientWithTreatment("Muster", "Max", "030", "max@test.de",
+                LocalDate.of(1980, 1, 1), "Str. 1", null, LocalDate.of(2024, 1, 1), "EKG", 10L);
+        assertNotNull(treatment);
+        TransactionJournal journal = TransactionJournal.forFile(patientFile);
+        assertEquals(1, journal.size());
+
+        // Absturz, bevor das Behandlungs-Log synchronisiert war: sein Batch fehlt
+        try (FileChannel log = FileChannel.open(Path.of(treatmentFile + LogStore.LOG_SUFFIX),
+                StandardOpenOption.WRITE)) {
+            log.truncate(0);
+        }
+        TreatmentManager reloaded = new TreatmentManager(treatmentFile);
+        assertEquals("EKG", reloaded.findById(treatment.getTreatmentId()).getTherapy());
+        assertNotNull(new PersonManager<Patient>(patientFile).findById(treatment.getPatientPersonId()));
+
+        // Sind beide Logs in Snapshots übernommen, ist das Journal leer
+        reloaded.save();
+        patients.save();
+        assertEquals(0, journal.size());
+        assertFalse(Files.exists(tempDir.resolve(TransactionJournal.FILENAME)));
+        assertEquals(1, new TreatmentManager(treatmentFile).getAll().size());
+    }
+
+    @Test
+    @DisplayName("Stapel: Ergebnis je Eintrag, ein Log-Datensatz für alle gültigen Einträge")
+    public void testBatchAppliesValidItemsWithOneSync() throws Exception {
+        String patientFile = tempDir.resolve("patients.ser").toString();
+        PersonManager<Patient> patients = new PersonManager<>(patientFile);
+        WardManager wards = new WardManager();
+        patients.setWardManager(wards);
+        wards.setPatientManager(patients);
+        wards.addWard(Ward.createForTest(1, "Kardiologie", "Test", 2));
+        patients.addPerson(patient(1, null));
+        long syncs = patients.getStore().getMutationLog().syncCount();
+
+        List<String> results = patients.applyAll(
+                List.of(patient(2, 1), patient(3, 1), patient(4, 1), patient(1, null)),
+                List.of(patient(1, 1)),
+                List.of(99L));
+
+        assertEquals(6, results.size());
+        assertNull(results.get(0));
+        assertNull(results.get(1));
+        assertTrue(results.get(2).contains("keine freien Plätze"));
+        assertTrue(results.get(3).contains("existiert bereits"));
+        assertTrue(results.get(4).contains("keine freien Plätze")); // Plätze schon von 2 und 3 belegt
+        assertTrue(results.get(5).contains("nicht gefunden"));
+        assertEquals(2, patients.getWardOccupancy(1));
+        assertEquals(1, patients.getStore().getMutationLog().syncCount() - syncs);
+
+        assertEquals(Arrays.asList(null, null), patients.deleteAll(List.of(2L, 3L)));
+
+        // Patches werden beim commit() auf den dann aktuellen Stand angewendet
+        Map<Long, Transaction.Patch<Patient>> patches = new LinkedHashMap<>();
+        patches.put(1L, current -> PersonManager.patchPatient(current, null, null, null, "neu@test.de", null, null));
+        patches.put(4L, current -> PersonManager.patchPatient(current, null, null, null, "ungültig", null, null));
+        patients.updatePatient(1L, "Umbenannt", null, null, null, null, null);
+        List<String> patched = patients.applyAll(List.of(), patches, List.of());
+        assertNull(patched.get(0));
+        assertTrue(patched.get(1).contains("nicht gefunden"));
+        assertEquals("Umbenannt", patients.findById(1L).getName());
+        assertEquals("neu@test.de", patients.findById(1L).getEmail());
+        PersonManager<Patient> reloaded = new PersonManager<>(patientFile);
+        assertEquals(1, reloaded.getAll().size());
+        assertNotNull(reloaded.findById(1L));
+    }
+}
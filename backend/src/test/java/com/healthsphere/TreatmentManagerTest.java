@@ -0,0 +1,140 @@
+package com.healthsphere;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.healthsphere.components.Treatment;
+import com.healthsphere.manager.TreatmentManager;
+
+/**
+ * Testet die Indizes des TreatmentManagers nach Patient, Arzt und Datum
+ * sowie die Bereichsabfragen und sortierten Seiten.
+ */
+public class TreatmentManagerTest {
+
+    @Test
+    @DisplayName("Indizes folgen Hinzufügen, Ändern und Löschen")
+    public void testIndexesFollowMutations() {
+        TreatmentManager manager = new TreatmentManager();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        manager.addTreatment(new Treatment(1, day, "Physiotherapie", 10L, 1L));
+        manager.addTreatment(new Treatment(2, day, "Röntgen", 11L, 1L));
+        manager.addTreatment(new Treatment(3, day.plusDays(1), "Blutabnahme", 10L, 2L));
+
+        assertEquals(2, manager.findByPatient(10L).size());
+        assertEquals(2, manager.findByDoctor(1L).size());
+        assertEquals(2, manager.findByDate(day).size());
+
+        // Patient und Arzt wechseln: alte Einträge verschwinden aus den Indizes
+        assertTrue(manager.updateTreatment(2, null, 10L, 2L));
+        assertEquals(3, manager.findByPatient(10L).size());
+        assertTrue(manager.findByPatient(11L).isEmpty());
+        assertEquals(2, manager.findByDoctor(2L).size());
+
+        assertTrue(manager.deleteTreatment(1));
+        assertEquals(2, manager.findByDoctor(2L).size());
+        assertEquals(1, manager.findByDate(day).size());
+        assertTrue(manager.findByDoctor(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Bereichsabfragen liefern die Reihenfolge der Datums-Comparatoren")
+    public void testRangeQueryOrder() {
+        TreatmentManager manager = new TreatmentManager();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 1; i <= 60; i++) {
+            manager.addTreatment(new Treatment(i, start.plusDays(i % 31), "Therapie " + i, i % 3, 1L));
+        }
+        LocalDate from = start.plusDays(5);
+        LocalDate to = start.plusDays(20);
+
+        List<Treatment> expected = manager.getAll().stream()
+                .filter(t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to))
+                .filter(t -> t.getPatientPersonId() == 2)
+                .sorted(Treatment.BY_DATE_DESC)
+                .collect(Collectors.toList());
+        assertEquals(expected, manager.findInRange(from, to, 2L, null, false).collect(Collectors.toList()));
+
+        List<Treatment> ascending = manager.getAll().stream()
+                .filter(t -> !t.getDate().isBefore(from))
+                .sorted(Treatment.BY_DATE_ASC)
+                .collect(Collectors.toList());
+        assertEquals(ascending, manager.findInRange(from, null, null, null, true).collect(Collectors.toList()));
+
+        // Nur Patient: Index des Patienten, gleiche Reihenfolge
+        List<Treatment> byPatient = manager.getAll().stream()
+                .filter(t -> t.getPatientPersonId() == 1)
+                .sorted(Treatment.BY_DATE_ASC)
+                .collect(Collectors.toList());
+        assertEquals(byPatient, manager.findInRange(null, null, 1L, null, true).collect(Collectors.toList()));
+
+        // Keyset-Pagination: Seiten hinter dem Cursor ergeben lückenlos das Gesamtergebnis
+        List<Treatment> pages = new ArrayList<>();
+        Long after = null;
+        do {
+            List<Treatment> page = manager.findInRange(from, null, null, null, true, after, 7);
+            pages.addAll(page);
+            after = page.size() == 7 ? (long) page.get(6).getTreatmentId() : null;
+        } while (after != null);
+        assertEquals(ascending, pages);
+        assertEquals(List.of(11, 12), manager.getPage(10, 2).stream()
+                .map(Treatment::getTreatmentId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Sortierte Seiten folgen Änderungen des Sortierschlüssels")
+    public void testSortedPagesFollowUpdates() {
+        TreatmentManager manager = new TreatmentManager();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        manager.addTreatment(new Treatment(1, day, "Massage", 10L, 1L));
+        manager.addTreatment(new Treatment(2, day, "Akupunktur", 11L, 1L));
+        manager.addTreatment(new Treatment(3, day, "Chirotherapie", 12L, 2L));
+
+        assertEquals(List.of(2, 3), ids(manager.getSortedPage("therapy", Treatment.BY_THERAPY_TYPE, null, 2)));
+        assertEquals(List.of(1), ids(manager.getSortedPage("therapy", Treatment.BY_THERAPY_TYPE, 3, 2)));
+
+        // Neuer Sortierschlüssel: Eintrag wandert an die richtige Stelle
+        assertTrue(manager.updateTherapy(1, "Atemtherapie"));
+        manager.addTreatment(new Treatment(4, day, "Zahnreinigung", 12L, 2L));
+        assertEquals(List.of(2, 1, 3, 4),
+                ids(manager.getSortedPage("therapy", Treatment.BY_THERAPY_TYPE, null, 10)));
+    }
+
+    @Test
+    @DisplayName("Sortierte Seiten mit Behandlungen ohne Datum oder Therapie")
+    public void testSortedPageWithMissingValues() {
+        TreatmentManager manager = new TreatmentManager();
+        manager.addTreatment(new Treatment(1, null, "Massage", 10L, 1L));
+        manager.addTreatment(new Treatment(2, LocalDate.of(2024, 3, 1), null, 11L, 1L));
+        manager.addTreatment(new Treatment(3, LocalDate.of(2024, 3, 2), "Akupunktur", 10L, 2L));
+
+        assertEquals(List.of(3, 2, 1), ids(manager.getSortedPage("date_desc", Treatment.BY_DATE_DESC, null, 10)));
+        assertEquals(List.of(2, 3, 1), ids(manager.getSortedPage("date_asc", Treatment.BY_DATE_ASC, null, 10)));
+        assertEquals(List.of(3, 1, 2), ids(manager.getSortedPage("therapy", Treatment.BY_THERAPY_TYPE, null, 10)));
+
+        // Auch bei bereits bestehenden Indizes: Einfügen und Ändern bleiben konsistent
+        manager.addTreatment(new Treatment(4, null, null, 12L, 2L));
+        assertTrue(manager.updateTherapy(3, null));
+        assertEquals(List.of(3, 2, 1, 4), ids(manager.getSortedPage("date_desc", Treatment.BY_DATE_DESC, null, 10)));
+        assertEquals(List.of(2, 1, 4), ids(manager.getSortedPage("date_desc", Treatment.BY_DATE_DESC, 3, 10)));
+        assertEquals(List.of(1, 3, 2, 4), ids(manager.getSortedPage("therapy", Treatment.BY_THERAPY_TYPE, null, 10)));
+        assertEquals(4, manager.getAll().size());
+
+        // Bereichsabfrage: ohne Datum zuletzt, auch als Cursor
+        assertEquals(List.of(3, 1), ids(manager.findInRange(null, null, 10L, null, true, null, 10)));
+        assertEquals(List.of(1), ids(manager.findInRange(null, null, 10L, null, true, 3L, 10)));
+        assertEquals(List.of(), manager.findInRange(LocalDate.of(2024, 1, 1), null, null, null, true, 1L, 10));
+    }
+
+    private static List<Integer> ids(List<Treatment> treatments) {
+        return treatments.stream().map(Treatment::getTreatmentId).collect(Collectors.toList());
+    }
+}